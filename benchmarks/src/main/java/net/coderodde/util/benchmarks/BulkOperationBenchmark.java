@@ -0,0 +1,107 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the bulk <code>Collection</code> methods. Each 
+ * invocation works on a freshly loaded set, so the benchmarks are run in the
+ * single shot mode; the reloading is not included in the measured time.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+public class BulkOperationBenchmark {
+    
+    @Param({"ORDER_STATISTIC_TREE",
+            "ARRAY_ORDER_STATISTIC_TREE",
+            "B_PLUS_ORDER_STATISTIC_TREE",
+            "TREE_SET"})
+    public SetImplementation implementation;
+    
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+    
+    @Param({"RANDOM", "SORTED", "REVERSE", "CLUSTERED"})
+    public KeyDistribution distribution;
+    
+    private int[] keys;
+    
+    /**
+     * All the keys in their insertion order.
+     */
+    private List<Integer> allKeys;
+    
+    /**
+     * Every other key of {@link #allKeys}.
+     */
+    private Set<Integer> halfKeys;
+    
+    private Set<Integer> emptySet;
+    private Set<Integer> loadedSet;
+    
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        keys = distribution.generate(size, size);
+        allKeys = new ArrayList<>(size);
+        halfKeys = new HashSet<>();
+        
+        for (int i = 0; i < size; ++i) {
+            allKeys.add(keys[i]);
+            
+            if ((i & 1) == 0) {
+                halfKeys.add(keys[i]);
+            }
+        }
+    }
+    
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        emptySet = implementation.newSet();
+        loadedSet = implementation.newSet(keys);
+    }
+    
+    @Benchmark
+    public Set<Integer> addAll() {
+        emptySet.addAll(allKeys);
+        return emptySet;
+    }
+    
+    @Benchmark
+    public boolean containsAll() {
+        return loadedSet.containsAll(halfKeys);
+    }
+    
+    @Benchmark
+    public Set<Integer> removeAll() {
+        loadedSet.removeAll(halfKeys);
+        return loadedSet;
+    }
+    
+    @Benchmark
+    public Set<Integer> retainAll() {
+        loadedSet.retainAll(halfKeys);
+        return loadedSet;
+    }
+}
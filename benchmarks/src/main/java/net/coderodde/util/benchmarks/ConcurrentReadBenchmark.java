@@ -0,0 +1,104 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.ConcurrentOrderStatisticSet;
+import net.coderodde.util.OrderStatisticTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class benchmarks the read throughput of an order statistic tree shared
+ * by seven reader threads and one writer thread. The tree is either wrapped in
+ * {@link ConcurrentOrderStatisticSet} or guarded by its monitor, as
+ * <code>Collections.synchronizedSet</code> would do. The writer idles for
+ * <code>writeDelay</code> tokens between the writes. Use the JMH option
+ * <code>-tg</code> in order to vary the thread counts.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConcurrentReadBenchmark {
+    
+    @Param({"100000"})
+    public int size;
+    
+    @Param({"1000", "100000"})
+    public int writeDelay;
+    
+    private ConcurrentOrderStatisticSet<Integer> concurrentSet;
+    private OrderStatisticTree<Integer> synchronizedTree;
+    
+    @Setup
+    public void setup() {
+        int[] keys = KeyDistribution.RANDOM.generate(size, size);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        synchronizedTree = new OrderStatisticTree<>();
+        
+        for (int key : keys) {
+            tree.add(key);
+            synchronizedTree.add(key);
+        }
+        
+        concurrentSet = new ConcurrentOrderStatisticSet<>(tree);
+    }
+    
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(7)
+    public Integer concurrentGet() {
+        return concurrentSet.get(ThreadLocalRandom.current().nextInt(size));
+    }
+    
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public boolean concurrentWrite() {
+        // The loaded keys are even, so toggling an odd key never removes them
+        // and every index below 'size' stays valid.
+        Integer key = 2 * ThreadLocalRandom.current().nextInt(size) + 1;
+        Blackhole.consumeCPU(writeDelay);
+        return concurrentSet.add(key) || concurrentSet.remove(key);
+    }
+    
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(7)
+    public Integer synchronizedGet() {
+        int index = ThreadLocalRandom.current().nextInt(size);
+        
+        synchronized (synchronizedTree) {
+            return synchronizedTree.get(index);
+        }
+    }
+    
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public boolean synchronizedWrite() {
+        Integer key = 2 * ThreadLocalRandom.current().nextInt(size) + 1;
+        Blackhole.consumeCPU(writeDelay);
+        
+        synchronized (synchronizedTree) {
+            return synchronizedTree.add(key) || synchronizedTree.remove(key);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.ConcurrentIndexableSkipList;
+import net.coderodde.util.OrderStatisticSet;
+import net.coderodde.util.OrderStatisticTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks a write-heavy workload on a shared order statistic
+ * set: each operation toggles a random key and then looks up a random index.
+ * {@link ConcurrentIndexableSkipList} is compared to an
+ * {@link OrderStatisticTree} guarded by its monitor. The scalability is seen
+ * by running with different thread counts, for example <code>-t 1</code>,
+ * <code>-t 8</code> and <code>-t 32</code>.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(2)
+public class ConcurrentWriteBenchmark {
+    
+    @Param({"SKIP_LIST", "LOCKED_TREE"})
+    public String implementation;
+    
+    @Param({"100000"})
+    public int size;
+    
+    private OrderStatisticSet<Integer> set;
+    private boolean locked;
+    
+    @Setup
+    public void setup() {
+        locked = implementation.equals("LOCKED_TREE");
+        set = locked ? new OrderStatisticTree<>() :
+                       new ConcurrentIndexableSkipList<>();
+        
+        for (int key : KeyDistribution.RANDOM.generate(size, size)) {
+            set.add(key);
+        }
+    }
+    
+    @Benchmark
+    public Integer toggleAndGet() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        
+        // The loaded keys are even and toggling touches odd keys only, so
+        // there are always at least 'size' elements.
+        Integer key = 2 * random.nextInt(size) + 1;
+        
+        if (locked) {
+            synchronized (set) {
+                toggle(key);
+                return set.get(random.nextInt(size));
+            }
+        }
+        
+        toggle(key);
+        return set.get(random.nextInt(size));
+    }
+    
+    private void toggle(Integer key) {
+        if (!set.add(key)) {
+            set.remove(key);
+        }
+    }
+}
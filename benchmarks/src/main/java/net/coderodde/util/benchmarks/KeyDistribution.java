@@ -0,0 +1,128 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.Random;
+
+/**
+ * This enumeration lists the key distributions the benchmarks are run with.
+ * Every distribution produces <code>size</code> distinct, even keys, so that
+ * <code>key + 1</code> is guaranteed to be absent from the loaded set.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public enum KeyDistribution {
+    
+    /**
+     * The keys are inserted in a uniformly random order.
+     */
+    RANDOM,
+    
+    /**
+     * The keys are inserted in ascending order.
+     */
+    SORTED,
+    
+    /**
+     * The keys are inserted in descending order.
+     */
+    REVERSE,
+    
+    /**
+     * The keys come in runs of consecutive values, the runs appearing in a 
+     * random order.
+     */
+    CLUSTERED;
+    
+    private static final int CLUSTER_LENGTH = 64;
+    
+    /**
+     * Generates the keys of this distribution.
+     * 
+     * @param size the number of keys to generate.
+     * @param seed the seed of the random number generator.
+     * @return the array of distinct keys in insertion order.
+     */
+    public int[] generate(int size, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[size];
+        
+        switch (this) {
+            case RANDOM:
+                for (int i = 0; i < size; ++i) {
+                    keys[i] = 2 * i;
+                }
+                
+                shuffle(keys, random);
+                return keys;
+                
+            case SORTED:
+                for (int i = 0; i < size; ++i) {
+                    keys[i] = 2 * i;
+                }
+                
+                return keys;
+                
+            case REVERSE:
+                for (int i = 0; i < size; ++i) {
+                    keys[i] = 2 * (size - 1 - i);
+                }
+                
+                return keys;
+                
+            case CLUSTERED:
+                int clusters = (size + CLUSTER_LENGTH - 1) / CLUSTER_LENGTH;
+                int[] clusterOrder = new int[clusters];
+                
+                for (int i = 0; i < clusters; ++i) {
+                    clusterOrder[i] = i;
+                }
+                
+                shuffle(clusterOrder, random);
+                int index = 0;
+                
+                for (int cluster : clusterOrder) {
+                    int from = cluster * CLUSTER_LENGTH;
+                    int to = Math.min(size, from + CLUSTER_LENGTH);
+                    
+                    for (int i = from; i < to; ++i) {
+                        keys[index++] = 2 * i;
+                    }
+                }
+                
+                return keys;
+                
+            default:
+                throw new IllegalStateException("Unknown distribution: " + 
+                                                this);
+        }
+    }
+    
+    /**
+     * Returns the indices into an array of length <code>size</code> that the
+     * benchmarks probe, in a random order.
+     * 
+     * @param size   the length of the indexed array.
+     * @param length the number of probes; must be a power of two.
+     * @param seed   the seed of the random number generator.
+     * @return the probe indices.
+     */
+    public static int[] probes(int size, int length, long seed) {
+        Random random = new Random(seed);
+        int[] probes = new int[length];
+        
+        for (int i = 0; i < length; ++i) {
+            probes[i] = random.nextInt(size);
+        }
+        
+        return probes;
+    }
+    
+    private static void shuffle(int[] array, Random random) {
+        for (int i = array.length - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks a mix of reads and writes against a loaded set. A read
+ * is a <code>contains</code> query; a write removes a present key and inserts 
+ * an absent one, which keeps the size of the set constant. 
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MixedWorkloadBenchmark {
+    
+    private static final int PROBES = 1 << 16;
+    
+    @Param({"ORDER_STATISTIC_TREE",
+            "ARRAY_ORDER_STATISTIC_TREE",
+            "B_PLUS_ORDER_STATISTIC_TREE",
+            "TREE_SET"})
+    public SetImplementation implementation;
+    
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+    
+    @Param({"RANDOM", "SORTED", "REVERSE", "CLUSTERED"})
+    public KeyDistribution distribution;
+    
+    @Param({"50", "90", "99"})
+    public int readPercentage;
+    
+    private Set<Integer> set;
+    
+    /**
+     * The keys currently in the set, followed by the keys not in the set. A
+     * write swaps a key between the two halves.
+     */
+    private Integer[] keys;
+    private int[] probes;
+    private boolean[] reads;
+    private int cursor;
+    
+    @Setup
+    public void setup() {
+        int[] present = distribution.generate(size, size);
+        set = implementation.newSet(present);
+        keys = new Integer[2 * size];
+        
+        for (int i = 0; i < size; ++i) {
+            keys[i] = present[i];
+            keys[size + i] = present[i] + 1;
+        }
+        
+        probes = KeyDistribution.probes(size, PROBES, ~size);
+        reads = new boolean[PROBES];
+        Random random = new Random(size);
+        
+        for (int i = 0; i < PROBES; ++i) {
+            reads[i] = random.nextInt(100) < readPercentage;
+        }
+    }
+    
+    @Benchmark
+    public boolean operation() {
+        int i = cursor++ & (PROBES - 1);
+        int index = probes[i];
+        
+        if (reads[i]) {
+            return set.contains(keys[index]);
+        }
+        
+        Integer removed = keys[index];
+        Integer added = keys[size + index];
+        keys[index] = added;
+        keys[size + index] = removed;
+        return set.remove(removed) & set.add(added);
+    }
+}
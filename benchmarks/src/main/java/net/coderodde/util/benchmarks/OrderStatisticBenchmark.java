@@ -0,0 +1,88 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.OrderStatisticSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the rank queries <code>get(int)</code> and 
+ * <code>indexOf(T)</code> of the order statistic set implementations. 
+ * <code>TreeSet</code> has no logarithmic counterpart of either, so its 
+ * <code>ceiling(T)</code> is measured as the baseline cost of a plain 
+ * root-to-leaf descent.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OrderStatisticBenchmark {
+    
+    private static final int PROBES = 1 << 16;
+    
+    @Param({"ORDER_STATISTIC_TREE",
+            "ARRAY_ORDER_STATISTIC_TREE",
+            "B_PLUS_ORDER_STATISTIC_TREE"})
+    public SetImplementation implementation;
+    
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+    
+    @Param({"RANDOM", "SORTED", "REVERSE", "CLUSTERED"})
+    public KeyDistribution distribution;
+    
+    private OrderStatisticSet<Integer> tree;
+    private TreeSet<Integer> treeSet;
+    private Integer[] presentKeys;
+    private int[] probes;
+    private int cursor;
+    
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        int[] keys = distribution.generate(size, size);
+        tree = (OrderStatisticSet<Integer>) implementation.newSet(keys);
+        treeSet = (TreeSet<Integer>) SetImplementation.TREE_SET.newSet(keys);
+        presentKeys = new Integer[size];
+        
+        for (int i = 0; i < size; ++i) {
+            presentKeys[i] = keys[i];
+        }
+        
+        probes = KeyDistribution.probes(size, PROBES, ~size);
+    }
+    
+    private int nextProbe() {
+        return probes[cursor++ & (PROBES - 1)];
+    }
+    
+    @Benchmark
+    public Integer get() {
+        return tree.get(nextProbe());
+    }
+    
+    @Benchmark
+    public int indexOf() {
+        return tree.indexOf(presentKeys[nextProbe()]);
+    }
+    
+    @Benchmark
+    public Integer treeSetCeiling() {
+        return treeSet.ceiling(presentKeys[nextProbe()]);
+    }
+}
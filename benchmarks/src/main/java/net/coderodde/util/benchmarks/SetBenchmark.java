@@ -0,0 +1,107 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class benchmarks the single-element operations and the iteration of a
+ * loaded set. The size of the set stays constant during the measurement: the
+ * mutating benchmarks always undo their own change.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SetBenchmark {
+    
+    private static final int PROBES = 1 << 16;
+    
+    @Param({"ORDER_STATISTIC_TREE",
+            "ARRAY_ORDER_STATISTIC_TREE",
+            "B_PLUS_ORDER_STATISTIC_TREE",
+            "TREE_SET"})
+    public SetImplementation implementation;
+    
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+    
+    @Param({"RANDOM", "SORTED", "REVERSE", "CLUSTERED"})
+    public KeyDistribution distribution;
+    
+    private Set<Integer> set;
+    private Integer[] presentKeys;
+    private Integer[] absentKeys;
+    private int[] probes;
+    private int cursor;
+    
+    @Setup
+    public void setup() {
+        int[] keys = distribution.generate(size, size);
+        set = implementation.newSet(keys);
+        presentKeys = new Integer[size];
+        absentKeys = new Integer[size];
+        
+        for (int i = 0; i < size; ++i) {
+            presentKeys[i] = keys[i];
+            absentKeys[i] = keys[i] + 1;
+        }
+        
+        probes = KeyDistribution.probes(size, PROBES, ~size);
+    }
+    
+    private int nextProbe() {
+        return probes[cursor++ & (PROBES - 1)];
+    }
+    
+    @Benchmark
+    public boolean containsPresent() {
+        return set.contains(presentKeys[nextProbe()]);
+    }
+    
+    @Benchmark
+    public boolean containsAbsent() {
+        return set.contains(absentKeys[nextProbe()]);
+    }
+    
+    /**
+     * Measures an insertion of an absent key followed by its removal.
+     */
+    @Benchmark
+    public boolean addThenRemove() {
+        Integer key = absentKeys[nextProbe()];
+        return set.add(key) & set.remove(key);
+    }
+    
+    /**
+     * Measures a removal of a present key followed by its reinsertion.
+     */
+    @Benchmark
+    public boolean removeThenAdd() {
+        Integer key = presentKeys[nextProbe()];
+        return set.remove(key) & set.add(key);
+    }
+    
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Integer key : set) {
+            blackhole.consume(key);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.Set;
+import java.util.TreeSet;
+import net.coderodde.util.ArrayOrderStatisticTree;
+import net.coderodde.util.BPlusOrderStatisticTree;
+import net.coderodde.util.OrderStatisticTree;
+
+/**
+ * This enumeration lists the set implementations being compared.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public enum SetImplementation {
+    
+    ORDER_STATISTIC_TREE {
+        @Override
+        public Set<Integer> newSet() {
+            return new OrderStatisticTree<>();
+        }
+    },
+    
+    ARRAY_ORDER_STATISTIC_TREE {
+        @Override
+        public Set<Integer> newSet() {
+            return new ArrayOrderStatisticTree<>();
+        }
+    },
+    
+    B_PLUS_ORDER_STATISTIC_TREE {
+        @Override
+        public Set<Integer> newSet() {
+            return new BPlusOrderStatisticTree<>();
+        }
+    },
+    
+    TREE_SET {
+        @Override
+        public Set<Integer> newSet() {
+            return new TreeSet<>();
+        }
+    };
+    
+    /**
+     * Creates a new, empty set of this implementation.
+     * 
+     * @return an empty set.
+     */
+    public abstract Set<Integer> newSet();
+    
+    /**
+     * Creates a new set of this implementation holding all <code>keys</code>.
+     * 
+     * @param keys the keys to add, in insertion order.
+     * @return the loaded set.
+     */
+    public Set<Integer> newSet(int[] keys) {
+        Set<Integer> set = newSet();
+        
+        for (int key : keys) {
+            set.add(key);
+        }
+        
+        return set;
+    }
+}
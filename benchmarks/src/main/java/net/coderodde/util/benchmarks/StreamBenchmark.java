@@ -0,0 +1,72 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.OrderStatisticTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks summing all the elements of a set with a sequential
+ * and a parallel stream. The spliterator of {@link OrderStatisticTree} splits
+ * by rank into exact halves, whereas <code>TreeSet</code> splits at the root,
+ * so the parallel speedup shows how evenly the work is distributed over the
+ * cores of the common pool.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StreamBenchmark {
+    
+    @Param({"100000", "10000000"})
+    public int size;
+    
+    private OrderStatisticTree<Integer> tree;
+    private TreeSet<Integer> treeSet;
+    
+    @Setup
+    public void setup() {
+        tree = new OrderStatisticTree<>();
+        treeSet = new TreeSet<>();
+        
+        for (int key : KeyDistribution.RANDOM.generate(size, size)) {
+            tree.add(key);
+            treeSet.add(key);
+        }
+    }
+    
+    @Benchmark
+    public long treeSequential() {
+        return tree.stream().mapToLong(Integer::longValue).sum();
+    }
+    
+    @Benchmark
+    public long treeParallel() {
+        return tree.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+    
+    @Benchmark
+    public long treeSetSequential() {
+        return treeSet.stream().mapToLong(Integer::longValue).sum();
+    }
+    
+    @Benchmark
+    public long treeSetParallel() {
+        return treeSet.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+}
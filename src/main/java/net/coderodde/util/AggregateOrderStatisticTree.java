@@ -0,0 +1,622 @@
+package net.coderodde.util;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * This class implements an order statistic tree which, in addition to the
+ * <code>count</code> of each node, maintains the aggregate of the subtree
+ * rooted at the node under a {@link Monoid}. Each element contributes the
+ * value it is mapped to, so that, for example, the monoid
+ * <code>Monoid.of(0L, Long::sum)</code> with the mapper
+ * <code>Score::getPoints</code> sums the points of the scores. The aggregates
+ * of arbitrary index and key ranges are computed in logarithmic time, and the
+ * updates pay one extra combination per level. Each element is mapped only
+ * once, when it is added; the nodes keep the values.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ * @param <A> the aggregate type.
+ */
+public class AggregateOrderStatisticTree<T extends Comparable<? super T>, A>
+extends AbstractSet<T> implements OrderStatisticSet<T> {
+    
+    private static final class Node<T, A> {
+        T key;
+        
+        Node<T, A> parent;
+        Node<T, A> left;
+        Node<T, A> right;
+        
+        int height;
+        int count;
+        
+        /**
+         * The value of <code>key</code>, mapped once on insertion.
+         */
+        A value;
+        
+        /**
+         * The aggregate of all the elements in the subtree rooted at this
+         * node.
+         */
+        A aggregate;
+        
+        Node(T key, A value) {
+            this.key = key;
+            this.value = value;
+            this.aggregate = value;
+        }
+    }
+    
+    private final Function<? super T, ? extends A> mapper;
+    private final Monoid<A> monoid;
+    
+    private Node<T, A> root;
+    private int size;
+    private int modCount;
+    
+    /**
+     * Constructs an empty tree aggregating the values of the elements under
+     * <code>monoid</code>.
+     * 
+     * @param mapper maps each element to its value.
+     * @param monoid the monoid combining the values.
+     */
+    public AggregateOrderStatisticTree(Function<? super T, ? extends A> mapper,
+                                       Monoid<A> monoid) {
+        this.mapper = Objects.requireNonNull(mapper,
+                                             "The input mapper is null.");
+        this.monoid = Objects.requireNonNull(monoid,
+                                             "The input monoid is null.");
+    }
+    
+    /**
+     * Returns the aggregate of all the elements in this tree.
+     * 
+     * @return the aggregate of this tree.
+     */
+    public A aggregate() {
+        return aggregate(root);
+    }
+    
+    /**
+     * Returns the aggregate of the elements whose indices are within
+     * <code>[fromIndex, toIndex)</code>.
+     * 
+     * @param fromIndex the index of the first element to aggregate.
+     * @param toIndex   the index one past the last element to aggregate.
+     * @return the aggregate of the range.
+     * @throws IndexOutOfBoundsException if <code>fromIndex</code> is negative,
+     *                                   <code>toIndex</code> is larger than
+     *                                   the size of this tree or
+     *                                   <code>fromIndex</code> is larger than
+     *                                   <code>toIndex</code>.
+     */
+    public A aggregate(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "Illegal range [" + fromIndex + ", " + toIndex + ") " +
+                    "for the size " + size);
+        }
+        
+        return aggregate(root, size, fromIndex, toIndex);
+    }
+    
+    /**
+     * Returns the aggregate of the elements that lie between <code>lo</code>
+     * and <code>hi</code>.
+     * 
+     * @param lo          the lower end of the range.
+     * @param loInclusive whether <code>lo</code> belongs to the range.
+     * @param hi          the upper end of the range.
+     * @param hiInclusive whether <code>hi</code> belongs to the range.
+     * @return the aggregate of the range, or the identity if the range is
+     *         empty.
+     */
+    public A aggregate(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+        int from = rank(lo, !loInclusive);
+        int to = rank(hi, hiInclusive);
+        return from < to ? aggregate(root, size, from, to) : monoid.identity();
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new TreeIterator();
+    }
+    
+    private final class TreeIterator implements Iterator<T> {
+        
+        private Node<T, A> previousNode;
+        private Node<T, A> nextNode = root == null ? null : minimumNode(root);
+        private int expectedModCount = modCount;
+        
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+        
+        @Override
+        public T next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            previousNode = nextNode;
+            nextNode = successorOf(nextNode);
+            return previousNode.key;
+        }
+        
+        @Override
+        public void remove() {
+            if (previousNode == null) {
+                throw new IllegalStateException(
+                        "There is no element to remove.");
+            }
+            
+            checkConcurrentModification();
+            Node<T, A> x = deleteNode(previousNode);
+            
+            if (x == nextNode) {
+                // The key of 'nextNode' was moved to 'previousNode'.
+                nextNode = previousNode;
+            }
+            
+            expectedModCount = modCount;
+            previousNode = null;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The set was modified while iterating.");
+            }
+        }
+    }
+    
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        
+        if (root == null) {
+            root = new Node<>(element, mapper.apply(element));
+            size = 1;
+            modCount++;
+            return true;
+        }
+        
+        Node<T, A> parent = null;
+        Node<T, A> node = root;
+        int cmp = 0;
+        
+        while (node != null) {
+            cmp = element.compareTo(node.key);
+            
+            if (cmp == 0) {
+                // The element is already in this tree.
+                return false;
+            }
+            
+            parent = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        
+        Node<T, A> newnode = new Node<>(element, mapper.apply(element));
+        
+        if (cmp < 0) {
+            parent.left = newnode;
+        } else {
+            parent.right = newnode;
+        }
+        
+        newnode.parent = parent;
+        size++;
+        modCount++;
+        updateUpwards(newnode, 1);
+        fixAfterModification(newnode, true);
+        return true;
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        Node<T, A> node = findNode((T) o);
+        
+        if (node == null) {
+            return false;
+        }
+        
+        deleteNode(node);
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return findNode((T) o) != null;
+    }
+    
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        Node<T, A> node = root;
+        
+        while (true) {
+            if (index > node.count) {
+                index -= node.count + 1;
+                node = node.right;
+            } else if (index < node.count) {
+                node = node.left;
+            } else {
+                return node.key;
+            }
+        }
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        return contains(element) ? rank(element, false) : -1;
+    }
+    
+    @Override
+    public int rank(T element) {
+        return rank(element, false);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        root = null;
+        size = 0;
+    }
+    
+    // Returns the aggregate of the elements with indices [from, to) in the
+    // subtree rooted at 'node' having 'size' elements. Only the two paths
+    // leading to the ends of the range are descended; the subtrees between
+    // them contribute their aggregates as a whole.
+    private A aggregate(Node<T, A> node, int size, int from, int to) {
+        if (from >= to) {
+            return monoid.identity();
+        }
+        
+        if (from == 0 && to == size) {
+            return node.aggregate;
+        }
+        
+        int leftSize = node.count;
+        A result = aggregate(node.left,
+                             leftSize,
+                             from,
+                             Math.min(to, leftSize));
+        
+        if (from <= leftSize && leftSize < to) {
+            result = monoid.combine(result, node.value);
+        }
+        
+        if (to > leftSize + 1) {
+            result = monoid.combine(result,
+                                    aggregate(node.right,
+                                              size - leftSize - 1,
+                                              Math.max(0, from - leftSize - 1),
+                                              to - leftSize - 1));
+        }
+        
+        return result;
+    }
+    
+    private A aggregate(Node<T, A> node) {
+        return node == null ? monoid.identity() : node.aggregate;
+    }
+    
+    // Recomputes the aggregate of 'node' from the aggregates of its children.
+    private void updateAggregate(Node<T, A> node) {
+        node.aggregate = monoid.combine(
+                monoid.combine(aggregate(node.left), node.value),
+                aggregate(node.right));
+    }
+    
+    // Adds 'delta' to the counts of all the proper ancestors of 'node' having
+    // it in their left subtrees, and recomputes their aggregates.
+    private void updateUpwards(Node<T, A> node, int delta) {
+        Node<T, A> lo = node;
+        Node<T, A> hi = node.parent;
+        
+        while (hi != null) {
+            if (hi.left == lo) {
+                hi.count += delta;
+            }
+            
+            updateAggregate(hi);
+            lo = hi;
+            hi = hi.parent;
+        }
+    }
+    
+    // Returns the number of elements less than 'element' or, if 'inclusive'
+    // is set, less than or equal to it.
+    private int rank(T element, boolean inclusive) {
+        Node<T, A> node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += node.count + 1;
+                node = node.right;
+            } else {
+                return rank + node.count + (inclusive ? 1 : 0);
+            }
+        }
+        
+        return rank;
+    }
+    
+    private Node<T, A> findNode(T element) {
+        Node<T, A> x = root;
+        int cmp;
+        
+        while (x != null && (cmp = element.compareTo(x.key)) != 0) {
+            if (cmp < 0) {
+                x = x.left;
+            } else {
+                x = x.right;
+            }
+        }
+        
+        return x;
+    }
+    
+    // Removes the element of 'node' from this tree, rebalances it and returns
+    // the node that was physically unlinked.
+    private Node<T, A> deleteNode(Node<T, A> node) {
+        Node<T, A> x = node;
+        
+        if (node.left != null && node.right != null) {
+            // 'node' has both children: move the key of its successor into it
+            // and unlink the successor instead.
+            x = minimumNode(node.right);
+            node.key = x.key;
+            node.value = x.value;
+        }
+        
+        Node<T, A> child = x.left != null ? x.left : x.right;
+        Node<T, A> parent = x.parent;
+        Node<T, A> lo = x;
+        Node<T, A> hi = parent;
+        
+        while (hi != null) {
+            if (hi.left == lo) {
+                hi.count--;
+            }
+            
+            lo = hi;
+            hi = hi.parent;
+        }
+        
+        if (child != null) {
+            child.parent = parent;
+        }
+        
+        if (parent == null) {
+            root = child;
+        } else if (x == parent.left) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        
+        // The aggregates on the path to the root include the unlinked node
+        // and, possibly, the old key of 'node'.
+        for (Node<T, A> p = parent; p != null; p = p.parent) {
+            updateAggregate(p);
+        }
+        
+        fixAfterModification(x, false);
+        size--;
+        modCount++;
+        return x;
+    }
+    
+    private Node<T, A> minimumNode(Node<T, A> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        
+        return node;
+    }
+    
+    private Node<T, A> successorOf(Node<T, A> node) {
+        if (node.right != null) {
+            return minimumNode(node.right);
+        }
+        
+        Node<T, A> parent = node.parent;
+        
+        while (parent != null && parent.right == node) {
+            node = parent;
+            parent = parent.parent;
+        }
+        
+        return parent;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this tree is " + size);
+        }
+    }
+    
+    private int height(Node<T, A> node) {
+        return node == null ? -1 : node.height;
+    }
+    
+    private Node<T, A> leftRotate(Node<T, A> node1) {
+        Node<T, A> node2 = node1.right;
+        node2.parent = node1.parent;
+        node1.parent = node2;
+        node1.right = node2.left;
+        node2.left = node1;
+        
+        if (node1.right != null) {
+            node1.right.parent = node1;
+        }
+        
+        node1.height = Math.max(height(node1.left), height(node1.right)) + 1;
+        node2.height = Math.max(height(node2.left), height(node2.right)) + 1;
+        node2.count += node1.count + 1;
+        updateAggregate(node1);
+        updateAggregate(node2);
+        return node2;
+    }
+    
+    private Node<T, A> rightRotate(Node<T, A> node1) {
+        Node<T, A> node2 = node1.left;
+        node2.parent = node1.parent;
+        node1.parent = node2;
+        node1.left = node2.right;
+        node2.right = node1;
+        
+        if (node1.left != null) {
+            node1.left.parent = node1;
+        }
+        
+        node1.height = Math.max(height(node1.left), height(node1.right)) + 1;
+        node2.height = Math.max(height(node2.left), height(node2.right)) + 1;
+        node1.count -= node2.count + 1;
+        updateAggregate(node1);
+        updateAggregate(node2);
+        return node2;
+    }
+    
+    private Node<T, A> rightLeftRotate(Node<T, A> node1) {
+        node1.right = rightRotate(node1.right);
+        return leftRotate(node1);
+    }
+    
+    private Node<T, A> leftRightRotate(Node<T, A> node1) {
+        node1.left = leftRotate(node1.left);
+        return rightRotate(node1);
+    }
+    
+    // Fixing an insertion: use insertionMode = true.
+    // Fixing a deletion: use insertionMode = false.
+    // The aggregates above a rotated subtree need no update, since the
+    // rotations do not change the sequence of the elements in the subtree.
+    private void fixAfterModification(Node<T, A> node, boolean insertionMode) {
+        Node<T, A> parent = node.parent;
+        
+        while (parent != null) {
+            Node<T, A> subTree = rebalance(parent);
+            
+            if (subTree.parent == null) {
+                root = subTree;
+            }
+            
+            if (subTree != parent && insertionMode) {
+                // Whenever fixing after insertion, at most one rotation is
+                // required in order to maintain the balance.
+                return;
+            }
+            
+            parent = subTree.parent;
+        }
+    }
+    
+    // Restores the AVL property at 'node' whose children are balanced and have
+    // correct heights, and links the resulting subtree to the parent of
+    // 'node'. Returns the root of the resulting subtree.
+    private Node<T, A> rebalance(Node<T, A> node) {
+        Node<T, A> parent = node.parent;
+        Node<T, A> subTree;
+        
+        if (height(node.left) == height(node.right) + 2) {
+            if (height(node.left.left) >= height(node.left.right)) {
+                subTree = rightRotate(node);
+            } else {
+                subTree = leftRightRotate(node);
+            }
+        } else if (height(node.right) == height(node.left) + 2) {
+            if (height(node.right.right) >= height(node.right.left)) {
+                subTree = leftRotate(node);
+            } else {
+                subTree = rightLeftRotate(node);
+            }
+        } else {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+            return node;
+        }
+        
+        if (parent != null) {
+            if (parent.left == node) {
+                parent.left = subTree;
+            } else {
+                parent.right = subTree;
+            }
+        }
+        
+        return subTree;
+    }
+    
+    public boolean isHealthy() {
+        return root == null || (root.parent == null
+                                && isHealthy(root, null, null) == size);
+    }
+    
+    // Checks the order, the balance, the heights, the parent links, the counts
+    // and the aggregates of the subtree rooted at 'node'. 'lo' and 'hi' are
+    // the exclusive bounds of the keys; null means no bound. Returns the size
+    // of the subtree, or -1 if it is not healthy.
+    private int isHealthy(Node<T, A> node, T lo, T hi) {
+        if (node == null) {
+            return 0;
+        }
+        
+        if ((lo != null && node.key.compareTo(lo) <= 0) ||
+            (hi != null && node.key.compareTo(hi) >= 0) ||
+            (node.left != null && node.left.parent != node) ||
+            (node.right != null && node.right.parent != node) ||
+            Math.abs(height(node.left) - height(node.right)) > 1 ||
+            node.height != Math.max(height(node.left),
+                                    height(node.right)) + 1) {
+            return -1;
+        }
+        
+        int leftSize = isHealthy(node.left, lo, node.key);
+        int rightSize = isHealthy(node.right, node.key, hi);
+        
+        if (leftSize < 0 || rightSize < 0 || leftSize != node.count) {
+            return -1;
+        }
+        
+        A expected = monoid.combine(monoid.combine(aggregate(node.left),
+                                                   mapper.apply(node.key)),
+                                    aggregate(node.right));
+        
+        return Objects.equals(expected, node.aggregate) ?
+               leftSize + 1 + rightSize :
+               -1;
+    }
+}
@@ -0,0 +1,718 @@
+package net.coderodde.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class implements an order statistic tree which is based on AVL-trees,
+ * just like {@link OrderStatisticTree}, but without a heap object per node.
+ * Instead, the node fields live in parallel arrays indexed by the slot of the
+ * node, and the slots of the removed nodes are recycled through a free list.
+ * This removes the object header and the four references of each node and
+ * gives the garbage collector only six arrays to trace.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public class ArrayOrderStatisticTree<T extends Comparable<? super T>>
+extends AbstractSet<T> implements OrderStatisticSet<T> {
+    
+    /**
+     * The slot index denoting a missing node.
+     */
+    private static final int NIL = -1;
+    
+    private static final int DEFAULT_CAPACITY = 16;
+    
+    private Object[] keys;
+    private int[] parents;
+    private int[] lefts;
+    private int[] rights;
+    private int[] heights;
+    private int[] counts;
+    
+    private int root = NIL;
+    private int size;
+    private int modCount;
+    
+    /**
+     * All the slots starting from this one have never been allocated.
+     */
+    private int firstUnusedSlot;
+    
+    /**
+     * The head of the list of released slots, chained via {@link #rights}.
+     */
+    private int freeSlot = NIL;
+    
+    /**
+     * Constructs an empty tree with the default initial capacity.
+     */
+    public ArrayOrderStatisticTree() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Constructs an empty tree with room for <code>initialCapacity</code>
+     * elements before the node arrays need to grow.
+     * 
+     * @param initialCapacity the initial capacity.
+     */
+    public ArrayOrderStatisticTree(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "The initial capacity is negative: " + initialCapacity);
+        }
+        
+        keys    = new Object[initialCapacity];
+        parents = new int[initialCapacity];
+        lefts   = new int[initialCapacity];
+        rights  = new int[initialCapacity];
+        heights = new int[initialCapacity];
+        counts  = new int[initialCapacity];
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new TreeIterator();
+    }
+    
+    private final class TreeIterator implements Iterator<T> {
+        
+        private int previousNode = NIL;
+        private int nextNode;
+        private int expectedModCount = modCount;
+        
+        TreeIterator() {
+            if (root == NIL) {
+                nextNode = NIL;
+            } else {
+                nextNode = minimumNode(root);
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextNode != NIL;
+        }
+        
+        @Override
+        public T next() {
+            if (nextNode == NIL) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            T datum = key(nextNode);
+            previousNode = nextNode;
+            nextNode = successorOf(nextNode);
+            return datum;
+        }
+        
+        @Override
+        public void remove() {
+            if (previousNode == NIL) {
+                throw new IllegalStateException(
+                        nextNode == NIL ?
+                            "Not a single call to next(); nothing to remove." :
+                            "Removing the same element twice."
+                );
+            }
+            
+            checkConcurrentModification();
+            
+            int x = deleteNode(previousNode);
+            fixAfterModification(x, false);
+            releaseSlot(x);
+            
+            if (x == nextNode) {
+                nextNode = previousNode;
+            }
+            
+            expectedModCount = ++modCount;
+            size--;
+            previousNode = NIL;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The set was modified while iterating.");
+            }
+        }
+    }
+    
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        
+        if (root == NIL) {
+            root = allocateSlot(element);
+            size = 1;
+            modCount++;
+            return true;
+        }
+        
+        int parent = NIL;
+        int node = root;
+        int cmp = 0;
+        
+        while (node != NIL) {
+            cmp = element.compareTo(key(node));
+            
+            if (cmp == 0) {
+                // The element is already in this tree.
+                return false;
+            }
+            
+            parent = node;
+            
+            if (cmp < 0) {
+                node = lefts[node];
+            } else {
+                node = rights[node];
+            }
+        }
+        
+        int newnode = allocateSlot(element);
+        
+        if (cmp < 0) {
+            lefts[parent] = newnode;
+        } else {
+            rights[parent] = newnode;
+        }
+        
+        parents[newnode] = parent;
+        size++;
+        modCount++;
+        int hi = parent;
+        int lo = newnode;
+        
+        while (hi != NIL) {
+            if (lefts[hi] == lo) {
+                counts[hi]++;
+            }
+            
+            lo = hi;
+            hi = parents[hi];
+        }
+        
+        fixAfterModification(newnode, true);
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return findNode(o) != NIL;
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        int x = findNode(o);
+        
+        if (x == NIL) {
+            return false;
+        }
+        
+        x = deleteNode(x);
+        fixAfterModification(x, false);
+        releaseSlot(x);
+        size--;
+        modCount++;
+        return true;
+    }
+    
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        int node = root;
+        
+        while (true) {
+            if (index > counts[node]) {
+                index -= counts[node] + 1;
+                node = rights[node];
+            } else if (index < counts[node]) {
+                node = lefts[node];
+            } else {
+                return key(node);
+            }
+        }
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        int node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != NIL) {
+            if ((cmp = element.compareTo(key(node))) < 0) {
+                node = lefts[node];
+            } else if (cmp > 0) {
+                rank += counts[node] + 1;
+                node = rights[node];
+            } else {
+                return rank + counts[node];
+            }
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public int rank(T element) {
+        int node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != NIL) {
+            if ((cmp = element.compareTo(key(node))) < 0) {
+                node = lefts[node];
+            } else if (cmp > 0) {
+                rank += counts[node] + 1;
+                node = rights[node];
+            } else {
+                return rank + counts[node];
+            }
+        }
+        
+        return rank;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        Arrays.fill(keys, 0, firstUnusedSlot, null);
+        root = NIL;
+        size = 0;
+        firstUnusedSlot = 0;
+        freeSlot = NIL;
+    }
+    
+    /**
+     * Shrinks the node arrays so that they can hold exactly the current
+     * elements. The elements are first compacted into the lowest slots.
+     */
+    public void trimToSize() {
+        if (size == keys.length) {
+            return;
+        }
+        
+        Object[] newKeys = new Object[size];
+        int[] newParents = new int[size];
+        int[] newLefts = new int[size];
+        int[] newRights = new int[size];
+        int[] newHeights = new int[size];
+        int[] newCounts = new int[size];
+        int[] newSlotOf = new int[firstUnusedSlot];
+        int nextSlot = 0;
+        
+        // Lay out the nodes in in-order, which also makes in-order iteration
+        // and rank descents touch neighbouring memory.
+        for (int node = root == NIL ? NIL : minimumNode(root);
+                node != NIL;
+                node = successorOf(node)) {
+            newSlotOf[node] = nextSlot++;
+        }
+        
+        for (int node = root == NIL ? NIL : minimumNode(root);
+                node != NIL;
+                node = successorOf(node)) {
+            int slot = newSlotOf[node];
+            newKeys[slot] = keys[node];
+            newParents[slot] = remap(parents[node], newSlotOf);
+            newLefts[slot] = remap(lefts[node], newSlotOf);
+            newRights[slot] = remap(rights[node], newSlotOf);
+            newHeights[slot] = heights[node];
+            newCounts[slot] = counts[node];
+        }
+        
+        root = remap(root, newSlotOf);
+        keys = newKeys;
+        parents = newParents;
+        lefts = newLefts;
+        rights = newRights;
+        heights = newHeights;
+        counts = newCounts;
+        firstUnusedSlot = size;
+        freeSlot = NIL;
+        // The live iterators refer to the old slots.
+        modCount++;
+    }
+    
+    private static int remap(int node, int[] newSlotOf) {
+        return node == NIL ? NIL : newSlotOf[node];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T key(int node) {
+        return (T) keys[node];
+    }
+    
+    private int findNode(Object o) {
+        T element = (T) o;
+        int x = root;
+        int cmp;
+        
+        while (x != NIL && (cmp = element.compareTo(key(x))) != 0) {
+            if (cmp < 0) {
+                x = lefts[x];
+            } else {
+                x = rights[x];
+            }
+        }
+        
+        return x;
+    }
+    
+    private int allocateSlot(T key) {
+        int slot;
+        
+        if (freeSlot != NIL) {
+            slot = freeSlot;
+            freeSlot = rights[slot];
+        } else {
+            if (firstUnusedSlot == keys.length) {
+                grow();
+            }
+            
+            slot = firstUnusedSlot++;
+        }
+        
+        keys[slot] = key;
+        parents[slot] = NIL;
+        lefts[slot] = NIL;
+        rights[slot] = NIL;
+        heights[slot] = 0;
+        counts[slot] = 0;
+        return slot;
+    }
+    
+    private void releaseSlot(int slot) {
+        keys[slot] = null;
+        rights[slot] = freeSlot;
+        freeSlot = slot;
+    }
+    
+    private void grow() {
+        int capacity = keys.length;
+        int newCapacity = capacity < DEFAULT_CAPACITY ?
+                          DEFAULT_CAPACITY :
+                          capacity + (capacity >> 1);
+        
+        if (newCapacity < 0) {
+            // Overflow.
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        
+        keys    = Arrays.copyOf(keys, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+        lefts   = Arrays.copyOf(lefts, newCapacity);
+        rights  = Arrays.copyOf(rights, newCapacity);
+        heights = Arrays.copyOf(heights, newCapacity);
+        counts  = Arrays.copyOf(counts, newCapacity);
+    }
+    
+    private int successorOf(int node) {
+        if (rights[node] != NIL) {
+            return minimumNode(rights[node]);
+        }
+        
+        int parent = parents[node];
+        
+        while (parent != NIL && rights[parent] == node) {
+            node = parent;
+            parent = parents[parent];
+        }
+        
+        return parent;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this tree is " + size);
+        }
+    }
+    
+    // Unlinks 'node' or, if it has two children, its successor after moving
+    // the successor's key into 'node'. Returns the unlinked slot, which the
+    // caller releases after rebalancing.
+    private int deleteNode(int node) {
+        if (lefts[node] != NIL && rights[node] != NIL) {
+            // 'node' has both children.
+            int successor = minimumNode(rights[node]);
+            keys[node] = keys[successor];
+            node = successor;
+        }
+        
+        // 'node' has at most one child.
+        int child = lefts[node] != NIL ? lefts[node] : rights[node];
+        int parent = parents[node];
+        
+        if (child != NIL) {
+            parents[child] = parent;
+        }
+        
+        if (parent == NIL) {
+            root = child;
+            return node;
+        }
+        
+        if (lefts[parent] == node) {
+            lefts[parent] = child;
+            counts[parent]--;
+        } else {
+            rights[parent] = child;
+        }
+        
+        int lo = parent;
+        int hi = parents[parent];
+        
+        while (hi != NIL) {
+            if (lefts[hi] == lo) {
+                counts[hi]--;
+            }
+            
+            lo = hi;
+            hi = parents[hi];
+        }
+        
+        return node;
+    }
+    
+    private int minimumNode(int node) {
+        while (lefts[node] != NIL) {
+            node = lefts[node];
+        }
+        
+        return node;
+    }
+    
+    private int height(int node) {
+        return node == NIL ? -1 : heights[node];
+    }
+    
+    private void updateHeight(int node) {
+        heights[node] = Math.max(height(lefts[node]),
+                                 height(rights[node])) + 1;
+    }
+    
+    private int leftRotate(int node1) {
+        int node2 = rights[node1];
+        parents[node2] = parents[node1];
+        parents[node1] = node2;
+        rights[node1] = lefts[node2];
+        lefts[node2] = node1;
+        
+        if (rights[node1] != NIL) {
+            parents[rights[node1]] = node1;
+        }
+        
+        updateHeight(node1);
+        updateHeight(node2);
+        counts[node2] += counts[node1] + 1;
+        return node2;
+    }
+    
+    private int rightRotate(int node1) {
+        int node2 = lefts[node1];
+        parents[node2] = parents[node1];
+        parents[node1] = node2;
+        lefts[node1] = rights[node2];
+        rights[node2] = node1;
+        
+        if (lefts[node1] != NIL) {
+            parents[lefts[node1]] = node1;
+        }
+        
+        updateHeight(node1);
+        updateHeight(node2);
+        counts[node1] -= counts[node2] + 1;
+        return node2;
+    }
+    
+    private int rightLeftRotate(int node1) {
+        rights[node1] = rightRotate(rights[node1]);
+        return leftRotate(node1);
+    }
+    
+    private int leftRightRotate(int node1) {
+        lefts[node1] = leftRotate(lefts[node1]);
+        return rightRotate(node1);
+    }
+    
+    // Fixing an insertion: use insertionMode = true.
+    // Fixing a deletion: use insertionMode = false.
+    private void fixAfterModification(int node, boolean insertionMode) {
+        int parent = parents[node];
+        int grandParent;
+        int subTree;
+        
+        while (parent != NIL) {
+            int leftHeight = height(lefts[parent]);
+            int rightHeight = height(rights[parent]);
+            
+            if (leftHeight == rightHeight + 2) {
+                int left = lefts[parent];
+                grandParent = parents[parent];
+                
+                if (height(lefts[left]) >= height(rights[left])) {
+                    subTree = rightRotate(parent);
+                } else {
+                    subTree = leftRightRotate(parent);
+                }
+            } else if (rightHeight == leftHeight + 2) {
+                int right = rights[parent];
+                grandParent = parents[parent];
+                
+                if (height(rights[right]) >= height(lefts[right])) {
+                    subTree = leftRotate(parent);
+                } else {
+                    subTree = rightLeftRotate(parent);
+                }
+            } else {
+                updateHeight(parent);
+                parent = parents[parent];
+                continue;
+            }
+            
+            if (grandParent == NIL) {
+                root = subTree;
+            } else if (lefts[grandParent] == parent) {
+                lefts[grandParent] = subTree;
+            } else {
+                rights[grandParent] = subTree;
+            }
+            
+            if (grandParent != NIL) {
+                updateHeight(grandParent);
+            }
+            
+            if (insertionMode) {
+                // Whenever fixing after insertion, at most one rotation is
+                // required in order to maintain the balance.
+                return;
+            }
+            
+            // 'parent' was rotated below 'subTree'; continue above it.
+            parent = grandParent;
+        }
+    }
+    
+    public boolean isHealthy() {
+        if (root == NIL) {
+            return true;
+        }
+        
+        return !containsCycles()
+                && heightsAreCorrect()
+                && isBalanced(root)
+                && isWellIndexed();
+    }
+    
+    private boolean containsCycles() {
+        return containsCycles(root, new boolean[keys.length]);
+    }
+    
+    private boolean containsCycles(int current, boolean[] visitedNodes) {
+        if (current == NIL) {
+            return false;
+        }
+        
+        if (visitedNodes[current]) {
+            return true;
+        }
+        
+        visitedNodes[current] = true;
+        
+        return containsCycles(lefts[current], visitedNodes)
+                || containsCycles(rights[current], visitedNodes);
+    }
+    
+    private boolean heightsAreCorrect() {
+        return getHeight(root) == heights[root];
+    }
+    
+    private int getHeight(int node) {
+        if (node == NIL) {
+            return -1;
+        }
+        
+        int leftTreeHeight = getHeight(lefts[node]);
+        
+        if (leftTreeHeight == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        
+        int rightTreeHeight = getHeight(rights[node]);
+        
+        if (rightTreeHeight == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        
+        if (heights[node] == Math.max(leftTreeHeight, rightTreeHeight) + 1) {
+            return heights[node];
+        }
+        
+        return Integer.MIN_VALUE;
+    }
+    
+    private boolean isBalanced(int node) {
+        if (node == NIL) {
+            return true;
+        }
+        
+        if (!isBalanced(lefts[node]) || !isBalanced(rights[node])) {
+            return false;
+        }
+        
+        return Math.abs(height(lefts[node]) - height(rights[node])) < 2;
+    }
+    
+    private boolean isWellIndexed() {
+        return size == count(root);
+    }
+    
+    private int count(int node) {
+        if (node == NIL) {
+            return 0;
+        }
+        
+        int leftTreeSize = count(lefts[node]);
+        
+        if (leftTreeSize == Integer.MIN_VALUE ||
+                counts[node] != leftTreeSize) {
+            return Integer.MIN_VALUE;
+        }
+        
+        int rightTreeSize = count(rights[node]);
+        
+        if (rightTreeSize == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        
+        return leftTreeSize + 1 + rightTreeSize;
+    }
+}
@@ -0,0 +1,846 @@
+package net.coderodde.util;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class implements an order statistic set as a B+-tree. The elements live
+ * in sorted arrays in the leaves, which are linked in ascending order, and each
+ * internal node stores the number of elements under each of its children. With
+ * the default degree of 64, <code>get</code> and <code>indexOf</code> visit
+ * about log_64(n) nodes, each of them a handful of contiguous cache lines, and
+ * iteration is a linear scan over the leaves.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public class BPlusOrderStatisticTree<T extends Comparable<? super T>>
+extends AbstractSet<T> implements OrderStatisticSet<T> {
+    
+    private static final int DEFAULT_DEGREE = 64;
+    private static final int MINIMUM_DEGREE = 4;
+    
+    private abstract static class Node {
+        
+        /**
+         * The number of keys in a leaf or children in an internal node.
+         */
+        int size;
+    }
+    
+    private static final class Leaf extends Node {
+        final Object[] keys;
+        Leaf next;
+        
+        Leaf(int degree) {
+            keys = new Object[degree];
+        }
+    }
+    
+    private static final class Internal extends Node {
+        final Node[] children;
+        
+        /**
+         * <code>counts[i]</code> is the number of elements under
+         * <code>children[i]</code>.
+         */
+        final int[] counts;
+        
+        /**
+         * <code>separators[i]</code> is a lower bound of the elements under
+         * <code>children[i]</code> and an upper bound of the elements under
+         * <code>children[i - 1]</code>. <code>separators[0]</code> is unused.
+         */
+        final Object[] separators;
+        
+        Internal(int degree) {
+            children = new Node[degree];
+            counts = new int[degree];
+            separators = new Object[degree];
+        }
+    }
+    
+    /**
+     * The maximum number of keys in a leaf and children in an internal node.
+     */
+    private final int degree;
+    
+    /**
+     * The minimum number of keys in a non-root leaf and children in a non-root
+     * internal node.
+     */
+    private final int minimumSize;
+    
+    private Node root;
+    private int size;
+    private int modCount;
+    
+    // Set by a node split and consumed by the parent of the split node.
+    private Node splitSibling;
+    private Object splitSeparator;
+    
+    /**
+     * Constructs an empty B+-tree of the default degree.
+     */
+    public BPlusOrderStatisticTree() {
+        this(DEFAULT_DEGREE);
+    }
+    
+    /**
+     * Constructs an empty B+-tree whose nodes hold at most
+     * <code>degree</code> keys or children.
+     * 
+     * @param degree the maximum node size.
+     */
+    public BPlusOrderStatisticTree(int degree) {
+        if (degree < MINIMUM_DEGREE) {
+            throw new IllegalArgumentException(
+                    "The degree is too small: " + degree +
+                    ", must be at least " + MINIMUM_DEGREE);
+        }
+        
+        this.degree = degree;
+        this.minimumSize = degree / 2;
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new TreeIterator();
+    }
+    
+    private final class TreeIterator implements Iterator<T> {
+        
+        private Leaf leaf;
+        private int position;
+        private int nextIndex;
+        private T lastReturned;
+        private int expectedModCount = modCount;
+        
+        TreeIterator() {
+            leaf = root == null ? null : firstLeaf();
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+        
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            
+            if (position == leaf.size) {
+                leaf = leaf.next;
+                position = 0;
+            }
+            
+            lastReturned = key(leaf, position++);
+            nextIndex++;
+            return lastReturned;
+        }
+        
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException(
+                        nextIndex == 0 ?
+                            "Not a single call to next(); nothing to remove." :
+                            "Removing the same element twice."
+                );
+            }
+            
+            checkConcurrentModification();
+            BPlusOrderStatisticTree.this.remove(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = null;
+            nextIndex--;
+            
+            // The removal may have restructured the leaves.
+            if (nextIndex < size) {
+                locate(nextIndex);
+            }
+        }
+        
+        private void locate(int index) {
+            Node node = root;
+            
+            while (node instanceof Internal) {
+                Internal internal = (Internal) node;
+                int i = 0;
+                
+                while (index >= internal.counts[i]) {
+                    index -= internal.counts[i++];
+                }
+                
+                node = internal.children[i];
+            }
+            
+            leaf = (Leaf) node;
+            position = index;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The set was modified while iterating.");
+            }
+        }
+    }
+    
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        
+        if (root == null) {
+            root = new Leaf(degree);
+        }
+        
+        if (!insert(root, element)) {
+            return false;
+        }
+        
+        if (splitSibling != null) {
+            Internal newRoot = new Internal(degree);
+            newRoot.children[0] = root;
+            newRoot.children[1] = splitSibling;
+            newRoot.counts[0] = countOf(root);
+            newRoot.counts[1] = countOf(splitSibling);
+            newRoot.separators[1] = splitSeparator;
+            newRoot.size = 2;
+            root = newRoot;
+            splitSibling = null;
+            splitSeparator = null;
+        }
+        
+        size++;
+        modCount++;
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        if (root == null) {
+            return false;
+        }
+        
+        T element = (T) o;
+        Node node = root;
+        
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            node = internal.children[childIndex(internal, element)];
+        }
+        
+        return indexInLeaf((Leaf) node, element) >= 0;
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        if (root == null) {
+            return false;
+        }
+        
+        if (!delete(root, (T) o)) {
+            return false;
+        }
+        
+        if (root instanceof Internal && root.size == 1) {
+            root = ((Internal) root).children[0];
+        } else if (root.size == 0) {
+            root = null;
+        }
+        
+        size--;
+        modCount++;
+        return true;
+    }
+    
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        Node node = root;
+        
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            int i = 0;
+            
+            while (index >= internal.counts[i]) {
+                index -= internal.counts[i++];
+            }
+            
+            node = internal.children[i];
+        }
+        
+        return key((Leaf) node, index);
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        if (root == null) {
+            return -1;
+        }
+        
+        Node node = root;
+        int rank = 0;
+        
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            int childIndex = childIndex(internal, element);
+            
+            for (int i = 0; i < childIndex; ++i) {
+                rank += internal.counts[i];
+            }
+            
+            node = internal.children[childIndex];
+        }
+        
+        int index = indexInLeaf((Leaf) node, element);
+        return index < 0 ? -1 : rank + index;
+    }
+    
+    @Override
+    public int rank(T element) {
+        if (root == null) {
+            return 0;
+        }
+        
+        Node node = root;
+        int rank = 0;
+        
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            int childIndex = childIndex(internal, element);
+            
+            for (int i = 0; i < childIndex; ++i) {
+                rank += internal.counts[i];
+            }
+            
+            node = internal.children[childIndex];
+        }
+        
+        int index = indexInLeaf((Leaf) node, element);
+        return rank + (index < 0 ? -(index + 1) : index);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        root = null;
+        size = 0;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T key(Leaf leaf, int index) {
+        return (T) leaf.keys[index];
+    }
+    
+    private Leaf firstLeaf() {
+        Node node = root;
+        
+        while (node instanceof Internal) {
+            node = ((Internal) node).children[0];
+        }
+        
+        return (Leaf) node;
+    }
+    
+    private static int countOf(Node node) {
+        if (node instanceof Leaf) {
+            return node.size;
+        }
+        
+        Internal internal = (Internal) node;
+        int count = 0;
+        
+        for (int i = 0; i < internal.size; ++i) {
+            count += internal.counts[i];
+        }
+        
+        return count;
+    }
+    
+    // Returns the index of the child of 'node' that may contain 'element'.
+    @SuppressWarnings("unchecked")
+    private int childIndex(Internal node, T element) {
+        int lo = 1;
+        int hi = node.size - 1;
+        
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            
+            if (element.compareTo((T) node.separators[mid]) < 0) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        
+        return hi;
+    }
+    
+    // Returns the index of 'element' in 'leaf' or, if it is absent,
+    // -(insertion point) - 1.
+    @SuppressWarnings("unchecked")
+    private int indexInLeaf(Leaf leaf, T element) {
+        int lo = 0;
+        int hi = leaf.size - 1;
+        
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = element.compareTo((T) leaf.keys[mid]);
+            
+            if (cmp < 0) {
+                hi = mid - 1;
+            } else if (cmp > 0) {
+                lo = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        
+        return -(lo + 1);
+    }
+    
+    private boolean insert(Node node, T element) {
+        if (node instanceof Leaf) {
+            return insert((Leaf) node, element);
+        }
+        
+        Internal internal = (Internal) node;
+        int i = childIndex(internal, element);
+        Node child = internal.children[i];
+        
+        if (!insert(child, element)) {
+            return false;
+        }
+        
+        if (splitSibling == null) {
+            internal.counts[i]++;
+            return true;
+        }
+        
+        Node sibling = splitSibling;
+        Object separator = splitSeparator;
+        splitSibling = null;
+        splitSeparator = null;
+        internal.counts[i] = countOf(child);
+        insertChild(internal, i + 1, sibling, countOf(sibling), separator);
+        return true;
+    }
+    
+    private boolean insert(Leaf leaf, T element) {
+        int index = indexInLeaf(leaf, element);
+        
+        if (index >= 0) {
+            // The element is already in this tree.
+            return false;
+        }
+        
+        index = -(index + 1);
+        
+        if (leaf.size < degree) {
+            insertKey(leaf, index, element);
+            return true;
+        }
+        
+        Leaf right = new Leaf(degree);
+        int leftSize = (degree + 1) / 2;
+        
+        if (index < leftSize) {
+            moveKeys(leaf, leftSize - 1, right);
+            insertKey(leaf, index, element);
+        } else {
+            moveKeys(leaf, leftSize, right);
+            insertKey(right, index - leftSize, element);
+        }
+        
+        right.next = leaf.next;
+        leaf.next = right;
+        splitSibling = right;
+        splitSeparator = right.keys[0];
+        return true;
+    }
+    
+    private static void insertKey(Leaf leaf, int index, Object key) {
+        System.arraycopy(leaf.keys, index,
+                         leaf.keys, index + 1,
+                         leaf.size - index);
+        leaf.keys[index] = key;
+        leaf.size++;
+    }
+    
+    // Moves the keys starting at 'from' to the empty leaf 'target'.
+    private static void moveKeys(Leaf source, int from, Leaf target) {
+        int length = source.size - from;
+        System.arraycopy(source.keys, from, target.keys, 0, length);
+        
+        for (int i = from; i < source.size; ++i) {
+            source.keys[i] = null;
+        }
+        
+        source.size = from;
+        target.size = length;
+    }
+    
+    private void insertChild(Internal node,
+                             int index,
+                             Node child,
+                             int count,
+                             Object separator) {
+        if (node.size < degree) {
+            insertChildNoSplit(node, index, child, count, separator);
+            return;
+        }
+        
+        Internal right = new Internal(degree);
+        int leftSize = (degree + 1) / 2;
+        
+        if (index < leftSize) {
+            splitSeparator = moveChildren(node, leftSize - 1, right);
+            insertChildNoSplit(node, index, child, count, separator);
+        } else {
+            splitSeparator = moveChildren(node, leftSize, right);
+            
+            if (index == leftSize) {
+                // 'child' becomes the first child of 'right'.
+                right.separators[0] = splitSeparator;
+                splitSeparator = separator;
+            }
+            
+            insertChildNoSplit(right, index - leftSize, child, count,
+                               separator);
+            right.separators[0] = null;
+        }
+        
+        splitSibling = right;
+    }
+    
+    private static void insertChildNoSplit(Internal node,
+                                           int index,
+                                           Node child,
+                                           int count,
+                                           Object separator) {
+        int length = node.size - index;
+        System.arraycopy(node.children, index,
+                         node.children, index + 1,
+                         length);
+        System.arraycopy(node.counts, index, node.counts, index + 1, length);
+        System.arraycopy(node.separators, index,
+                         node.separators, index + 1,
+                         length);
+        node.children[index] = child;
+        node.counts[index] = count;
+        node.separators[index] = separator;
+        node.size++;
+    }
+    
+    // Moves the children starting at 'from' to the empty node 'target' and
+    // returns the separator between the two nodes.
+    private static Object moveChildren(Internal source,
+                                       int from,
+                                       Internal target) {
+        int length = source.size - from;
+        Object separator = source.separators[from];
+        System.arraycopy(source.children, from, target.children, 0, length);
+        System.arraycopy(source.counts, from, target.counts, 0, length);
+        System.arraycopy(source.separators, from,
+                         target.separators, 0,
+                         length);
+        target.separators[0] = null;
+        
+        for (int i = from; i < source.size; ++i) {
+            source.children[i] = null;
+            source.separators[i] = null;
+        }
+        
+        source.size = from;
+        target.size = length;
+        return separator;
+    }
+    
+    private boolean delete(Node node, T element) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = indexInLeaf(leaf, element);
+            
+            if (index < 0) {
+                return false;
+            }
+            
+            System.arraycopy(leaf.keys, index + 1,
+                             leaf.keys, index,
+                             leaf.size - index - 1);
+            leaf.keys[--leaf.size] = null;
+            return true;
+        }
+        
+        Internal internal = (Internal) node;
+        int i = childIndex(internal, element);
+        Node child = internal.children[i];
+        
+        if (!delete(child, element)) {
+            return false;
+        }
+        
+        internal.counts[i]--;
+        
+        if (child.size < minimumSize) {
+            fixUnderflow(internal, i);
+        }
+        
+        return true;
+    }
+    
+    // Fixes the underflow of the 'i'th child of 'parent' by borrowing from or
+    // merging with a sibling.
+    private void fixUnderflow(Internal parent, int i) {
+        if (i > 0 && parent.children[i - 1].size > minimumSize) {
+            borrowFromLeft(parent, i);
+        } else if (i + 1 < parent.size
+                && parent.children[i + 1].size > minimumSize) {
+            borrowFromRight(parent, i);
+        } else if (i > 0) {
+            merge(parent, i - 1);
+        } else if (parent.size > 1) {
+            merge(parent, i);
+        }
+    }
+    
+    private void borrowFromLeft(Internal parent, int i) {
+        Node node = parent.children[i];
+        Node left = parent.children[i - 1];
+        int moved;
+        
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            Leaf leftLeaf = (Leaf) left;
+            Object key = leftLeaf.keys[--leftLeaf.size];
+            leftLeaf.keys[leftLeaf.size] = null;
+            insertKey(leaf, 0, key);
+            parent.separators[i] = key;
+            moved = 1;
+        } else {
+            Internal internal = (Internal) node;
+            Internal leftInternal = (Internal) left;
+            int last = --leftInternal.size;
+            moved = leftInternal.counts[last];
+            insertChildNoSplit(internal, 0,
+                               leftInternal.children[last],
+                               moved,
+                               null);
+            internal.separators[1] = parent.separators[i];
+            parent.separators[i] = leftInternal.separators[last];
+            leftInternal.children[last] = null;
+            leftInternal.separators[last] = null;
+        }
+        
+        parent.counts[i - 1] -= moved;
+        parent.counts[i] += moved;
+    }
+    
+    private void borrowFromRight(Internal parent, int i) {
+        Node node = parent.children[i];
+        Node right = parent.children[i + 1];
+        int moved;
+        
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            Leaf rightLeaf = (Leaf) right;
+            leaf.keys[leaf.size++] = rightLeaf.keys[0];
+            System.arraycopy(rightLeaf.keys, 1,
+                             rightLeaf.keys, 0,
+                             rightLeaf.size - 1);
+            rightLeaf.keys[--rightLeaf.size] = null;
+            parent.separators[i + 1] = rightLeaf.keys[0];
+            moved = 1;
+        } else {
+            Internal internal = (Internal) node;
+            Internal rightInternal = (Internal) right;
+            moved = rightInternal.counts[0];
+            internal.children[internal.size] = rightInternal.children[0];
+            internal.counts[internal.size] = moved;
+            internal.separators[internal.size] = parent.separators[i + 1];
+            internal.size++;
+            parent.separators[i + 1] = rightInternal.separators[1];
+            removeChild(rightInternal, 0);
+        }
+        
+        parent.counts[i] += moved;
+        parent.counts[i + 1] -= moved;
+    }
+    
+    // Merges the 'i + 1'st child of 'parent' into the 'i'th one.
+    private void merge(Internal parent, int i) {
+        Node left = parent.children[i];
+        Node right = parent.children[i + 1];
+        
+        if (left instanceof Leaf) {
+            Leaf leftLeaf = (Leaf) left;
+            Leaf rightLeaf = (Leaf) right;
+            System.arraycopy(rightLeaf.keys, 0,
+                             leftLeaf.keys, leftLeaf.size,
+                             rightLeaf.size);
+            leftLeaf.size += rightLeaf.size;
+            leftLeaf.next = rightLeaf.next;
+        } else {
+            Internal leftInternal = (Internal) left;
+            Internal rightInternal = (Internal) right;
+            int offset = leftInternal.size;
+            System.arraycopy(rightInternal.children, 0,
+                             leftInternal.children, offset,
+                             rightInternal.size);
+            System.arraycopy(rightInternal.counts, 0,
+                             leftInternal.counts, offset,
+                             rightInternal.size);
+            System.arraycopy(rightInternal.separators, 0,
+                             leftInternal.separators, offset,
+                             rightInternal.size);
+            leftInternal.separators[offset] = parent.separators[i + 1];
+            leftInternal.size += rightInternal.size;
+        }
+        
+        parent.counts[i] += parent.counts[i + 1];
+        removeChild(parent, i + 1);
+    }
+    
+    private static void removeChild(Internal node, int index) {
+        int length = node.size - index - 1;
+        System.arraycopy(node.children, index + 1,
+                         node.children, index,
+                         length);
+        System.arraycopy(node.counts, index + 1, node.counts, index, length);
+        System.arraycopy(node.separators, index + 1,
+                         node.separators, index,
+                         length);
+        node.size--;
+        node.children[node.size] = null;
+        node.separators[node.size] = null;
+        node.separators[0] = null;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this tree is " + size);
+        }
+    }
+    
+    public boolean isHealthy() {
+        if (root == null) {
+            return size == 0;
+        }
+        
+        int[] leafDepth = { -1 };
+        
+        return countIfHealthy(root, null, null, 0, leafDepth) == size
+                && leavesAreLinked();
+    }
+    
+    // Returns the number of elements under 'node' or -1 if the subtree is
+    // broken. 'lo' and 'hi' bound the elements from below (inclusive) and
+    // from above (exclusive); null means no bound.
+    @SuppressWarnings("unchecked")
+    private int countIfHealthy(Node node,
+                               T lo,
+                               T hi,
+                               int depth,
+                               int[] leafDepth) {
+        if (node != root && node.size < minimumSize) {
+            return -1;
+        }
+        
+        if (node instanceof Leaf) {
+            if (leafDepth[0] == -1) {
+                leafDepth[0] = depth;
+            } else if (leafDepth[0] != depth) {
+                return -1;
+            }
+            
+            Leaf leaf = (Leaf) node;
+            
+            for (int i = 0; i < leaf.size; ++i) {
+                T key = key(leaf, i);
+                
+                if ((lo != null && key.compareTo(lo) < 0)
+                        || (hi != null && key.compareTo(hi) >= 0)
+                        || (i > 0 && key(leaf, i - 1).compareTo(key) >= 0)) {
+                    return -1;
+                }
+            }
+            
+            return leaf.size;
+        }
+        
+        Internal internal = (Internal) node;
+        
+        if (internal.size < 2) {
+            return -1;
+        }
+        
+        int count = 0;
+        
+        for (int i = 0; i < internal.size; ++i) {
+            T childLo = i == 0 ? lo : (T) internal.separators[i];
+            T childHi = i == internal.size - 1 ?
+                        hi :
+                        (T) internal.separators[i + 1];
+            int childCount = countIfHealthy(internal.children[i],
+                                            childLo,
+                                            childHi,
+                                            depth + 1,
+                                            leafDepth);
+            
+            if (childCount < 0 || childCount != internal.counts[i]) {
+                return -1;
+            }
+            
+            count += childCount;
+        }
+        
+        return count;
+    }
+    
+    private boolean leavesAreLinked() {
+        int count = 0;
+        T previous = null;
+        
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; ++i) {
+                T key = key(leaf, i);
+                
+                if (previous != null && previous.compareTo(key) >= 0) {
+                    return false;
+                }
+                
+                previous = key;
+                count++;
+            }
+        }
+        
+        return count == size;
+    }
+}
@@ -0,0 +1,616 @@
+package net.coderodde.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * This class implements a concurrent order statistic set as an indexable skip
+ * list. Each link above the bottom level stores its width, that is, the
+ * number of bottom-level links it spans, so that <code>get</code> and
+ * <code>indexOf</code> run in expected logarithmic time.
+ * <p>
+ * The queries and the iterators never block. <code>contains</code> is
+ * linearizable, whereas <code>get</code>, <code>indexOf</code>,
+ * <code>rank</code> and the iterators are weakly consistent: they may or may
+ * not reflect the updates running concurrently with them, and are exact
+ * whenever no update is in progress.
+ * <p>
+ * An update locks, from the top level down, the link it splits or merges on
+ * each level of its tower in the exclusive mode, and the link spanning its
+ * position on each level above the tower in the shared mode, adjusting the
+ * width of the latter atomically. Hence, updates at different positions run
+ * in parallel, and only the links they actually touch are contended.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public final class ConcurrentIndexableSkipList<T extends Comparable<? super T>>
+extends AbstractSet<T> implements OrderStatisticSet<T> {
+    
+    private static final int MAX_LEVEL = 32;
+    
+    /**
+     * This class represents an element on a single level. The indices of an
+     * element on the consecutive levels are linked by <code>down</code>.
+     */
+    private static final class Index<T> {
+        final T key;
+        final Index<T> down;
+        volatile Index<T> right;
+        
+        /**
+         * The number of bottom-level links spanned by <code>right</code>.
+         * Meaningful only if <code>right</code> is not <code>null</code>;
+         * unused on the bottom level.
+         */
+        volatile int width;
+        
+        volatile boolean deleted;
+        
+        /**
+         * Guards <code>right</code> and <code>width</code>.
+         */
+        final StampedLock lock = new StampedLock();
+        
+        Index(T key, Index<T> down) {
+            this.key = key;
+            this.down = down;
+        }
+    }
+    
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final AtomicIntegerFieldUpdater<Index> WIDTH =
+            AtomicIntegerFieldUpdater.newUpdater(Index.class, "width");
+    
+    /**
+     * <code>heads[level]</code> is the head index on <code>level</code>.
+     */
+    private final Index<T>[] heads = newIndexArray();
+    
+    /**
+     * The number of levels in use. Never decreases.
+     */
+    private volatile int height = 1;
+    
+    private final LongAdder size = new LongAdder();
+    
+    /**
+     * Constructs an empty skip list.
+     */
+    public ConcurrentIndexableSkipList() {
+        for (int level = 0; level < MAX_LEVEL; ++level) {
+            heads[level] = new Index<>(null,
+                                       level == 0 ? null : heads[level - 1]);
+        }
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new SkipListIterator();
+    }
+    
+    private final class SkipListIterator implements Iterator<T> {
+        
+        private Index<T> nextIndex = successor(heads[0]);
+        private T lastReturned;
+        
+        @Override
+        public boolean hasNext() {
+            return nextIndex != null;
+        }
+        
+        @Override
+        public T next() {
+            if (nextIndex == null) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            lastReturned = nextIndex.key;
+            nextIndex = successor(nextIndex);
+            return lastReturned;
+        }
+        
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException(
+                        "There is no element to remove.");
+            }
+            
+            ConcurrentIndexableSkipList.this.remove(lastReturned);
+            lastReturned = null;
+        }
+        
+        // Returns the first bottom-level index after 'index' not being
+        // deleted.
+        private Index<T> successor(Index<T> index) {
+            do {
+                index = index.right;
+            } while (index != null && index.deleted);
+            
+            return index;
+        }
+    }
+    
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        LockSet locks = new LockSet();
+        Index<T>[] preds = newIndexArray();
+        
+        while (true) {
+            int h = height;
+            int top = Math.min(randomLevel(), h);
+            
+            try {
+                // A tower higher than the list is preceded by the heads on
+                // the new levels.
+                for (int level = top; level >= h; --level) {
+                    locks.lock(heads[level], true);
+                    preds[level] = heads[level];
+                }
+                
+                Index<T> index = heads[h - 1];
+                boolean valid = true;
+                
+                for (int level = h - 1; level >= 0 && valid; --level) {
+                    if (top >= h && level == h - 1) {
+                        // Lock every link on the top level up to the new
+                        // element, so that its rank is stable.
+                        index = lockChain(element, level, locks);
+                    } else {
+                        index = lockPredecessor(index,
+                                                element,
+                                                level <= top,
+                                                locks);
+                    }
+                    
+                    valid = index != null && (level < h - 1 || height == h);
+                    preds[level] = index;
+                    
+                    if (valid && level > 0) {
+                        index = index.down;
+                    }
+                }
+                
+                if (!valid) {
+                    continue;
+                }
+                
+                Index<T> successor = preds[0].right;
+                
+                if (successor != null &&
+                        successor.key.compareTo(element) == 0) {
+                    return false;
+                }
+                
+                link(element, preds, top, h);
+                size.increment();
+                return true;
+            } finally {
+                locks.unlockAll();
+            }
+        }
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        T element = (T) o;
+        LockSet locks = new LockSet();
+        Index<T>[] preds = newIndexArray();
+        
+        while (true) {
+            int h = height;
+            
+            try {
+                Index<T> index = heads[h - 1];
+                Index<T> target = null;
+                Index<T> targetTop = null;
+                int top = -1;
+                boolean valid = true;
+                
+                for (int level = h - 1; level >= 0 && valid; --level) {
+                    if (target != null) {
+                        target = target.down;
+                    } else {
+                        Index<T> next = predecessor(index, element).right;
+                        
+                        if (next != null &&
+                                next.key.compareTo(element) == 0) {
+                            target = targetTop = next;
+                            top = level;
+                        }
+                    }
+                    
+                    index = lockPredecessor(index,
+                                            element,
+                                            target != null,
+                                            locks);
+                    valid = index != null && (level < h - 1 || height == h);
+                    
+                    if (valid && target != null) {
+                        valid = index.right == target;
+                        
+                        if (valid) {
+                            locks.lock(target, true);
+                            valid = !target.deleted;
+                        }
+                    } else if (valid) {
+                        // The element must not have reached this level after
+                        // we probed it.
+                        Index<T> next = index.right;
+                        valid = next == null ||
+                                next.key.compareTo(element) != 0;
+                    }
+                    
+                    preds[level] = index;
+                    
+                    if (valid && level > 0) {
+                        index = index.down;
+                    }
+                }
+                
+                if (!valid) {
+                    continue;
+                }
+                
+                if (targetTop == null) {
+                    return false;
+                }
+                
+                unlink(targetTop, preds, top, h);
+                size.decrement();
+                return true;
+            } finally {
+                locks.unlockAll();
+            }
+        }
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        T element = (T) o;
+        Index<T> index = heads[height - 1];
+        
+        while (true) {
+            index = predecessor(index, element);
+            
+            if (index.down == null) {
+                break;
+            }
+            
+            index = index.down;
+        }
+        
+        index = index.right;
+        return index != null
+                && !index.deleted
+                && index.key.compareTo(element) == 0;
+    }
+    
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        Index<T> node = heads[height - 1];
+        int position = -1;
+        
+        while (node.down != null) {
+            Index<T> next;
+            int width;
+            
+            while ((next = node.right) != null
+                    && position + (width = node.width) <= index) {
+                position += width;
+                node = next;
+            }
+            
+            node = node.down;
+        }
+        
+        Index<T> next;
+        
+        while (position < index && (next = node.right) != null) {
+            position++;
+            node = next;
+        }
+        
+        if (position != index || node.key == null) {
+            // Concurrent removals shrank the list below 'index'.
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this skip list is " + size());
+        }
+        
+        return node.key;
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        int rank = rank(element);
+        return contains(element) ? rank : -1;
+    }
+    
+    @Override
+    public int rank(T element) {
+        Index<T> index = heads[height - 1];
+        int position = -1;
+        
+        while (true) {
+            Index<T> next;
+            
+            while ((next = index.right) != null
+                    && next.key.compareTo(element) < 0) {
+                position += index.down == null ? 1 : index.width;
+                index = next;
+            }
+            
+            if (index.down == null) {
+                return position + 1;
+            }
+            
+            index = index.down;
+        }
+    }
+    
+    @Override
+    public int size() {
+        return (int) size.sum();
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return heads[0].right == null;
+    }
+    
+    @Override
+    public void clear() {
+        Iterator<T> iterator = iterator();
+        
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+    
+    // Returns the last index on the level of 'index', starting from 'index',
+    // whose key is less than 'element'.
+    private Index<T> predecessor(Index<T> index, T element) {
+        Index<T> next;
+        
+        while ((next = index.right) != null
+                && next.key.compareTo(element) < 0) {
+            index = next;
+        }
+        
+        return index;
+    }
+    
+    // Locks the link leading to the position of 'element' on the level of
+    // 'index', starting the search from 'index' whose link one level above is
+    // locked. Returns the index owning the link, or null if the list changed
+    // under us.
+    private Index<T> lockPredecessor(Index<T> index,
+                                     T element,
+                                     boolean exclusive,
+                                     LockSet locks) {
+        Index<T> pred = predecessor(index, element);
+        locks.lock(pred, exclusive);
+        
+        if (pred.deleted) {
+            return null;
+        }
+        
+        Index<T> next = pred.right;
+        
+        if (next != null && next.key.compareTo(element) < 0) {
+            return null;
+        }
+        
+        return pred;
+    }
+    
+    // Exclusively locks all the links on 'level' from the head up to the
+    // position of 'element', and returns the owner of the last one.
+    private Index<T> lockChain(T element, int level, LockSet locks) {
+        Index<T> index = heads[level];
+        locks.lock(index, true);
+        Index<T> next;
+        
+        // The link of a locked index can not change, and neither can its
+        // target be removed, so no validation is needed.
+        while ((next = index.right) != null
+                && next.key.compareTo(element) < 0) {
+            index = next;
+            locks.lock(index, true);
+        }
+        
+        return index;
+    }
+    
+    // Links a tower of 'element' after 'preds' on the levels up to 'top', and
+    // accounts for it in the links spanning it on the levels above. All the
+    // links of 'preds' are locked.
+    private void link(T element, Index<T>[] preds, int top, int h) {
+        Index<T> below = null;
+        int distance = 1;
+        
+        for (int level = 0; level <= top; ++level) {
+            Index<T> pred = preds[level];
+            Index<T> index = new Index<>(element, below);
+            
+            if (level > 0) {
+                distance += distance(pred.down, preds[level - 1]);
+                index.width = pred.width - distance + 1;
+                pred.width = distance;
+            }
+            
+            index.right = pred.right;
+            pred.right = index;
+            below = index;
+        }
+        
+        for (int level = top + 1; level < h; ++level) {
+            WIDTH.incrementAndGet(preds[level]);
+        }
+        
+        if (top >= h) {
+            height = top + 1;
+        }
+    }
+    
+    // Unlinks the tower whose index on 'top' is 'index', and removes it from
+    // the widths of the links spanning it on the levels above.
+    private void unlink(Index<T> index, Index<T>[] preds, int top, int h) {
+        for (Index<T> i = index; i != null; i = i.down) {
+            i.deleted = true;
+        }
+        
+        for (int level = top; level >= 0; --level) {
+            Index<T> pred = preds[level];
+            
+            if (level > 0) {
+                WIDTH.addAndGet(pred, index.width - 1);
+            }
+            
+            pred.right = index.right;
+            index = index.down;
+        }
+        
+        for (int level = top + 1; level < h; ++level) {
+            WIDTH.decrementAndGet(preds[level]);
+        }
+    }
+    
+    // Returns the number of bottom-level links between 'from' and 'to' on
+    // the same level.
+    private int distance(Index<T> from, Index<T> to) {
+        int distance = 0;
+        
+        while (from != to) {
+            distance += from.down == null ? 1 : from.width;
+            from = from.right;
+        }
+        
+        return distance;
+    }
+    
+    // Returns an array of 'MAX_LEVEL' index references.
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <T> Index<T>[] newIndexArray() {
+        return new Index[MAX_LEVEL];
+    }
+    
+    // Returns a random tower top; the top is at least k with probability
+    // 2^(-k).
+    private static int randomLevel() {
+        int random = ThreadLocalRandom.current().nextInt();
+        return Integer.numberOfTrailingZeros(random | (1 << (MAX_LEVEL - 1)));
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        int size = size();
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this skip list is " + size);
+        }
+    }
+    
+    /**
+     * Checks that the levels are sorted and nested, and that all the link
+     * widths are exact. Must not run concurrently with updates.
+     * 
+     * @return <code>true</code> if the skip list is healthy.
+     */
+    public boolean isHealthy() {
+        int count = 0;
+        
+        for (Index<T> index = heads[0].right;
+                index != null;
+                index = index.right) {
+            Index<T> next = index.right;
+            
+            if (index.deleted ||
+                    (next != null && index.key.compareTo(next.key) >= 0)) {
+                return false;
+            }
+            
+            count++;
+        }
+        
+        if (count != size()) {
+            return false;
+        }
+        
+        for (int level = 1; level < height; ++level) {
+            for (Index<T> index = heads[level];
+                    index.right != null;
+                    index = index.right) {
+                Index<T> next = index.right;
+                
+                if (next.down.key != next.key ||
+                        distance(index.down, next.down) != index.width) {
+                    return false;
+                }
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * This class records the link locks held by an update.
+     */
+    private static final class LockSet {
+        
+        private StampedLock[] locks = new StampedLock[2 * MAX_LEVEL];
+        private boolean[] exclusive = new boolean[2 * MAX_LEVEL];
+        private int size;
+        
+        void lock(Index<?> index, boolean exclusive) {
+            StampedLock lock = index.lock;
+            
+            if (exclusive) {
+                lock.writeLock();
+            } else {
+                lock.readLock();
+            }
+            
+            if (size == locks.length) {
+                locks = Arrays.copyOf(locks, 2 * size);
+                this.exclusive = Arrays.copyOf(this.exclusive, 2 * size);
+            }
+            
+            locks[size] = lock;
+            this.exclusive[size++] = exclusive;
+        }
+        
+        void unlockAll() {
+            while (size > 0) {
+                --size;
+                
+                if (exclusive[size]) {
+                    locks[size].tryUnlockWrite();
+                } else {
+                    locks[size].tryUnlockRead();
+                }
+                
+                locks[size] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package net.coderodde.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class implements a thread-safe wrapper of an order statistic set that
+ * favours readers. The queries first run without any locking under an
+ * optimistic stamp of a {@link StampedLock}; only if a write intervened, the
+ * query is repeated under the read lock. The mutators take the write lock.
+ * Hence, as long as the writes are rare, the readers do not contend with each
+ * other at all.
+ * <p>
+ * The iterators traverse a snapshot of the set taken when the iterator was
+ * created, and never throw
+ * {@link java.util.ConcurrentModificationException}. Removing via an iterator
+ * removes the element from this set.
+ * <p>
+ * Since an optimistic query may observe the wrapped set halfway through a
+ * write, only the sets whose queries terminate on any such state run
+ * optimistically: {@link OrderStatisticTree} bounds its descents by the
+ * maximum height of an AVL tree. Anything they throw on a torn state, errors
+ * such as {@link StackOverflowError} included, is discarded together with the
+ * result. The queries on the other sets always take the read lock.
+ * <p>
+ * The wrapped set must not be accessed other than through this wrapper. An
+ * {@link OrderStatisticTree} with its finger enabled is not accepted, since
+ * its <code>get</code> and <code>indexOf</code> update the finger and hence
+ * cannot run concurrently.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public final class ConcurrentOrderStatisticSet<T> extends AbstractSet<T>
+implements OrderStatisticSet<T> {
+    
+    private final OrderStatisticSet<T> set;
+    private final StampedLock lock = new StampedLock();
+    
+    /**
+     * Whether the queries may run without locking.
+     */
+    private final boolean optimistic;
+    
+    /**
+     * Constructs a thread-safe wrapper of <code>set</code>.
+     * 
+     * @param set the set to wrap.
+     * @throws IllegalArgumentException if <code>set</code> is an
+     *                                  {@link OrderStatisticTree} with its
+     *                                  finger enabled.
+     */
+    public ConcurrentOrderStatisticSet(OrderStatisticSet<T> set) {
+        this.set = Objects.requireNonNull(set, "The input set is null.");
+        this.optimistic = set instanceof OptimisticallyReadable;
+        
+        if (set instanceof OrderStatisticTree) {
+            ((OrderStatisticTree<?>) set).share();
+        }
+    }
+    
+    @Override
+    public T get(int index) {
+        return read(() -> set.get(index));
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        return readInt(() -> set.indexOf(element));
+    }
+    
+    @Override
+    public int rank(T element) {
+        return readInt(() -> set.rank(element));
+    }
+    
+    @Override
+    public int countInRange(T lo,
+                            boolean loInclusive,
+                            T hi,
+                            boolean hiInclusive) {
+        return readInt(() -> set.countInRange(lo, loInclusive,
+                                              hi, hiInclusive));
+    }
+    
+    @Override
+    public int floorIndex(T element) {
+        return readInt(() -> set.floorIndex(element));
+    }
+    
+    @Override
+    public int ceilingIndex(T element) {
+        return readInt(() -> set.ceilingIndex(element));
+    }
+    
+    @Override
+    public int lowerIndex(T element) {
+        return readInt(() -> set.lowerIndex(element));
+    }
+    
+    @Override
+    public int higherIndex(T element) {
+        return readInt(() -> set.higherIndex(element));
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return read(() -> set.contains(o));
+    }
+    
+    @Override
+    public int size() {
+        return readInt(set::size);
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        long stamp = lock.readLock();
+        
+        try {
+            return set.containsAll(c);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    @Override
+    public Object[] toArray() {
+        long stamp = lock.readLock();
+        
+        try {
+            return set.toArray();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    @Override
+    public <E> E[] toArray(E[] a) {
+        long stamp = lock.readLock();
+        
+        try {
+            return set.toArray(a);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new SnapshotIterator(toArray());
+    }
+    
+    @Override
+    public boolean add(T element) {
+        return write(() -> set.add(element));
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        return write(() -> set.remove(o));
+    }
+    
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        return write(() -> set.addAll(c));
+    }
+    
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return write(() -> set.removeAll(c));
+    }
+    
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return write(() -> set.retainAll(c));
+    }
+    
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        
+        try {
+            set.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    // Runs 'reader' optimistically if the wrapped set allows it. If a write 
+    // intervenes, the wrapped set may have been observed in an inconsistent
+    // state, in which case the result or whatever was thrown, errors 
+    // included, is discarded and 'reader' is run again under the read lock.
+    private <R> R read(Supplier<R> reader) {
+        long stamp = optimistic ? lock.tryOptimisticRead() : 0L;
+        
+        if (stamp != 0L) {
+            try {
+                R result = reader.get();
+                
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (Throwable ex) {
+                if (lock.validate(stamp)) {
+                    throw ex;
+                }
+            }
+        }
+        
+        stamp = lock.readLock();
+        
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    // Same as 'read', but does not box the result.
+    private int readInt(IntSupplier reader) {
+        long stamp = optimistic ? lock.tryOptimisticRead() : 0L;
+        
+        if (stamp != 0L) {
+            try {
+                int result = reader.getAsInt();
+                
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (Throwable ex) {
+                if (lock.validate(stamp)) {
+                    throw ex;
+                }
+            }
+        }
+        
+        stamp = lock.readLock();
+        
+        try {
+            return reader.getAsInt();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    private <R> R write(Supplier<R> writer) {
+        long stamp = lock.writeLock();
+        
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    private final class SnapshotIterator implements Iterator<T> {
+        
+        private final Object[] snapshot;
+        private int cursor;
+        private boolean canRemove;
+        
+        SnapshotIterator(Object[] snapshot) {
+            this.snapshot = snapshot;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+        
+        @Override
+        public T next() {
+            if (cursor == snapshot.length) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            canRemove = true;
+            return (T) snapshot[cursor++];
+        }
+        
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException(
+                        "There is no element to remove.");
+            }
+            
+            canRemove = false;
+            ConcurrentOrderStatisticSet.this.remove(snapshot[cursor - 1]);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package net.coderodde.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * This class frees the native memory of direct buffers without waiting for
+ * the garbage collector. There is no public API for that, so the cleaner is
+ * reached reflectively: through <code>sun.misc.Unsafe.invokeCleaner</code> on
+ * Java 9 and later, and through the <code>cleaner()</code> of the buffer on
+ * Java 8. If neither is available, the memory is left to the garbage
+ * collector as usual.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class DirectBuffers {
+    
+    private static final MethodHandle FREE = findFree();
+    
+    private DirectBuffers() {}
+    
+    /**
+     * Frees the native memory of <code>buffer</code>, which may not be
+     * accessed anymore. Does nothing if <code>buffer</code> is not direct or
+     * if it is a slice or a duplicate of another buffer.
+     * 
+     * @param buffer the buffer to free.
+     */
+    static void free(ByteBuffer buffer) {
+        if (FREE == null || !buffer.isDirect()) {
+            return;
+        }
+        
+        try {
+            FREE.invokeExact(buffer);
+        } catch (Throwable ex) {
+            // The slices and duplicates have no cleaner of their own; their
+            // memory is freed with the buffer they view.
+        }
+    }
+    
+    // Returns a handle taking a ByteBuffer that frees it, or null if there is
+    // none.
+    private static MethodHandle findFree() {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType type = MethodType.methodType(void.class, ByteBuffer.class);
+        
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return lookup.findVirtual(unsafeClass, "invokeCleaner", type)
+                         .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // Not Java 9 or later.
+        }
+        
+        try {
+            Class<?> directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+            Method cleaner = directBuffer.getMethod("cleaner");
+            Method clean = cleaner.getReturnType().getMethod("clean");
+            return MethodHandles.filterReturnValue(lookup.unreflect(cleaner),
+                                                   lookup.unreflect(clean))
+                                .asType(type);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+}
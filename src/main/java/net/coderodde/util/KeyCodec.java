@@ -0,0 +1,110 @@
+package net.coderodde.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This interface defines the API for encoding set elements as fixed-width
+ * binary keys. The codecs for <code>Integer</code> and <code>Long</code> are
+ * provided as {@link #INTEGER} and {@link #LONG}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public interface KeyCodec<T extends Comparable<? super T>> {
+    
+    /**
+     * Returns the number of bytes each encoded key occupies.
+     * 
+     * @return the key width in bytes.
+     */
+    int width();
+    
+    /**
+     * Writes <code>key</code> to <code>buffer</code> starting at the absolute
+     * position <code>offset</code>.
+     * 
+     * @param buffer the target buffer.
+     * @param offset the absolute position of the first byte.
+     * @param key    the key to write.
+     */
+    void write(ByteBuffer buffer, int offset, T key);
+    
+    /**
+     * Reads the key starting at the absolute position <code>offset</code> of
+     * <code>buffer</code>.
+     * 
+     * @param buffer the source buffer.
+     * @param offset the absolute position of the first byte.
+     * @return the decoded key.
+     */
+    T read(ByteBuffer buffer, int offset);
+    
+    /**
+     * Compares <code>key</code> to the key encoded at the absolute position
+     * <code>offset</code> of <code>buffer</code>. The codecs of the built-in
+     * types override this in order not to allocate while comparing.
+     * 
+     * @param key    the query key.
+     * @param buffer the buffer holding the encoded key.
+     * @param offset the absolute position of the encoded key.
+     * @return a negative integer, zero or a positive integer if
+     *         <code>key</code> is less than, equal to or greater than the
+     *         encoded key.
+     */
+    default int compare(T key, ByteBuffer buffer, int offset) {
+        return key.compareTo(read(buffer, offset));
+    }
+    
+    /**
+     * The codec of <code>Integer</code> keys.
+     */
+    KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+        
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+        
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer key) {
+            buffer.putInt(offset, key);
+        }
+        
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+        
+        @Override
+        public int compare(Integer key, ByteBuffer buffer, int offset) {
+            return Integer.compare(key, buffer.getInt(offset));
+        }
+    };
+    
+    /**
+     * The codec of <code>Long</code> keys.
+     */
+    KeyCodec<Long> LONG = new KeyCodec<Long>() {
+        
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+        
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long key) {
+            buffer.putLong(offset, key);
+        }
+        
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+        
+        @Override
+        public int compare(Long key, ByteBuffer buffer, int offset) {
+            return Long.compare(key, buffer.getLong(offset));
+        }
+    };
+}
@@ -0,0 +1,60 @@
+package net.coderodde.util;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * This interface defines an associative operation with an identity element,
+ * such as a sum, a minimum or a maximum. The operation does not need to be
+ * commutative: {@link #combine(Object, Object)} always receives its arguments
+ * in the order of the elements they summarize.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <A> the aggregate type.
+ */
+public interface Monoid<A> {
+    
+    /**
+     * Returns the identity element, that is, the aggregate of no elements.
+     * 
+     * @return the identity element.
+     */
+    A identity();
+    
+    /**
+     * Combines two aggregates. Must be associative, and
+     * <code>identity()</code> must be neutral on both sides.
+     * 
+     * @param left  the aggregate of the preceding elements.
+     * @param right the aggregate of the following elements.
+     * @return the aggregate of both.
+     */
+    A combine(A left, A right);
+    
+    /**
+     * Returns the monoid with the identity <code>identity</code> and the
+     * operation <code>operator</code>.
+     * 
+     * @param <A>      the aggregate type.
+     * @param identity the identity element.
+     * @param operator the associative operation.
+     * @return the monoid.
+     */
+    static <A> Monoid<A> of(A identity, BinaryOperator<A> operator) {
+        Objects.requireNonNull(operator, "The input operator is null.");
+        
+        return new Monoid<A>() {
+            
+            @Override
+            public A identity() {
+                return identity;
+            }
+            
+            @Override
+            public A combine(A left, A right) {
+                return operator.apply(left, right);
+            }
+        };
+    }
+}
@@ -0,0 +1,794 @@
+package net.coderodde.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class implements an order statistic tree which is based on AVL-trees,
+ * just like {@link OrderStatisticTree}, but keeps its nodes outside of the
+ * Java heap. Each node is a fixed-size record in a direct
+ * <code>ByteBuffer</code>; the key is encoded into the record by a
+ * {@link KeyCodec}. The buffers are allocated in chunks of equal size as the
+ * tree grows, and the records of the removed nodes are recycled through a
+ * free list.
+ * <p>
+ * <code>add</code>, <code>contains</code>, <code>remove</code> and
+ * <code>indexOf</code> allocate nothing on the heap as long as the codec
+ * compares without decoding, as {@link KeyCodec#INTEGER} and
+ * {@link KeyCodec#LONG} do. <code>get</code> allocates only the decoded key it
+ * returns.
+ * <p>
+ * {@link #close()} frees all the buffers right away, after which the tree may
+ * not be used anymore.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public class OffHeapOrderStatisticTree<T extends Comparable<? super T>>
+extends AbstractSet<T> implements OrderStatisticSet<T>, AutoCloseable {
+    
+    /**
+     * The node index denoting a missing node.
+     */
+    private static final int NIL = -1;
+    
+    /**
+     * The default number of nodes in a chunk.
+     */
+    private static final int DEFAULT_CHUNK_CAPACITY = 1 << 16;
+    
+    // The byte offsets of the fields within a node record.
+    private static final int PARENT = 0;
+    private static final int LEFT   = 4;
+    private static final int RIGHT  = 8;
+    private static final int HEIGHT = 12;
+    private static final int COUNT  = 16;
+    private static final int KEY    = 20;
+    
+    private final KeyCodec<T> codec;
+    private final int recordSize;
+    private final int chunkShift;
+    private final int chunkMask;
+    
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private boolean closed;
+    
+    private int root = NIL;
+    private int size;
+    private int modCount;
+    
+    /**
+     * All the nodes starting from this one have never been allocated.
+     */
+    private int firstUnusedNode;
+    
+    /**
+     * The head of the list of released nodes, chained via the right child
+     * field.
+     */
+    private int freeNode = NIL;
+    
+    /**
+     * Constructs an empty off-heap tree with the default chunk capacity.
+     * 
+     * @param codec the codec of the keys.
+     */
+    public OffHeapOrderStatisticTree(KeyCodec<T> codec) {
+        this(codec, DEFAULT_CHUNK_CAPACITY);
+    }
+    
+    /**
+     * Constructs an empty off-heap tree whose buffers hold
+     * <code>chunkCapacity</code> nodes each.
+     * 
+     * @param codec         the codec of the keys.
+     * @param chunkCapacity the number of nodes per chunk; must be a power of
+     *                      two.
+     */
+    public OffHeapOrderStatisticTree(KeyCodec<T> codec, int chunkCapacity) {
+        this.codec = Objects.requireNonNull(codec, "The codec is null.");
+        
+        if (chunkCapacity <= 0 || Integer.bitCount(chunkCapacity) != 1) {
+            throw new IllegalArgumentException(
+                    "The chunk capacity is not a positive power of two: " +
+                    chunkCapacity);
+        }
+        
+        this.recordSize = KEY + codec.width();
+        
+        if ((long) recordSize * chunkCapacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "The chunk capacity is too large: " + chunkCapacity);
+        }
+        
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkCapacity);
+        this.chunkMask = chunkCapacity - 1;
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        checkOpen();
+        return new TreeIterator();
+    }
+    
+    private final class TreeIterator implements Iterator<T> {
+        
+        private int previousNode = NIL;
+        private int nextNode;
+        private int expectedModCount = modCount;
+        
+        TreeIterator() {
+            if (root == NIL) {
+                nextNode = NIL;
+            } else {
+                nextNode = minimumNode(root);
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextNode != NIL;
+        }
+        
+        @Override
+        public T next() {
+            if (nextNode == NIL) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            T datum = key(nextNode);
+            previousNode = nextNode;
+            nextNode = successorOf(nextNode);
+            return datum;
+        }
+        
+        @Override
+        public void remove() {
+            if (previousNode == NIL) {
+                throw new IllegalStateException(
+                        nextNode == NIL ?
+                            "Not a single call to next(); nothing to remove." :
+                            "Removing the same element twice."
+                );
+            }
+            
+            checkConcurrentModification();
+            
+            int x = deleteNode(previousNode);
+            fixAfterModification(x, false);
+            releaseNode(x);
+            
+            if (x == nextNode) {
+                nextNode = previousNode;
+            }
+            
+            expectedModCount = ++modCount;
+            size--;
+            previousNode = NIL;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The set was modified while iterating.");
+            }
+        }
+    }
+    
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        checkOpen();
+        
+        if (root == NIL) {
+            root = allocateNode(element);
+            size = 1;
+            modCount++;
+            return true;
+        }
+        
+        int parent = NIL;
+        int node = root;
+        int cmp = 0;
+        
+        while (node != NIL) {
+            cmp = compare(element, node);
+            
+            if (cmp == 0) {
+                // The element is already in this tree.
+                return false;
+            }
+            
+            parent = node;
+            
+            if (cmp < 0) {
+                node = left(node);
+            } else {
+                node = right(node);
+            }
+        }
+        
+        int newnode = allocateNode(element);
+        
+        if (cmp < 0) {
+            setLeft(parent, newnode);
+        } else {
+            setRight(parent, newnode);
+        }
+        
+        setParent(newnode, parent);
+        size++;
+        modCount++;
+        int hi = parent;
+        int lo = newnode;
+        
+        while (hi != NIL) {
+            if (left(hi) == lo) {
+                setCount(hi, count(hi) + 1);
+            }
+            
+            lo = hi;
+            hi = parent(hi);
+        }
+        
+        fixAfterModification(newnode, true);
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        checkOpen();
+        return findNode(o) != NIL;
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        checkOpen();
+        int x = findNode(o);
+        
+        if (x == NIL) {
+            return false;
+        }
+        
+        x = deleteNode(x);
+        fixAfterModification(x, false);
+        releaseNode(x);
+        size--;
+        modCount++;
+        return true;
+    }
+    
+    @Override
+    public T get(int index) {
+        checkOpen();
+        checkIndex(index);
+        int node = root;
+        
+        while (true) {
+            int count = count(node);
+            
+            if (index > count) {
+                index -= count + 1;
+                node = right(node);
+            } else if (index < count) {
+                node = left(node);
+            } else {
+                return key(node);
+            }
+        }
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        checkOpen();
+        int node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != NIL) {
+            if ((cmp = compare(element, node)) < 0) {
+                node = left(node);
+            } else if (cmp > 0) {
+                rank += count(node) + 1;
+                node = right(node);
+            } else {
+                return rank + count(node);
+            }
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public int rank(T element) {
+        checkOpen();
+        int node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != NIL) {
+            if ((cmp = compare(element, node)) < 0) {
+                node = left(node);
+            } else if (cmp > 0) {
+                rank += count(node) + 1;
+                node = right(node);
+            } else {
+                return rank + count(node);
+            }
+        }
+        
+        return rank;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        root = NIL;
+        size = 0;
+        firstUnusedNode = 0;
+        freeNode = NIL;
+    }
+    
+    /**
+     * Releases all the buffers of this tree. Any subsequent operation other
+     * than <code>size</code>, <code>isEmpty</code>, <code>clear</code> and
+     * <code>close</code> throws an <code>IllegalStateException</code>. The
+     * native memory is freed immediately where the JDK allows it, and 
+     * otherwise once the garbage collector reclaims the buffer objects.
+     */
+    @Override
+    public void close() {
+        ByteBuffer[] released = chunks;
+        clear();
+        chunks = new ByteBuffer[0];
+        closed = true;
+        
+        for (ByteBuffer chunk : released) {
+            DirectBuffers.free(chunk);
+        }
+    }
+    
+    /**
+     * Returns the number of bytes of native memory this tree has allocated.
+     * 
+     * @return the number of allocated bytes.
+     */
+    public long allocatedBytes() {
+        return (long) chunks.length * recordSize * (chunkMask + 1);
+    }
+    
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The tree is closed.");
+        }
+    }
+    
+    private ByteBuffer chunk(int node) {
+        return chunks[node >>> chunkShift];
+    }
+    
+    private int offset(int node) {
+        return (node & chunkMask) * recordSize;
+    }
+    
+    private int parent(int node) {
+        return chunk(node).getInt(offset(node) + PARENT);
+    }
+    
+    private int left(int node) {
+        return chunk(node).getInt(offset(node) + LEFT);
+    }
+    
+    private int right(int node) {
+        return chunk(node).getInt(offset(node) + RIGHT);
+    }
+    
+    private int height(int node) {
+        return node == NIL ? -1 : chunk(node).getInt(offset(node) + HEIGHT);
+    }
+    
+    private int count(int node) {
+        return chunk(node).getInt(offset(node) + COUNT);
+    }
+    
+    private void setParent(int node, int parent) {
+        chunk(node).putInt(offset(node) + PARENT, parent);
+    }
+    
+    private void setLeft(int node, int left) {
+        chunk(node).putInt(offset(node) + LEFT, left);
+    }
+    
+    private void setRight(int node, int right) {
+        chunk(node).putInt(offset(node) + RIGHT, right);
+    }
+    
+    private void setHeight(int node, int height) {
+        chunk(node).putInt(offset(node) + HEIGHT, height);
+    }
+    
+    private void setCount(int node, int count) {
+        chunk(node).putInt(offset(node) + COUNT, count);
+    }
+    
+    private T key(int node) {
+        return codec.read(chunk(node), offset(node) + KEY);
+    }
+    
+    private int compare(T element, int node) {
+        return codec.compare(element, chunk(node), offset(node) + KEY);
+    }
+    
+    private void copyKey(int sourceNode, int targetNode) {
+        ByteBuffer source = chunk(sourceNode);
+        ByteBuffer target = chunk(targetNode);
+        int sourceOffset = offset(sourceNode) + KEY;
+        int targetOffset = offset(targetNode) + KEY;
+        
+        for (int i = 0; i < recordSize - KEY; ++i) {
+            target.put(targetOffset + i, source.get(sourceOffset + i));
+        }
+    }
+    
+    private int findNode(Object o) {
+        T element = (T) o;
+        int x = root;
+        int cmp;
+        
+        while (x != NIL && (cmp = compare(element, x)) != 0) {
+            if (cmp < 0) {
+                x = left(x);
+            } else {
+                x = right(x);
+            }
+        }
+        
+        return x;
+    }
+    
+    private int allocateNode(T key) {
+        int node;
+        
+        if (freeNode != NIL) {
+            node = freeNode;
+            freeNode = right(node);
+        } else {
+            if (firstUnusedNode == chunks.length << chunkShift) {
+                addChunk();
+            }
+            
+            node = firstUnusedNode++;
+        }
+        
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        chunk.putInt(offset + PARENT, NIL);
+        chunk.putInt(offset + LEFT, NIL);
+        chunk.putInt(offset + RIGHT, NIL);
+        chunk.putInt(offset + HEIGHT, 0);
+        chunk.putInt(offset + COUNT, 0);
+        codec.write(chunk, offset + KEY, key);
+        return node;
+    }
+    
+    private void releaseNode(int node) {
+        setRight(node, freeNode);
+        freeNode = node;
+    }
+    
+    private void addChunk() {
+        if (chunks.length == (Integer.MAX_VALUE >>> chunkShift)) {
+            throw new IllegalStateException("The tree is full.");
+        }
+        
+        ByteBuffer chunk = ByteBuffer.allocateDirect(recordSize *
+                                                     (chunkMask + 1));
+        chunk.order(ByteOrder.nativeOrder());
+        chunks = Arrays.copyOf(chunks, chunks.length + 1);
+        chunks[chunks.length - 1] = chunk;
+    }
+    
+    private int successorOf(int node) {
+        if (right(node) != NIL) {
+            return minimumNode(right(node));
+        }
+        
+        int parent = parent(node);
+        
+        while (parent != NIL && right(parent) == node) {
+            node = parent;
+            parent = parent(parent);
+        }
+        
+        return parent;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this tree is " + size);
+        }
+    }
+    
+    // Unlinks 'node' or, if it has two children, its successor after moving
+    // the successor's key into 'node'. Returns the unlinked node, which the
+    // caller releases after rebalancing.
+    private int deleteNode(int node) {
+        if (left(node) != NIL && right(node) != NIL) {
+            // 'node' has both children.
+            int successor = minimumNode(right(node));
+            copyKey(successor, node);
+            node = successor;
+        }
+        
+        // 'node' has at most one child.
+        int child = left(node) != NIL ? left(node) : right(node);
+        int parent = parent(node);
+        
+        if (child != NIL) {
+            setParent(child, parent);
+        }
+        
+        if (parent == NIL) {
+            root = child;
+            return node;
+        }
+        
+        if (left(parent) == node) {
+            setLeft(parent, child);
+            setCount(parent, count(parent) - 1);
+        } else {
+            setRight(parent, child);
+        }
+        
+        int lo = parent;
+        int hi = parent(parent);
+        
+        while (hi != NIL) {
+            if (left(hi) == lo) {
+                setCount(hi, count(hi) - 1);
+            }
+            
+            lo = hi;
+            hi = parent(hi);
+        }
+        
+        return node;
+    }
+    
+    private int minimumNode(int node) {
+        int left;
+        
+        while ((left = left(node)) != NIL) {
+            node = left;
+        }
+        
+        return node;
+    }
+    
+    private void updateHeight(int node) {
+        setHeight(node, Math.max(height(left(node)),
+                                 height(right(node))) + 1);
+    }
+    
+    private int leftRotate(int node1) {
+        int node2 = right(node1);
+        setParent(node2, parent(node1));
+        setParent(node1, node2);
+        setRight(node1, left(node2));
+        setLeft(node2, node1);
+        
+        if (right(node1) != NIL) {
+            setParent(right(node1), node1);
+        }
+        
+        updateHeight(node1);
+        updateHeight(node2);
+        setCount(node2, count(node2) + count(node1) + 1);
+        return node2;
+    }
+    
+    private int rightRotate(int node1) {
+        int node2 = left(node1);
+        setParent(node2, parent(node1));
+        setParent(node1, node2);
+        setLeft(node1, right(node2));
+        setRight(node2, node1);
+        
+        if (left(node1) != NIL) {
+            setParent(left(node1), node1);
+        }
+        
+        updateHeight(node1);
+        updateHeight(node2);
+        setCount(node1, count(node1) - count(node2) - 1);
+        return node2;
+    }
+    
+    private int rightLeftRotate(int node1) {
+        setRight(node1, rightRotate(right(node1)));
+        return leftRotate(node1);
+    }
+    
+    private int leftRightRotate(int node1) {
+        setLeft(node1, leftRotate(left(node1)));
+        return rightRotate(node1);
+    }
+    
+    // Fixing an insertion: use insertionMode = true.
+    // Fixing a deletion: use insertionMode = false.
+    private void fixAfterModification(int node, boolean insertionMode) {
+        int parent = parent(node);
+        int grandParent;
+        int subTree;
+        
+        while (parent != NIL) {
+            int leftHeight = height(left(parent));
+            int rightHeight = height(right(parent));
+            
+            if (leftHeight == rightHeight + 2) {
+                int left = left(parent);
+                grandParent = parent(parent);
+                
+                if (height(left(left)) >= height(right(left))) {
+                    subTree = rightRotate(parent);
+                } else {
+                    subTree = leftRightRotate(parent);
+                }
+            } else if (rightHeight == leftHeight + 2) {
+                int right = right(parent);
+                grandParent = parent(parent);
+                
+                if (height(right(right)) >= height(left(right))) {
+                    subTree = leftRotate(parent);
+                } else {
+                    subTree = rightLeftRotate(parent);
+                }
+            } else {
+                updateHeight(parent);
+                parent = parent(parent);
+                continue;
+            }
+            
+            if (grandParent == NIL) {
+                root = subTree;
+            } else if (left(grandParent) == parent) {
+                setLeft(grandParent, subTree);
+            } else {
+                setRight(grandParent, subTree);
+            }
+            
+            if (grandParent != NIL) {
+                updateHeight(grandParent);
+            }
+            
+            if (insertionMode) {
+                // Whenever fixing after insertion, at most one rotation is
+                // required in order to maintain the balance.
+                return;
+            }
+            
+            // 'parent' was rotated below 'subTree'; continue above it.
+            parent = grandParent;
+        }
+    }
+    
+    public boolean isHealthy() {
+        if (root == NIL) {
+            return true;
+        }
+        
+        return !containsCycles()
+                && heightsAreCorrect()
+                && isBalanced(root)
+                && isWellIndexed();
+    }
+    
+    private boolean containsCycles() {
+        return containsCycles(root, new boolean[firstUnusedNode]);
+    }
+    
+    private boolean containsCycles(int current, boolean[] visitedNodes) {
+        if (current == NIL) {
+            return false;
+        }
+        
+        if (visitedNodes[current]) {
+            return true;
+        }
+        
+        visitedNodes[current] = true;
+        
+        return containsCycles(left(current), visitedNodes)
+                || containsCycles(right(current), visitedNodes);
+    }
+    
+    private boolean heightsAreCorrect() {
+        return getHeight(root) == height(root);
+    }
+    
+    private int getHeight(int node) {
+        if (node == NIL) {
+            return -1;
+        }
+        
+        int leftTreeHeight = getHeight(left(node));
+        
+        if (leftTreeHeight == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        
+        int rightTreeHeight = getHeight(right(node));
+        
+        if (rightTreeHeight == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        
+        if (height(node) == Math.max(leftTreeHeight, rightTreeHeight) + 1) {
+            return height(node);
+        }
+        
+        return Integer.MIN_VALUE;
+    }
+    
+    private boolean isBalanced(int node) {
+        if (node == NIL) {
+            return true;
+        }
+        
+        if (!isBalanced(left(node)) || !isBalanced(right(node))) {
+            return false;
+        }
+        
+        return Math.abs(height(left(node)) - height(right(node))) < 2;
+    }
+    
+    private boolean isWellIndexed() {
+        return size == countNodes(root);
+    }
+    
+    private int countNodes(int node) {
+        if (node == NIL) {
+            return 0;
+        }
+        
+        int leftTreeSize = countNodes(left(node));
+        
+        if (leftTreeSize == Integer.MIN_VALUE ||
+                count(node) != leftTreeSize) {
+            return Integer.MIN_VALUE;
+        }
+        
+        int rightTreeSize = countNodes(right(node));
+        
+        if (rightTreeSize == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        
+        return leftTreeSize + 1 + rightTreeSize;
+    }
+}
@@ -0,0 +1,16 @@
+package net.coderodde.util;
+
+/**
+ * This interface marks the order statistic sets that
+ * {@link ConcurrentOrderStatisticSet} may query without locking. Such a query
+ * may observe the set halfway through a write, so the queries of an
+ * implementing set must not modify it and must terminate on any state they
+ * may observe: each loop is bounded, so that a query reading torn links
+ * returns a wrong result or throws instead of looping forever. The wrapper
+ * discards both once it finds the write.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+interface OptimisticallyReadable {
+}
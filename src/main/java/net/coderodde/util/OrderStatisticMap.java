@@ -0,0 +1,1481 @@
+package net.coderodde.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * This class implements a sorted map which is based on AVL-trees. Each node
+ * holds a key together with its value, and the <code>count</code> of a node is
+ * the size of its left subtree, as in {@link OrderStatisticTree}. Hence, in
+ * addition to the {@link NavigableMap} operations, {@link #entryAt(int)},
+ * {@link #indexOfKey(Comparable)} and {@link #rank(Comparable)} run in
+ * logarithmic time, and a ranked key comes with its value from a single
+ * descent.
+ * <p>
+ * The range views returned by <code>subMap</code>, <code>headMap</code>,
+ * <code>tailMap</code> and <code>descendingMap</code> are backed by this map,
+ * and their <code>size</code> runs in logarithmic time.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class OrderStatisticMap<K extends Comparable<? super K>, V>
+extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        K key;
+        V value;
+        
+        Node<K, V> parent;
+        Node<K, V> left;
+        Node<K, V> right;
+        
+        int height;
+        int count;
+        
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+        
+        @Override
+        public K getKey() {
+            return key;
+        }
+        
+        @Override
+        public V getValue() {
+            return value;
+        }
+        
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return key.equals(entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+        
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+        
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+    
+    private Node<K, V> root;
+    private int size;
+    private int modCount;
+    
+    /**
+     * Constructs an empty order statistic map.
+     */
+    public OrderStatisticMap() {
+        
+    }
+    
+    /**
+     * Constructs an order statistic map containing all the mappings of
+     * <code>m</code>.
+     * 
+     * @param m the map whose mappings to copy.
+     */
+    public OrderStatisticMap(Map<? extends K, ? extends V> m) {
+        putAll(m);
+    }
+    
+    /**
+     * Returns the mapping whose key is the <code>index</code>th smallest key
+     * in this map.
+     * 
+     * @param index the index of the mapping.
+     * @return an immutable snapshot of the <code>index</code>th mapping.
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of range.
+     */
+    public Map.Entry<K, V> entryAt(int index) {
+        checkIndex(index);
+        return exportEntry(nodeAt(index));
+    }
+    
+    /**
+     * Returns the index of <code>key</code> among the sorted keys.
+     * 
+     * @param key the query key.
+     * @return the index of the query key or -1 if there is no such key in this
+     *         map.
+     */
+    public int indexOfKey(K key) {
+        Node<K, V> node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = key.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += node.count + 1;
+                node = node.right;
+            } else {
+                return rank + node.count;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Returns the number of keys in this map that are strictly less than
+     * <code>key</code>. The query key does not need to be in this map.
+     * 
+     * @param key the query key.
+     * @return the number of keys less than the query key.
+     */
+    public int rank(K key) {
+        return rank(key, false);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return getNode((K) key) != null;
+    }
+    
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = getNode((K) key);
+        return node == null ? null : node.value;
+    }
+    
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "The input key is null.");
+        
+        if (root == null) {
+            root = new Node<>(key, value);
+            size = 1;
+            modCount++;
+            return null;
+        }
+        
+        Node<K, V> parent = null;
+        Node<K, V> node = root;
+        int cmp = 0;
+        
+        while (node != null) {
+            cmp = key.compareTo(node.key);
+            
+            if (cmp == 0) {
+                return node.setValue(value);
+            }
+            
+            parent = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        
+        Node<K, V> newnode = new Node<>(key, value);
+        
+        if (cmp < 0) {
+            parent.left = newnode;
+        } else {
+            parent.right = newnode;
+        }
+        
+        newnode.parent = parent;
+        size++;
+        modCount++;
+        updateCounts(newnode, 1);
+        fixAfterModification(newnode, true);
+        return null;
+    }
+    
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = getNode((K) key);
+        
+        if (node == null) {
+            return null;
+        }
+        
+        V value = node.value;
+        removeNode(node);
+        return value;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        root = null;
+        size = 0;
+    }
+    
+    @Override
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+    
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return exportEntry(firstNode());
+    }
+    
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return exportEntry(lastNode());
+    }
+    
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return pollNode(firstNode());
+    }
+    
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return pollNode(lastNode());
+    }
+    
+    @Override
+    public K firstKey() {
+        return keyOrThrow(firstNode());
+    }
+    
+    @Override
+    public K lastKey() {
+        return keyOrThrow(lastNode());
+    }
+    
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return exportEntry(floorNode(key, false));
+    }
+    
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(floorNode(key, false));
+    }
+    
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return exportEntry(floorNode(key, true));
+    }
+    
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(floorNode(key, true));
+    }
+    
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return exportEntry(ceilingNode(key, true));
+    }
+    
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingNode(key, true));
+    }
+    
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return exportEntry(ceilingNode(key, false));
+    }
+    
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(ceilingNode(key, false));
+    }
+    
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new EntrySet(null);
+    }
+    
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+    
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+    
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+    
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new SubMap(true, null, false, true, null, false, true);
+    }
+    
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey,
+                                     boolean fromInclusive,
+                                     K toKey,
+                                     boolean toInclusive) {
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException(
+                    "fromKey > toKey: " + fromKey + ", " + toKey);
+        }
+        
+        return new SubMap(false, fromKey, fromInclusive,
+                          false, toKey, toInclusive,
+                          false);
+    }
+    
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        Objects.requireNonNull(toKey, "The input key is null.");
+        return new SubMap(true, null, false, false, toKey, inclusive, false);
+    }
+    
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        Objects.requireNonNull(fromKey, "The input key is null.");
+        return new SubMap(false, fromKey, inclusive, true, null, false, false);
+    }
+    
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+    
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+    
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+    
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        
+        private Node<K, V> previousNode;
+        private Node<K, V> nextNode;
+        private int expectedModCount = modCount;
+        
+        /**
+         * Whether to iterate in descending order.
+         */
+        private final boolean descending;
+        
+        /**
+         * The view whose range limits the iteration, or <code>null</code> if
+         * the iteration covers the entire map.
+         */
+        private final SubMap view;
+        
+        EntryIterator(Node<K, V> firstNode, boolean descending, SubMap view) {
+            this.nextNode = firstNode;
+            this.descending = descending;
+            this.view = view;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+        
+        @Override
+        public Map.Entry<K, V> next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            previousNode = nextNode;
+            nextNode = descending ?
+                       predecessorOf(nextNode) :
+                       successorOf(nextNode);
+            
+            if (nextNode != null && view != null
+                    && (descending ? view.tooLow(nextNode.key) :
+                                     view.tooHigh(nextNode.key))) {
+                nextNode = null;
+            }
+            
+            return previousNode;
+        }
+        
+        @Override
+        public void remove() {
+            if (previousNode == null) {
+                throw new IllegalStateException(
+                        "There is no entry to remove.");
+            }
+            
+            checkConcurrentModification();
+            Node<K, V> x = deleteNode(previousNode);
+            fixAfterModification(x, false);
+            
+            if (x == nextNode) {
+                // The contents of 'nextNode' were moved to 'previousNode'.
+                nextNode = previousNode;
+            }
+            
+            expectedModCount = ++modCount;
+            size--;
+            previousNode = null;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The map was modified while iterating.");
+            }
+        }
+    }
+    
+    /**
+     * This class implements the entry set of the map or of one of its range
+     * views.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        
+        /**
+         * The view this set belongs to, or <code>null</code> for the entire
+         * map.
+         */
+        private final SubMap view;
+        
+        EntrySet(SubMap view) {
+            this.view = view;
+        }
+        
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            if (view == null) {
+                return new EntryIterator(firstNode(), false, null);
+            }
+            
+            return new EntryIterator(view.firstNode(), view.descending, view);
+        }
+        
+        @Override
+        public int size() {
+            return view == null ? size : view.size();
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            return getNode(o) != null;
+        }
+        
+        @Override
+        public boolean remove(Object o) {
+            Node<K, V> node = getNode(o);
+            
+            if (node == null) {
+                return false;
+            }
+            
+            removeNode(node);
+            return true;
+        }
+        
+        @Override
+        public void clear() {
+            if (view == null) {
+                OrderStatisticMap.this.clear();
+            } else {
+                view.clear();
+            }
+        }
+        
+        // Returns the node matching the entry 'o' within the range of this
+        // set, or null if there is none.
+        private Node<K, V> getNode(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return null;
+            }
+            
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            K key = (K) entry.getKey();
+            
+            if (key == null || (view != null && !view.inRange(key))) {
+                return null;
+            }
+            
+            Node<K, V> node = OrderStatisticMap.this.getNode(key);
+            return node != null && Objects.equals(node.value,
+                                                  entry.getValue()) ?
+                   node : null;
+        }
+    }
+    
+    /**
+     * This class implements the navigable key set of the map or of one of its
+     * range views by delegating to the backing map.
+     */
+    private static final class KeySet<K> extends AbstractSet<K>
+    implements NavigableSet<K> {
+        
+        private final NavigableMap<K, ?> m;
+        
+        KeySet(NavigableMap<K, ?> m) {
+            this.m = m;
+        }
+        
+        @Override
+        public Iterator<K> iterator() {
+            return new KeyIterator<>(m.entrySet().iterator());
+        }
+        
+        @Override
+        public Iterator<K> descendingIterator() {
+            return new KeyIterator<>(m.descendingMap().entrySet().iterator());
+        }
+        
+        @Override
+        public int size() {
+            return m.size();
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            return m.containsKey(o);
+        }
+        
+        @Override
+        public boolean remove(Object o) {
+            int oldSize = m.size();
+            m.remove(o);
+            return m.size() != oldSize;
+        }
+        
+        @Override
+        public void clear() {
+            m.clear();
+        }
+        
+        @Override
+        public Comparator<? super K> comparator() {
+            return m.comparator();
+        }
+        
+        @Override
+        public K first() {
+            return m.firstKey();
+        }
+        
+        @Override
+        public K last() {
+            return m.lastKey();
+        }
+        
+        @Override
+        public K lower(K key) {
+            return m.lowerKey(key);
+        }
+        
+        @Override
+        public K floor(K key) {
+            return m.floorKey(key);
+        }
+        
+        @Override
+        public K ceiling(K key) {
+            return m.ceilingKey(key);
+        }
+        
+        @Override
+        public K higher(K key) {
+            return m.higherKey(key);
+        }
+        
+        @Override
+        public K pollFirst() {
+            Map.Entry<K, ?> entry = m.pollFirstEntry();
+            return entry == null ? null : entry.getKey();
+        }
+        
+        @Override
+        public K pollLast() {
+            Map.Entry<K, ?> entry = m.pollLastEntry();
+            return entry == null ? null : entry.getKey();
+        }
+        
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return new KeySet<>(m.descendingMap());
+        }
+        
+        @Override
+        public NavigableSet<K> subSet(K fromElement,
+                                      boolean fromInclusive,
+                                      K toElement,
+                                      boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive,
+                                         toElement, toInclusive));
+        }
+        
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive));
+        }
+        
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive));
+        }
+        
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+        
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+        
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+    
+    private static final class KeyIterator<K> implements Iterator<K> {
+        
+        private final Iterator<? extends Map.Entry<K, ?>> iterator;
+        
+        KeyIterator(Iterator<? extends Map.Entry<K, ?>> iterator) {
+            this.iterator = iterator;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+        
+        @Override
+        public K next() {
+            return iterator.next().getKey();
+        }
+        
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * This class implements the range views of the map. Each view is described
+     * by its (optional) lower and upper bound in the ascending order of the
+     * map, and by the direction of the view.
+     */
+    private final class SubMap extends AbstractMap<K, V>
+    implements NavigableMap<K, V> {
+        
+        private final boolean fromStart;
+        private final K lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final K hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+        
+        SubMap(boolean fromStart, K lo, boolean loInclusive,
+               boolean toEnd, K hi, boolean hiInclusive,
+               boolean descending) {
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+        
+        boolean tooLow(K key) {
+            if (fromStart) {
+                return false;
+            }
+            
+            int cmp = key.compareTo(lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+        
+        boolean tooHigh(K key) {
+            if (toEnd) {
+                return false;
+            }
+            
+            int cmp = key.compareTo(hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+        
+        boolean inRange(K key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+        
+        // Checks that 'key' may bound a nested view. An exclusive bound may
+        // coincide with an exclusive bound of this view.
+        private boolean inRange(K key, boolean inclusive) {
+            if (inclusive) {
+                return inRange(key);
+            }
+            
+            return (fromStart || key.compareTo(lo) >= 0)
+                    && (toEnd || key.compareTo(hi) <= 0);
+        }
+        
+        // The map index of the lowest key in this view.
+        private int fromIndex() {
+            return fromStart ? 0 : OrderStatisticMap.this.rank(lo,
+                                                               !loInclusive);
+        }
+        
+        // The map index one past the highest key in this view.
+        private int toIndex() {
+            return toEnd ? size : OrderStatisticMap.this.rank(hi, hiInclusive);
+        }
+        
+        private Node<K, V> absLowest() {
+            Node<K, V> node = fromStart ?
+                              OrderStatisticMap.this.firstNode() :
+                              ceilingNode(lo, loInclusive);
+            
+            return node == null || tooHigh(node.key) ? null : node;
+        }
+        
+        private Node<K, V> absHighest() {
+            Node<K, V> node = toEnd ?
+                              OrderStatisticMap.this.lastNode() :
+                              floorNode(hi, hiInclusive);
+            
+            return node == null || tooLow(node.key) ? null : node;
+        }
+        
+        private Node<K, V> absCeiling(K key, boolean inclusive) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            
+            Node<K, V> node = ceilingNode(key, inclusive);
+            return node == null || tooHigh(node.key) ? null : node;
+        }
+        
+        private Node<K, V> absFloor(K key, boolean inclusive) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            
+            Node<K, V> node = floorNode(key, inclusive);
+            return node == null || tooLow(node.key) ? null : node;
+        }
+        
+        Node<K, V> firstNode() {
+            return descending ? absHighest() : absLowest();
+        }
+        
+        private Node<K, V> lastNode() {
+            return descending ? absLowest() : absHighest();
+        }
+        
+        // Returns the node preceding 'key' in this view, either strictly or,
+        // if 'inclusive' is set, not.
+        private Node<K, V> lowerNode(K key, boolean inclusive) {
+            return descending ?
+                   absCeiling(key, inclusive) :
+                   absFloor(key, inclusive);
+        }
+        
+        // Returns the node following 'key' in this view, either strictly or,
+        // if 'inclusive' is set, not.
+        private Node<K, V> higherNode(K key, boolean inclusive) {
+            return descending ?
+                   absFloor(key, inclusive) :
+                   absCeiling(key, inclusive);
+        }
+        
+        @Override
+        public int size() {
+            return Math.max(0, toIndex() - fromIndex());
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return inRange((K) key) && OrderStatisticMap.this.containsKey(key);
+        }
+        
+        @Override
+        public V get(Object key) {
+            return inRange((K) key) ? OrderStatisticMap.this.get(key) : null;
+        }
+        
+        @Override
+        public V put(K key, V value) {
+            Objects.requireNonNull(key, "The input key is null.");
+            
+            if (!inRange(key)) {
+                throw new IllegalArgumentException(
+                        "The key is out of the range of this view: " + key);
+            }
+            
+            return OrderStatisticMap.this.put(key, value);
+        }
+        
+        @Override
+        public V remove(Object key) {
+            return inRange((K) key) ? OrderStatisticMap.this.remove(key) : null;
+        }
+        
+        @Override
+        public void clear() {
+            Iterator<Map.Entry<K, V>> iterator = entrySet().iterator();
+            
+            while (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new EntrySet(this);
+        }
+        
+        @Override
+        public Set<K> keySet() {
+            return navigableKeySet();
+        }
+        
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+        
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+        
+        @Override
+        public Comparator<? super K> comparator() {
+            return descending ? Collections.reverseOrder() : null;
+        }
+        
+        @Override
+        public Map.Entry<K, V> firstEntry() {
+            return exportEntry(firstNode());
+        }
+        
+        @Override
+        public Map.Entry<K, V> lastEntry() {
+            return exportEntry(lastNode());
+        }
+        
+        @Override
+        public Map.Entry<K, V> pollFirstEntry() {
+            return pollNode(firstNode());
+        }
+        
+        @Override
+        public Map.Entry<K, V> pollLastEntry() {
+            return pollNode(lastNode());
+        }
+        
+        @Override
+        public K firstKey() {
+            return keyOrThrow(firstNode());
+        }
+        
+        @Override
+        public K lastKey() {
+            return keyOrThrow(lastNode());
+        }
+        
+        @Override
+        public Map.Entry<K, V> lowerEntry(K key) {
+            return exportEntry(lowerNode(key, false));
+        }
+        
+        @Override
+        public K lowerKey(K key) {
+            return keyOrNull(lowerNode(key, false));
+        }
+        
+        @Override
+        public Map.Entry<K, V> floorEntry(K key) {
+            return exportEntry(lowerNode(key, true));
+        }
+        
+        @Override
+        public K floorKey(K key) {
+            return keyOrNull(lowerNode(key, true));
+        }
+        
+        @Override
+        public Map.Entry<K, V> ceilingEntry(K key) {
+            return exportEntry(higherNode(key, true));
+        }
+        
+        @Override
+        public K ceilingKey(K key) {
+            return keyOrNull(higherNode(key, true));
+        }
+        
+        @Override
+        public Map.Entry<K, V> higherEntry(K key) {
+            return exportEntry(higherNode(key, false));
+        }
+        
+        @Override
+        public K higherKey(K key) {
+            return keyOrNull(higherNode(key, false));
+        }
+        
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new SubMap(fromStart, lo, loInclusive,
+                              toEnd, hi, hiInclusive,
+                              !descending);
+        }
+        
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey,
+                                         boolean fromInclusive,
+                                         K toKey,
+                                         boolean toInclusive) {
+            if (descending) {
+                // Convert to the ascending order of the map.
+                K tmpKey = fromKey;
+                boolean tmpInclusive = fromInclusive;
+                fromKey = toKey;
+                fromInclusive = toInclusive;
+                toKey = tmpKey;
+                toInclusive = tmpInclusive;
+            }
+            
+            if (fromKey.compareTo(toKey) > 0) {
+                throw new IllegalArgumentException(
+                        "fromKey > toKey: " + fromKey + ", " + toKey);
+            }
+            
+            checkBound(fromKey, fromInclusive);
+            checkBound(toKey, toInclusive);
+            return new SubMap(false, fromKey, fromInclusive,
+                              false, toKey, toInclusive,
+                              descending);
+        }
+        
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            checkBound(toKey, inclusive);
+            
+            if (descending) {
+                return new SubMap(false, toKey, inclusive,
+                                  toEnd, hi, hiInclusive,
+                                  true);
+            }
+            
+            return new SubMap(fromStart, lo, loInclusive,
+                              false, toKey, inclusive,
+                              false);
+        }
+        
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            checkBound(fromKey, inclusive);
+            
+            if (descending) {
+                return new SubMap(fromStart, lo, loInclusive,
+                                  false, fromKey, inclusive,
+                                  true);
+            }
+            
+            return new SubMap(false, fromKey, inclusive,
+                              toEnd, hi, hiInclusive,
+                              false);
+        }
+        
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+        
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+        
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+        
+        private void checkBound(K key, boolean inclusive) {
+            Objects.requireNonNull(key, "The input key is null.");
+            
+            if (!inRange(key, inclusive)) {
+                throw new IllegalArgumentException(
+                        "The bound is out of the range of this view: " + key);
+            }
+        }
+    }
+    
+    private static <K, V> Map.Entry<K, V> exportEntry(Node<K, V> node) {
+        return node == null ? null : new SimpleImmutableEntry<>(node);
+    }
+    
+    private static <K> K keyOrNull(Node<K, ?> node) {
+        return node == null ? null : node.key;
+    }
+    
+    private static <K> K keyOrThrow(Node<K, ?> node) {
+        if (node == null) {
+            throw new NoSuchElementException("The map is empty.");
+        }
+        
+        return node.key;
+    }
+    
+    private Map.Entry<K, V> pollNode(Node<K, V> node) {
+        if (node == null) {
+            return null;
+        }
+        
+        Map.Entry<K, V> entry = exportEntry(node);
+        removeNode(node);
+        return entry;
+    }
+    
+    private void removeNode(Node<K, V> node) {
+        fixAfterModification(deleteNode(node), false);
+        size--;
+        modCount++;
+    }
+    
+    private Node<K, V> getNode(K key) {
+        Node<K, V> x = root;
+        int cmp;
+        
+        while (x != null && (cmp = key.compareTo(x.key)) != 0) {
+            if (cmp < 0) {
+                x = x.left;
+            } else {
+                x = x.right;
+            }
+        }
+        
+        return x;
+    }
+    
+    // Returns the node with a valid index 'index'.
+    private Node<K, V> nodeAt(int index) {
+        Node<K, V> node = root;
+        
+        while (true) {
+            if (index > node.count) {
+                index -= node.count + 1;
+                node = node.right;
+            } else if (index < node.count) {
+                node = node.left;
+            } else {
+                return node;
+            }
+        }
+    }
+    
+    // Returns the number of keys less than 'key' or, if 'inclusive' is set,
+    // less than or equal to it.
+    private int rank(K key, boolean inclusive) {
+        Node<K, V> node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = key.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += node.count + 1;
+                node = node.right;
+            } else {
+                return rank + node.count + (inclusive ? 1 : 0);
+            }
+        }
+        
+        return rank;
+    }
+    
+    private Node<K, V> firstNode() {
+        return root == null ? null : minimumNode(root);
+    }
+    
+    private Node<K, V> lastNode() {
+        return root == null ? null : maximumNode(root);
+    }
+    
+    // Returns the least node whose key is greater than or equal to 'key' or,
+    // if 'inclusive' is not set, strictly greater than 'key'.
+    private Node<K, V> ceilingNode(K key, boolean inclusive) {
+        Node<K, V> node = root;
+        Node<K, V> best = null;
+        int cmp;
+        
+        while (node != null) {
+            cmp = key.compareTo(node.key);
+            
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                best = node;
+                
+                if (cmp == 0) {
+                    return best;
+                }
+                
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        
+        return best;
+    }
+    
+    // Returns the greatest node whose key is less than or equal to 'key' or,
+    // if 'inclusive' is not set, strictly less than 'key'.
+    private Node<K, V> floorNode(K key, boolean inclusive) {
+        Node<K, V> node = root;
+        Node<K, V> best = null;
+        int cmp;
+        
+        while (node != null) {
+            cmp = key.compareTo(node.key);
+            
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                best = node;
+                
+                if (cmp == 0) {
+                    return best;
+                }
+                
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        
+        return best;
+    }
+    
+    private Node<K, V> successorOf(Node<K, V> node) {
+        if (node.right != null) {
+            return minimumNode(node.right);
+        }
+        
+        Node<K, V> parent = node.parent;
+        
+        while (parent != null && parent.right == node) {
+            node = parent;
+            parent = parent.parent;
+        }
+        
+        return parent;
+    }
+    
+    private Node<K, V> predecessorOf(Node<K, V> node) {
+        if (node.left != null) {
+            return maximumNode(node.left);
+        }
+        
+        Node<K, V> parent = node.parent;
+        
+        while (parent != null && parent.left == node) {
+            node = parent;
+            parent = parent.parent;
+        }
+        
+        return parent;
+    }
+    
+    private Node<K, V> minimumNode(Node<K, V> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        
+        return node;
+    }
+    
+    private Node<K, V> maximumNode(Node<K, V> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        
+        return node;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this map is " + size);
+        }
+    }
+    
+    // Adds 'delta' to the counts of all the proper ancestors of 'node' having
+    // it in their left subtrees.
+    private void updateCounts(Node<K, V> node, int delta) {
+        Node<K, V> lo = node;
+        Node<K, V> hi = node.parent;
+        
+        while (hi != null) {
+            if (hi.left == lo) {
+                hi.count += delta;
+            }
+            
+            lo = hi;
+            hi = hi.parent;
+        }
+    }
+    
+    // Unlinks the mapping of 'node' and returns the node that was physically
+    // removed from the tree.
+    private Node<K, V> deleteNode(Node<K, V> node) {
+        updateCounts(node, -1);
+        
+        if (node.left != null && node.right != null) {
+            // 'node' has both children: move the mapping of its successor
+            // into it and unlink the successor.
+            Node<K, V> successor = minimumNode(node.right);
+            Node<K, V> child = successor.right;
+            Node<K, V> parent = successor.parent;
+            
+            if (parent.left == successor) {
+                parent.left = child;
+            } else {
+                parent.right = child;
+            }
+            
+            if (child != null) {
+                child.parent = parent;
+            }
+            
+            Node<K, V> lo = child;
+            Node<K, V> hi = parent;
+            
+            while (hi != node) {
+                if (hi.left == lo) {
+                    hi.count--;
+                }
+                
+                lo = hi;
+                hi = hi.parent;
+            }
+            
+            node.key = successor.key;
+            node.value = successor.value;
+            return successor;
+        }
+        
+        Node<K, V> child = node.left != null ? node.left : node.right;
+        Node<K, V> parent = node.parent;
+        
+        if (child != null) {
+            child.parent = parent;
+        }
+        
+        if (parent == null) {
+            root = child;
+        } else if (node == parent.left) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        
+        return node;
+    }
+    
+    private int height(Node<K, V> node) {
+        return node == null ? -1 : node.height;
+    }
+    
+    private Node<K, V> leftRotate(Node<K, V> node1) {
+        Node<K, V> node2 = node1.right;
+        node2.parent = node1.parent;
+        node1.parent = node2;
+        node1.right = node2.left;
+        node2.left = node1;
+        
+        if (node1.right != null) {
+            node1.right.parent = node1;
+        }
+        
+        node1.height = Math.max(height(node1.left), height(node1.right)) + 1;
+        node2.height = Math.max(height(node2.left), height(node2.right)) + 1;
+        node2.count += node1.count + 1;
+        return node2;
+    }
+    
+    private Node<K, V> rightRotate(Node<K, V> node1) {
+        Node<K, V> node2 = node1.left;
+        node2.parent = node1.parent;
+        node1.parent = node2;
+        node1.left = node2.right;
+        node2.right = node1;
+        
+        if (node1.left != null) {
+            node1.left.parent = node1;
+        }
+        
+        node1.height = Math.max(height(node1.left), height(node1.right)) + 1;
+        node2.height = Math.max(height(node2.left), height(node2.right)) + 1;
+        node1.count -= node2.count + 1;
+        return node2;
+    }
+    
+    private Node<K, V> rightLeftRotate(Node<K, V> node1) {
+        node1.right = rightRotate(node1.right);
+        return leftRotate(node1);
+    }
+    
+    private Node<K, V> leftRightRotate(Node<K, V> node1) {
+        node1.left = leftRotate(node1.left);
+        return rightRotate(node1);
+    }
+    
+    // Fixing an insertion: use insertionMode = true.
+    // Fixing a deletion: use insertionMode = false.
+    private void fixAfterModification(Node<K, V> node, boolean insertionMode) {
+        Node<K, V> parent = node.parent;
+        
+        while (parent != null) {
+            Node<K, V> subTree = rebalance(parent);
+            
+            if (subTree.parent == null) {
+                root = subTree;
+            }
+            
+            if (subTree != parent && insertionMode) {
+                // Whenever fixing after insertion, at most one rotation is
+                // required in order to maintain the balance.
+                return;
+            }
+            
+            parent = subTree.parent;
+        }
+    }
+    
+    // Restores the AVL property at 'node' whose children are balanced and have
+    // correct heights, and links the resulting subtree to the parent of
+    // 'node'. Returns the root of the resulting subtree.
+    private Node<K, V> rebalance(Node<K, V> node) {
+        Node<K, V> parent = node.parent;
+        Node<K, V> subTree;
+        
+        if (height(node.left) == height(node.right) + 2) {
+            if (height(node.left.left) >= height(node.left.right)) {
+                subTree = rightRotate(node);
+            } else {
+                subTree = leftRightRotate(node);
+            }
+        } else if (height(node.right) == height(node.left) + 2) {
+            if (height(node.right.right) >= height(node.right.left)) {
+                subTree = leftRotate(node);
+            } else {
+                subTree = rightLeftRotate(node);
+            }
+        } else {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+            return node;
+        }
+        
+        if (parent != null) {
+            if (parent.left == node) {
+                parent.left = subTree;
+            } else {
+                parent.right = subTree;
+            }
+        }
+        
+        return subTree;
+    }
+    
+    public boolean isHealthy() {
+        return root == null || (root.parent == null
+                                && isHealthy(root, null, null) == size);
+    }
+    
+    // Checks the order, the balance, the heights, the parent links and the
+    // counts of the subtree rooted at 'node'. 'lo' and 'hi' are the exclusive
+    // bounds of the keys; null means no bound. Returns the size of the
+    // subtree, or -1 if it is not healthy.
+    private int isHealthy(Node<K, V> node, K lo, K hi) {
+        if (node == null) {
+            return 0;
+        }
+        
+        if ((lo != null && node.key.compareTo(lo) <= 0) ||
+            (hi != null && node.key.compareTo(hi) >= 0) ||
+            (node.left != null && node.left.parent != node) ||
+            (node.right != null && node.right.parent != node) ||
+            Math.abs(height(node.left) - height(node.right)) > 1 ||
+            node.height != Math.max(height(node.left),
+                                    height(node.right)) + 1) {
+            return -1;
+        }
+        
+        int leftSize = isHealthy(node.left, lo, node.key);
+        int rightSize = isHealthy(node.right, node.key, hi);
+        
+        if (leftSize < 0 || rightSize < 0 || leftSize != node.count) {
+            return -1;
+        }
+        
+        return leftSize + 1 + rightSize;
+    }
+}
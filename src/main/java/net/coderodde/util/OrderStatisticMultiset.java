@@ -0,0 +1,655 @@
+package net.coderodde.util;
+
+import java.util.AbstractCollection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class implements an order statistic multiset which is based on
+ * AVL-trees. Equal elements share a single node that records their
+ * multiplicity, and the <code>count</code> augmentation of a node sums the
+ * multiplicities in its left subtree. Hence, <code>add</code>,
+ * <code>remove</code>, <code>count</code>, <code>get</code> and
+ * <code>rank</code> run in logarithmic time in the number of distinct
+ * elements, regardless of the number of duplicates.
+ * <p>
+ * The iterator returns each element as many times as it occurs, in ascending
+ * order.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public class OrderStatisticMultiset<T extends Comparable<? super T>>
+extends AbstractCollection<T> {
+    
+    private static final class Node<T> {
+        T key;
+        
+        Node<T> parent;
+        Node<T> left;
+        Node<T> right;
+        
+        int height;
+        
+        /**
+         * The number of occurrences of <code>key</code>.
+         */
+        int multiplicity = 1;
+        
+        /**
+         * The number of occurrences in the left subtree.
+         */
+        int count;
+        
+        Node(T key) {
+            this.key = key;
+        }
+    }
+    
+    private Node<T> root;
+    
+    /**
+     * The total number of occurrences.
+     */
+    private int size;
+    
+    /**
+     * The number of distinct elements.
+     */
+    private int distinctSize;
+    
+    private int modCount;
+    
+    /**
+     * The nodes that were physically removed, linked through their
+     * <code>right</code> fields and kept for the next insertions of new
+     * distinct elements. A multiset used as a sliding window removes and adds
+     * an occurrence per update, and so allocates no nodes in the steady state.
+     * There are never more spare nodes than distinct elements.
+     */
+    private Node<T> spares;
+    private int spareCount;
+    
+    /**
+     * Constructs an empty order statistic multiset.
+     */
+    public OrderStatisticMultiset() {
+        
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new MultisetIterator();
+    }
+    
+    private final class MultisetIterator implements Iterator<T> {
+        
+        private Node<T> previousNode;
+        private Node<T> nextNode = root == null ? null : minimumNode(root);
+        
+        /**
+         * The number of occurrences of the key of <code>nextNode</code>
+         * returned so far.
+         */
+        private int nextOccurrence;
+        
+        private int expectedModCount = modCount;
+        
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+        
+        @Override
+        public T next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            previousNode = nextNode;
+            
+            if (++nextOccurrence == nextNode.multiplicity) {
+                nextNode = successorOf(nextNode);
+                nextOccurrence = 0;
+            }
+            
+            return previousNode.key;
+        }
+        
+        @Override
+        public void remove() {
+            if (previousNode == null) {
+                throw new IllegalStateException(
+                        "There is no element to remove.");
+            }
+            
+            checkConcurrentModification();
+            
+            if (previousNode.multiplicity > 1) {
+                previousNode.multiplicity--;
+                updateCounts(previousNode, -1);
+                
+                if (nextNode == previousNode) {
+                    nextOccurrence--;
+                }
+            } else {
+                Node<T> x = deleteNode(previousNode);
+                fixAfterModification(x, false);
+                
+                if (x == nextNode) {
+                    // The contents of 'nextNode' were moved to
+                    // 'previousNode'.
+                    nextNode = previousNode;
+                }
+                
+                distinctSize--;
+                releaseNode(x);
+            }
+            
+            expectedModCount = ++modCount;
+            size--;
+            previousNode = null;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The multiset was modified while iterating.");
+            }
+        }
+    }
+    
+    /**
+     * Adds an occurrence of <code>element</code> to this multiset.
+     * 
+     * @param element the element to add.
+     * @return always <code>true</code>.
+     */
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        modCount++;
+        size++;
+        
+        if (root == null) {
+            root = newNode(element);
+            distinctSize = 1;
+            return true;
+        }
+        
+        Node<T> parent = null;
+        Node<T> node = root;
+        int cmp = 0;
+        
+        while (node != null) {
+            cmp = element.compareTo(node.key);
+            
+            if (cmp == 0) {
+                // Only the multiplicity changes; no rebalancing is needed.
+                node.multiplicity++;
+                updateCounts(node, 1);
+                return true;
+            }
+            
+            parent = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        
+        Node<T> newnode = newNode(element);
+        
+        if (cmp < 0) {
+            parent.left = newnode;
+        } else {
+            parent.right = newnode;
+        }
+        
+        newnode.parent = parent;
+        distinctSize++;
+        updateCounts(newnode, 1);
+        fixAfterModification(newnode, true);
+        return true;
+    }
+    
+    /**
+     * Removes a single occurrence of <code>o</code> from this multiset.
+     * 
+     * @param o the element to remove.
+     * @return <code>true</code> if an occurrence was removed.
+     */
+    @Override
+    public boolean remove(Object o) {
+        Node<T> node = findNode((T) o);
+        
+        if (node == null) {
+            return false;
+        }
+        
+        if (node.multiplicity > 1) {
+            node.multiplicity--;
+            updateCounts(node, -1);
+        } else {
+            Node<T> x = deleteNode(node);
+            fixAfterModification(x, false);
+            distinctSize--;
+            releaseNode(x);
+        }
+        
+        size--;
+        modCount++;
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return findNode((T) o) != null;
+    }
+    
+    /**
+     * Returns the number of occurrences of <code>element</code> in this
+     * multiset.
+     * 
+     * @param element the query element.
+     * @return the multiplicity of the query element, or 0 if it is not in this
+     *         multiset.
+     */
+    public int count(T element) {
+        Node<T> node = findNode(element);
+        return node == null ? 0 : node.multiplicity;
+    }
+    
+    /**
+     * Returns the <code>index</code>th smallest occurrence in this multiset.
+     * 
+     * @param index the occurrence index.
+     * @return the <code>index</code>th smallest element.
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of range.
+     */
+    public T get(int index) {
+        checkIndex(index);
+        Node<T> node = root;
+        
+        while (true) {
+            if (index < node.count) {
+                node = node.left;
+            } else if (index < node.count + node.multiplicity) {
+                return node.key;
+            } else {
+                index -= node.count + node.multiplicity;
+                node = node.right;
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of the first occurrence of <code>element</code>.
+     * 
+     * @param element the query element.
+     * @return the index of the first occurrence, or -1 if the element is not
+     *         in this multiset.
+     */
+    public int indexOf(T element) {
+        return contains(element) ? rank(element) : -1;
+    }
+    
+    /**
+     * Returns the number of occurrences in this multiset that are strictly
+     * less than <code>element</code>. The query element does not need to be
+     * in this multiset.
+     * 
+     * @param element the query element.
+     * @return the number of occurrences less than the query element.
+     */
+    public int rank(T element) {
+        Node<T> node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += node.count + node.multiplicity;
+                node = node.right;
+            } else {
+                return rank + node.count;
+            }
+        }
+        
+        return rank;
+    }
+    
+    /**
+     * Returns the total number of occurrences in this multiset.
+     * 
+     * @return the size of this multiset.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of distinct elements in this multiset.
+     * 
+     * @return the number of distinct elements.
+     */
+    public int distinctSize() {
+        return distinctSize;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        root = null;
+        spares = null;
+        spareCount = 0;
+        size = 0;
+        distinctSize = 0;
+    }
+    
+    private Node<T> findNode(T element) {
+        Node<T> x = root;
+        int cmp;
+        
+        while (x != null && (cmp = element.compareTo(x.key)) != 0) {
+            if (cmp < 0) {
+                x = x.left;
+            } else {
+                x = x.right;
+            }
+        }
+        
+        return x;
+    }
+    
+    // Adds 'delta' to the counts of all the proper ancestors of 'node' having
+    // it in their left subtrees.
+    private void updateCounts(Node<T> node, int delta) {
+        Node<T> lo = node;
+        Node<T> hi = node.parent;
+        
+        while (hi != null) {
+            if (hi.left == lo) {
+                hi.count += delta;
+            }
+            
+            lo = hi;
+            hi = hi.parent;
+        }
+    }
+    
+    // Unlinks a node holding a single occurrence and returns the node that was
+    // physically removed from the tree.
+    private Node<T> deleteNode(Node<T> node) {
+        if (node.left != null && node.right != null) {
+            // 'node' has both children: move the contents of its successor
+            // into it and unlink the successor.
+            Node<T> successor = minimumNode(node.right);
+            Node<T> child = successor.right;
+            Node<T> parent = successor.parent;
+            
+            if (parent.left == successor) {
+                parent.left = child;
+            } else {
+                parent.right = child;
+            }
+            
+            if (child != null) {
+                child.parent = parent;
+            }
+            
+            // Between 'node' and 'successor', the occurrences of the
+            // successor leave the left subtrees; above 'node', only the single
+            // occurrence of the removed key is gone.
+            Node<T> lo = child;
+            Node<T> hi = parent;
+            
+            while (hi != node) {
+                if (hi.left == lo) {
+                    hi.count -= successor.multiplicity;
+                }
+                
+                lo = hi;
+                hi = hi.parent;
+            }
+            
+            updateCounts(node, -1);
+            node.key = successor.key;
+            node.multiplicity = successor.multiplicity;
+            return successor;
+        }
+        
+        updateCounts(node, -1);
+        Node<T> child = node.left != null ? node.left : node.right;
+        Node<T> parent = node.parent;
+        
+        if (child != null) {
+            child.parent = parent;
+        }
+        
+        if (parent == null) {
+            root = child;
+        } else if (node == parent.left) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        
+        return node;
+    }
+    
+    private Node<T> newNode(T element) {
+        Node<T> node = spares;
+        
+        if (node == null) {
+            return new Node<>(element);
+        }
+        
+        spares = node.right;
+        spareCount--;
+        node.right = null;
+        node.key = element;
+        node.multiplicity = 1;
+        node.count = 0;
+        node.height = 0;
+        return node;
+    }
+    
+    private void releaseNode(Node<T> node) {
+        if (spareCount >= distinctSize) {
+            return;
+        }
+        
+        node.key = null;
+        node.parent = null;
+        node.left = null;
+        node.right = spares;
+        spares = node;
+        spareCount++;
+    }
+    
+    private Node<T> minimumNode(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        
+        return node;
+    }
+    
+    private Node<T> successorOf(Node<T> node) {
+        if (node.right != null) {
+            return minimumNode(node.right);
+        }
+        
+        Node<T> parent = node.parent;
+        
+        while (parent != null && parent.right == node) {
+            node = parent;
+            parent = parent.parent;
+        }
+        
+        return parent;
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this multiset is " + size);
+        }
+    }
+    
+    private int height(Node<T> node) {
+        return node == null ? -1 : node.height;
+    }
+    
+    private Node<T> leftRotate(Node<T> node1) {
+        Node<T> node2 = node1.right;
+        node2.parent = node1.parent;
+        node1.parent = node2;
+        node1.right = node2.left;
+        node2.left = node1;
+        
+        if (node1.right != null) {
+            node1.right.parent = node1;
+        }
+        
+        node1.height = Math.max(height(node1.left), height(node1.right)) + 1;
+        node2.height = Math.max(height(node2.left), height(node2.right)) + 1;
+        node2.count += node1.count + node1.multiplicity;
+        return node2;
+    }
+    
+    private Node<T> rightRotate(Node<T> node1) {
+        Node<T> node2 = node1.left;
+        node2.parent = node1.parent;
+        node1.parent = node2;
+        node1.left = node2.right;
+        node2.right = node1;
+        
+        if (node1.left != null) {
+            node1.left.parent = node1;
+        }
+        
+        node1.height = Math.max(height(node1.left), height(node1.right)) + 1;
+        node2.height = Math.max(height(node2.left), height(node2.right)) + 1;
+        node1.count -= node2.count + node2.multiplicity;
+        return node2;
+    }
+    
+    private Node<T> rightLeftRotate(Node<T> node1) {
+        node1.right = rightRotate(node1.right);
+        return leftRotate(node1);
+    }
+    
+    private Node<T> leftRightRotate(Node<T> node1) {
+        node1.left = leftRotate(node1.left);
+        return rightRotate(node1);
+    }
+    
+    // Fixing an insertion: use insertionMode = true.
+    // Fixing a deletion: use insertionMode = false.
+    private void fixAfterModification(Node<T> node, boolean insertionMode) {
+        Node<T> parent = node.parent;
+        
+        while (parent != null) {
+            Node<T> subTree = rebalance(parent);
+            
+            if (subTree.parent == null) {
+                root = subTree;
+            }
+            
+            if (subTree != parent && insertionMode) {
+                // Whenever fixing after insertion, at most one rotation is
+                // required in order to maintain the balance.
+                return;
+            }
+            
+            parent = subTree.parent;
+        }
+    }
+    
+    // Restores the AVL property at 'node' whose children are balanced and have
+    // correct heights, and links the resulting subtree to the parent of
+    // 'node'. Returns the root of the resulting subtree.
+    private Node<T> rebalance(Node<T> node) {
+        Node<T> parent = node.parent;
+        Node<T> subTree;
+        
+        if (height(node.left) == height(node.right) + 2) {
+            if (height(node.left.left) >= height(node.left.right)) {
+                subTree = rightRotate(node);
+            } else {
+                subTree = leftRightRotate(node);
+            }
+        } else if (height(node.right) == height(node.left) + 2) {
+            if (height(node.right.right) >= height(node.right.left)) {
+                subTree = leftRotate(node);
+            } else {
+                subTree = rightLeftRotate(node);
+            }
+        } else {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+            return node;
+        }
+        
+        if (parent != null) {
+            if (parent.left == node) {
+                parent.left = subTree;
+            } else {
+                parent.right = subTree;
+            }
+        }
+        
+        return subTree;
+    }
+    
+    public boolean isHealthy() {
+        return root == null || (root.parent == null
+                                && isHealthy(root, null, null) == size);
+    }
+    
+    // Checks the order, the balance, the heights, the parent links and the
+    // counts of the subtree rooted at 'node'. 'lo' and 'hi' are the exclusive
+    // bounds of the keys; null means no bound. Returns the number of
+    // occurrences in the subtree, or -1 if it is not healthy.
+    private int isHealthy(Node<T> node, T lo, T hi) {
+        if (node == null) {
+            return 0;
+        }
+        
+        if ((lo != null && node.key.compareTo(lo) <= 0) ||
+            (hi != null && node.key.compareTo(hi) >= 0) ||
+            node.multiplicity < 1 ||
+            (node.left != null && node.left.parent != node) ||
+            (node.right != null && node.right.parent != node) ||
+            Math.abs(height(node.left) - height(node.right)) > 1 ||
+            node.height != Math.max(height(node.left),
+                                    height(node.right)) + 1) {
+            return -1;
+        }
+        
+        int leftSize = isHealthy(node.left, lo, node.key);
+        int rightSize = isHealthy(node.right, node.key, hi);
+        
+        if (leftSize < 0 || rightSize < 0 || leftSize != node.count) {
+            return -1;
+        }
+        
+        return leftSize + node.multiplicity + rightSize;
+    }
+}
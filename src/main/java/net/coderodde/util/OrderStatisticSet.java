@@ -11,6 +11,9 @@ import java.util.Set;
  *   <li><code>indexOf(T element)</code> returns the index of the input element.
  *   </li>
  * </ul>
+ * In addition, {@link #rank(Object)} counts the elements below any query
+ * element, present or not, from which the range counts and the floor, ceiling,
+ * lower and higher indices are derived.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Feb 16, 2016)
@@ -33,4 +36,107 @@ public interface OrderStatisticSet<T> extends Set<T> {
      *         in this set.
      */
     int indexOf(T element);
+    
+    /**
+     * Returns the number of elements in this set that are strictly less than
+     * <code>element</code>. Unlike {@link #indexOf(Object)}, the query element
+     * does not need to be in the set.
+     * <p>
+     * The default implementation binary searches the indices with 
+     * {@link #get(int)}, comparing the elements by their natural ordering, so
+     * it calls <code>get</code> a logarithmic number of times. The
+     * implementations are expected to override it with a single descent.
+     * 
+     * @param element the query element.
+     * @return the number of elements less than the query element.
+     * @throws ClassCastException if <code>element</code> is not comparable 
+     *                            with the elements of this set.
+     */
+    @SuppressWarnings("unchecked")
+    default int rank(T element) {
+        Comparable<? super T> key = (Comparable<? super T>) element;
+        int lo = 0;
+        int hi = size();
+        
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            
+            if (key.compareTo(get(mid)) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        
+        return lo;
+    }
+    
+    /**
+     * Returns the number of elements in this set that lie between
+     * <code>lo</code> and <code>hi</code>.
+     * 
+     * @param lo          the lower end of the range.
+     * @param loInclusive whether <code>lo</code> belongs to the range.
+     * @param hi          the upper end of the range.
+     * @param hiInclusive whether <code>hi</code> belongs to the range.
+     * @return the number of elements in the range, or 0 if the range is empty.
+     */
+    default int countInRange(T lo, 
+                             boolean loInclusive, 
+                             T hi, 
+                             boolean hiInclusive) {
+        int from = loInclusive ? rank(lo) : rank(lo) + (contains(lo) ? 1 : 0);
+        int to = hiInclusive ? rank(hi) + (contains(hi) ? 1 : 0) : rank(hi);
+        return Math.max(0, to - from);
+    }
+    
+    /**
+     * Returns the index of the greatest element less than or equal to
+     * <code>element</code>.
+     * 
+     * @param element the query element.
+     * @return the index of the floor element or -1 if there is no such 
+     *         element.
+     */
+    default int floorIndex(T element) {
+        return rank(element) - (contains(element) ? 0 : 1);
+    }
+    
+    /**
+     * Returns the index of the least element greater than or equal to
+     * <code>element</code>.
+     * 
+     * @param element the query element.
+     * @return the index of the ceiling element or -1 if there is no such 
+     *         element.
+     */
+    default int ceilingIndex(T element) {
+        int index = rank(element);
+        return index < size() ? index : -1;
+    }
+    
+    /**
+     * Returns the index of the greatest element strictly less than
+     * <code>element</code>.
+     * 
+     * @param element the query element.
+     * @return the index of the lower element or -1 if there is no such 
+     *         element.
+     */
+    default int lowerIndex(T element) {
+        return rank(element) - 1;
+    }
+    
+    /**
+     * Returns the index of the least element strictly greater than
+     * <code>element</code>.
+     * 
+     * @param element the query element.
+     * @return the index of the higher element or -1 if there is no such 
+     *         element.
+     */
+    default int higherIndex(T element) {
+        int index = rank(element) + (contains(element) ? 1 : 0);
+        return index < size() ? index : -1;
+    }
 }
@@ -1,27 +1,365 @@
 package net.coderodde.util;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 /**
  * This class implements an order statistic tree which is based on AVL-trees.
+ * The range views returned by <code>subSet</code>, <code>headSet</code>,
+ * <code>tailSet</code> and <code>descendingSet</code> are order statistic sets
+ * themselves: their <code>size</code>, <code>get</code> and 
+ * <code>indexOf</code> run in logarithmic time.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Feb 11, 2016)
  * @param <T> the actual element type.
  */
 public class OrderStatisticTree<T extends Comparable<? super T>> 
-implements OrderStatisticSet<T> {
+implements OrderStatisticSet<T>, NavigableSet<T>, OptimisticallyReadable {
 
     @Override
     public Iterator<T> iterator() {
-        return new TreeIterator();
+        return new TreeIterator(root == null ? null : minimumNode(root), 
+                                false, 
+                                null);
+    }
+    
+    @Override
+    public Iterator<T> descendingIterator() {
+        return new TreeIterator(root == null ? null : maximumNode(root), 
+                                true, 
+                                null);
+    }
+    
+    /**
+     * Returns a spliterator over the elements of this tree in ascending order.
+     * The spliterator splits its index range into exact halves, each located
+     * by a single rank-guided descent, and traverses the remaining elements
+     * in order without walking the parent links. It binds to this tree at
+     * creation and fails fast if the tree is modified structurally
+     * afterwards.
+     * 
+     * @return the spliterator over this tree.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator(0, size);
+    }
+    
+    private final class TreeSpliterator implements Spliterator<T> {
+        
+        private int fromIndex;
+        private final int toIndex;
+        private final int expectedModCount = modCount;
+        
+        /**
+         * The node with the index <code>fromIndex</code>, or 
+         * <code>null</code> if it is not yet located.
+         */
+        private Node<T> nextNode;
+        
+        TreeSpliterator(int fromIndex, int toIndex) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action, "The input action is null.");
+            
+            if (fromIndex >= toIndex) {
+                return false;
+            }
+            
+            checkConcurrentModification();
+            
+            if (nextNode == null) {
+                nextNode = nodeAt(fromIndex);
+            }
+            
+            T key = nextNode.key;
+            nextNode = ++fromIndex < toIndex ? successorOf(nextNode) : null;
+            action.accept(key);
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action, "The input action is null.");
+            
+            if (fromIndex >= toIndex) {
+                return;
+            }
+            
+            checkConcurrentModification();
+            int from = fromIndex;
+            fromIndex = toIndex;
+            nextNode = null;
+            forEachInRange(root, 0, from, toIndex, action);
+            checkConcurrentModification();
+        }
+        
+        @Override
+        public Spliterator<T> trySplit() {
+            int middle = (fromIndex + toIndex) >>> 1;
+            
+            if (middle == fromIndex) {
+                return null;
+            }
+            
+            Spliterator<T> prefix = new TreeSpliterator(fromIndex, middle);
+            fromIndex = middle;
+            nextNode = null;
+            return prefix;
+        }
+        
+        @Override
+        public long estimateSize() {
+            return toIndex - fromIndex;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED 
+                 | Spliterator.SUBSIZED 
+                 | Spliterator.SORTED 
+                 | Spliterator.ORDERED 
+                 | Spliterator.DISTINCT 
+                 | Spliterator.NONNULL;
+        }
+        
+        @Override
+        public Comparator<? super T> getComparator() {
+            // The natural order.
+            return null;
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The set was modified while splitting.");
+            }
+        }
+    }
+    
+    // Feeds to 'action', in order, the keys with indices [from, to) in the
+    // subtree rooted at 'node' whose smallest key has the index 'base'. Only
+    // the subtrees overlapping the range are entered, so the traversal costs
+    // O(log n + to - from).
+    private void forEachInRange(Node<T> node, 
+                                int base, 
+                                int from, 
+                                int to, 
+                                Consumer<? super T> action) {
+        while (node != null && base < to) {
+            int index = base + node.count;
+            
+            if (from < index) {
+                forEachInRange(node.left, base, from, to, action);
+            }
+            
+            if (index >= to) {
+                return;
+            }
+            
+            if (index >= from) {
+                action.accept(node.key);
+            }
+            
+            base = index + 1;
+            node = node.right;
+        }
+    }
+    
+    /**
+     * Returns an iterator over the elements greater than or equal to
+     * <code>fromKey</code> in ascending order. The iterator is positioned in
+     * logarithmic time.
+     * 
+     * @param fromKey the least element to iterate over, not necessarily
+     *                present in this tree.
+     * @return the iterator starting at <code>fromKey</code>.
+     */
+    public Iterator<T> iterator(T fromKey) {
+        Objects.requireNonNull(fromKey, "The input element is null.");
+        return new TreeIterator(ceilingNode(fromKey, true), false, null);
+    }
+    
+    /**
+     * Returns a list iterator over the elements of this tree in ascending
+     * order, starting at the smallest element.
+     * 
+     * @return the list iterator.
+     */
+    public ListIterator<T> listIterator() {
+        return listIterator(0);
+    }
+    
+    /**
+     * Returns a list iterator over the elements of this tree in ascending
+     * order, whose first call to <code>next</code> returns the element with 
+     * index <code>index</code>. The iterator is positioned by a single 
+     * descent, that is, in logarithmic time, after which each step runs in
+     * amortized constant time. The list iterator supports 
+     * <code>remove</code>, but neither <code>set</code> nor 
+     * <code>add</code>, since they could break the order.
+     * 
+     * @param index the index of the first element to be returned by
+     *              <code>next</code>.
+     * @return the list iterator.
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     *                                   larger than the size of this tree.
+     */
+    public ListIterator<T> listIterator(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is out of range: " + index + 
+                    ", the size of this tree is " + size);
+        }
+        
+        return new TreeListIterator(index == size ? null : nodeAt(index), 
+                                    index);
+    }
+    
+    private final class TreeListIterator implements ListIterator<T> {
+        
+        /**
+         * The node to be returned by <code>next</code>, or <code>null</code>
+         * if the iterator is past the largest element.
+         */
+        private Node<T> nextNode;
+        private Node<T> lastReturned;
+        private int nextIndex;
+        private int expectedModCount = modCount;
+        
+        TreeListIterator(Node<T> nextNode, int nextIndex) {
+            this.nextNode = nextNode;
+            this.nextIndex = nextIndex;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+        
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            lastReturned = nextNode;
+            nextNode = successorOf(nextNode);
+            nextIndex++;
+            return lastReturned.key;
+        }
+        
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+        
+        @Override
+        public T previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            checkConcurrentModification();
+            nextNode = nextNode == null ? 
+                       maximumNode(root) : 
+                       predecessorOf(nextNode);
+            lastReturned = nextNode;
+            nextIndex--;
+            return lastReturned.key;
+        }
+        
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+        
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+        
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException(
+                        "There is no element to remove.");
+            }
+            
+            checkConcurrentModification();
+            
+            if (lastReturned == nextNode) {
+                // The element was returned by previous().
+                nextNode = successorOf(nextNode);
+            } else {
+                nextIndex--;
+            }
+            
+            Node<T> x = deleteNode(lastReturned);
+            fixAfterModification(x, false);
+            
+            if (x == nextNode) {
+                // The key of 'nextNode' was moved to 'lastReturned'.
+                nextNode = lastReturned;
+            }
+            
+            expectedModCount = ++modCount;
+            size--;
+            lastReturned = null;
+        }
+        
+        @Override
+        public void set(T element) {
+            throw new UnsupportedOperationException(
+                    "Setting an element could break the order.");
+        }
+        
+        @Override
+        public void add(T element) {
+            throw new UnsupportedOperationException(
+                    "Adding at a position could break the order.");
+        }
+        
+        private void checkConcurrentModification() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException(
+                        "The set was modified while iterating.");
+            }
+        }
     }
     
     private final class TreeIterator implements Iterator<T> {
@@ -30,12 +368,21 @@ implements OrderStatisticSet<T> {
         private Node<T> nextNode;
         private int expectedModCount = modCount;
         
-        TreeIterator() {
-            if (root == null) {
-                nextNode = null;
-            } else {
-                nextNode = minimumNode(root);
-            }
+        /**
+         * Whether to iterate in descending order.
+         */
+        private final boolean descending;
+        
+        /**
+         * The view whose range limits the iteration, or <code>null</code> if 
+         * the iteration covers the entire tree.
+         */
+        private final SubSet view;
+        
+        TreeIterator(Node<T> firstNode, boolean descending, SubSet view) {
+            this.nextNode = firstNode;
+            this.descending = descending;
+            this.view = view;
         }
         
         @Override
@@ -52,7 +399,16 @@ implements OrderStatisticSet<T> {
             checkConcurrentModification();
             T datum = nextNode.key;
             previousNode = nextNode;
-            nextNode = successorOf(nextNode);
+            nextNode = descending ? 
+                       predecessorOf(nextNode) : 
+                       successorOf(nextNode);
+            
+            if (nextNode != null && view != null 
+                    && (descending ? view.tooLow(nextNode.key) : 
+                                     view.tooHigh(nextNode.key))) {
+                nextNode = null;
+            }
+            
             return datum;
         }
         
@@ -133,8 +489,30 @@ implements OrderStatisticSet<T> {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * If <code>c</code> is an order statistic tree or a sorted set using the
+     * natural ordering, the union is computed by splitting and joining the 
+     * two trees, in parallel for large trees.
+     */
     @Override
     public boolean addAll(Collection<? extends T> c) {
+        if (root == null && isSortedByNaturalOrder(c)) {
+            buildFromSorted(c.iterator(), c.size(), false);
+            return !c.isEmpty();
+        }
+        
+        if (c == this) {
+            return false;
+        }
+        
+        OrderStatisticTree<T> other = asTree(c);
+        
+        if (other != null) {
+            return apply(Operation.UNION, other);
+        }
+        
         boolean modified = false;
         
         for (T element : c) {
@@ -146,9 +524,26 @@ implements OrderStatisticSet<T> {
         return modified;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * If <code>c</code> is an order statistic tree or a sorted set using the
+     * natural ordering, the intersection is computed by splitting and joining
+     * the two trees, in parallel for large trees.
+     */
     @Override
     public boolean retainAll(Collection<?> c) {
-        if (!c.getClass().equals(HashSet.class.getClass())) {
+        if (c == this) {
+            return false;
+        }
+        
+        OrderStatisticTree<T> other = asTree(c);
+        
+        if (other != null) {
+            return apply(Operation.INTERSECTION, other);
+        }
+        
+        if (!(c instanceof Set)) {
             c = new HashSet<>(c);
         }
         
@@ -167,8 +562,27 @@ implements OrderStatisticSet<T> {
         return modified;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * If <code>c</code> is an order statistic tree or a sorted set using the
+     * natural ordering, the difference is computed by splitting and joining 
+     * the two trees, in parallel for large trees.
+     */
     @Override
     public boolean removeAll(Collection<?> c) {
+        if (c == this) {
+            boolean modified = size > 0;
+            clear();
+            return modified;
+        }
+        
+        OrderStatisticTree<T> other = asTree(c);
+        
+        if (other != null) {
+            return apply(Operation.DIFFERENCE, other);
+        }
+        
         boolean modified = false;
         
         for (Object element : c) {
@@ -179,7 +593,35 @@ implements OrderStatisticSet<T> {
         
         return modified;
     }
+    
+    // Returns 'c' as an order statistic tree if it is one, or a temporary tree
+    // holding the elements of 'c' if it is sorted by the natural ordering. 
+    // Otherwise, returns null.
+    private OrderStatisticTree<T> asTree(Collection<?> c) {
+        if (c instanceof OrderStatisticTree) {
+            return (OrderStatisticTree<T>) c;
+        }
+        
+        if (!isSortedByNaturalOrder(c)) {
+            return null;
+        }
+        
+        OrderStatisticTree<T> tree = new OrderStatisticTree<>();
+        tree.buildFromSorted(((Collection<T>) c).iterator(), c.size(), false);
+        return tree;
+    }
 
+    // Returns true if iterating 'c' yields distinct elements in ascending
+    // natural order.
+    private static boolean isSortedByNaturalOrder(Collection<?> c) {
+        if (c instanceof OrderStatisticTree) {
+            return true;
+        }
+        
+        return c instanceof SortedSet 
+                && ((SortedSet<?>) c).comparator() == null;
+    }
+    
     private static final class Node<T> {
         T key;
         
@@ -195,67 +637,581 @@ implements OrderStatisticSet<T> {
         }
     }
     
+    // The combined size of two trees from which on the set operations run in
+    // parallel.
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    
+    // The snapshot format: four big-endian ints (the magic number, the format
+    // version, the key width and the number of keys), the encoded keys in
+    // ascending order and the CRC-32 of all the preceding bytes.
+    private static final int SNAPSHOT_MAGIC = 0x4F535431; // "OST1"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 16;
+    private static final long SNAPSHOT_WINDOW_SIZE = 1L << 30;
+    
+    // The maximum number of nodes on a path from the root: the sparsest AVL
+    // tree of height 45 has more than Integer.MAX_VALUE nodes. The lookups
+    // that ConcurrentOrderStatisticSet runs without locking give up beyond
+    // this depth, since only links torn by a concurrent write lead there.
+    private static final int MAXIMUM_DEPTH = 44;
+    
+    /**
+     * Whether the trees count their comparisons, visited nodes, rotations and
+     * rebalancing steps and report their operations to JDK Flight Recorder.
+     * Set by the system property
+     * <code>net.coderodde.util.OrderStatisticTree.instrumented</code>; when
+     * not set, the JIT compiler removes the instrumentation altogether.
+     */
+    static final boolean INSTRUMENTED = 
+            Boolean.getBoolean(
+                    "net.coderodde.util.OrderStatisticTree.instrumented");
+    
     private Node<T> root;
     private int size;
     private int modCount;
+    private final TreeProbe probe = INSTRUMENTED ? new TreeProbe() : null;
     
-    @Override
-    public boolean add(T element) {
-        Objects.requireNonNull(element, "The input element is null.");
+    /**
+     * The finger: the node last accessed by <code>get</code> or 
+     * <code>indexOf</code> and its index, valid as long as 
+     * <code>modCount</code> equals <code>fingerModCount</code>.
+     */
+    private boolean fingerEnabled;
+    private Node<T> finger;
+    private int fingerIndex;
+    private int fingerModCount;
+    
+    /**
+     * Whether this tree is wrapped in a {@link ConcurrentOrderStatisticSet},
+     * in which case the finger may not be enabled.
+     */
+    private volatile boolean shared;
+    
+    /**
+     * Constructs an empty order statistic tree.
+     */
+    public OrderStatisticTree() {
         
-        if (root == null) {
-            root = new Node<>(element);
-            size = 1;
-            modCount++;
-            return true;
+    }
+    
+    /**
+     * Constructs an order statistic tree containing all the elements of
+     * <code>c</code>.
+     * 
+     * @param c the collection whose elements to add.
+     */
+    public OrderStatisticTree(Collection<? extends T> c) {
+        addAll(c);
+    }
+    
+    /**
+     * Constructs an order statistic tree containing all the elements of
+     * <code>s</code>. If <code>s</code> uses the natural ordering of its
+     * elements, the tree is built in linear time.
+     * 
+     * @param s the sorted set whose elements to add.
+     */
+    public OrderStatisticTree(SortedSet<? extends T> s) {
+        addAll(s);
+    }
+    
+    /**
+     * Builds a perfectly balanced order statistic tree out of
+     * <code>size</code> elements given in strictly ascending order. Runs in
+     * linear time.
+     * 
+     * @param <T>      the element type.
+     * @param iterator the iterator over the elements.
+     * @param size     the number of elements to take from the iterator.
+     * @return the order statistic tree.
+     * @throws IllegalArgumentException if the elements are not strictly
+     *                                  ascending or the iterator has less than
+     *                                  <code>size</code> elements.
+     */
+    public static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        fromSorted(Iterator<? extends T> iterator, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size is negative: " +
+                                               size);
         }
         
-        Node<T> parent = null;
-        Node<T> node = root;
-        int cmp;
+        OrderStatisticTree<T> tree = new OrderStatisticTree<>();
+        tree.buildFromSorted(iterator, size, true);
+        return tree;
+    }
+    
+    /**
+     * Builds a perfectly balanced order statistic tree out of the elements of
+     * <code>array</code>, which must be in strictly ascending order. Runs in
+     * linear time.
+     * 
+     * @param <T>   the element type.
+     * @param array the sorted elements.
+     * @return the order statistic tree.
+     * @throws IllegalArgumentException if the elements are not strictly
+     *                                  ascending.
+     */
+    public static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        fromSorted(T[] array) {
+        return fromSorted(Arrays.asList(array).iterator(), array.length);
+    }
+    
+    // Replaces the (empty) contents of this tree with the first 'size'
+    // elements of 'iterator'. If 'check' is set, verifies that the elements
+    // are strictly ascending.
+    private void buildFromSorted(Iterator<? extends T> iterator,
+                                 int size,
+                                 boolean check) {
+        BuildState<T> state = new BuildState<>(iterator, check);
+        root = buildFromSorted(state, size);
+        
+        if (root != null) {
+            root.parent = null;
+        }
         
-        while (node != null) {
-            cmp = element.compareTo(node.key);
-            
-            if (cmp == 0) {
-                // The element is already in this tree.
-                return false;
-            }
-            
-            parent = node;
-            
-            if (cmp < 0) {
-                node = node.left;
-            } else {
-                node = node.right;
-            }
+        this.size = size;
+        modCount++;
+    }
+    
+    private Node<T> buildFromSorted(BuildState<T> state, int size) {
+        if (size == 0) {
+            return null;
         }
         
-        Node<T> newnode = new Node<>(element);
+        int leftSize = (size - 1) / 2;
+        Node<T> left = buildFromSorted(state, leftSize);
+        Node<T> node = new Node<>(state.next());
+        Node<T> right = buildFromSorted(state, size - leftSize - 1);
         
-        if (element.compareTo(parent.key) < 0) {
-            parent.left = newnode;
-        } else {
-            parent.right = newnode;
+        node.left = left;
+        node.right = right;
+        node.count = leftSize;
+        node.height = Math.max(height(left), height(right)) + 1;
+        
+        if (left != null) {
+            left.parent = node;
         }
         
-        newnode.parent = parent;
-        size++;
-        modCount++;
-        Node<T> hi = parent;
-        Node<T> lo = newnode;
+        if (right != null) {
+            right.parent = node;
+        }
         
-        while (hi != null) {
-            if (hi.left == lo) {
-                hi.count++;
+        return node;
+    }
+    
+    private static final class BuildState<T extends Comparable<? super T>> {
+        private final Iterator<? extends T> iterator;
+        private final boolean check;
+        private T previous;
+        
+        BuildState(Iterator<? extends T> iterator, boolean check) {
+            this.iterator = iterator;
+            this.check = check;
+        }
+        
+        T next() {
+            if (!iterator.hasNext()) {
+                throw new IllegalArgumentException(
+                        "The iterator ran out of elements.");
             }
             
-            lo = hi;
-            hi = hi.parent;
+            T element = Objects.requireNonNull(iterator.next(),
+                                               "The input element is null.");
+            
+            if (check && previous != null
+                      && previous.compareTo(element) >= 0) {
+                throw new IllegalArgumentException(
+                        "The input elements are not strictly ascending: " +
+                        previous + ", " + element);
+            }
+            
+            previous = element;
+            return element;
         }
-        
-        fixAfterModification(newnode, true);
-        return true;
+    }
+    
+    /**
+     * Writes the elements of this tree in ascending order to
+     * <code>channel</code> in a compact binary format: a header holding the
+     * format version, the key width and the number of keys, the keys encoded
+     * with <code>codec</code> and a CRC-32 checksum of all the preceding
+     * bytes. The tree can be restored with
+     * {@link #readFrom(ReadableByteChannel, KeyCodec)} or
+     * {@link #load(Path, KeyCodec)}.
+     * 
+     * @param channel the channel to write to.
+     * @param codec   the key codec.
+     * @throws IOException if writing to the channel fails.
+     */
+    public void writeTo(WritableByteChannel channel, KeyCodec<T> codec)
+    throws IOException {
+        int width = codec.width();
+        ByteBuffer buffer = 
+                ByteBuffer.allocate(Math.max(SNAPSHOT_BUFFER_SIZE, 
+                                             SNAPSHOT_HEADER_SIZE + width));
+        CRC32 crc = new CRC32();
+        
+        buffer.putInt(SNAPSHOT_MAGIC)
+              .putInt(SNAPSHOT_VERSION)
+              .putInt(width)
+              .putInt(size);
+        
+        for (T key : this) {
+            if (buffer.remaining() < width) {
+                flushSnapshot(channel, buffer, crc);
+            }
+            
+            codec.write(buffer, buffer.position(), key);
+            buffer.position(buffer.position() + width);
+        }
+        
+        flushSnapshot(channel, buffer, crc);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Reads a tree written by 
+     * {@link #writeTo(WritableByteChannel, KeyCodec)} from 
+     * <code>channel</code>. The keys are stored in ascending order, so the 
+     * tree is built perfectly balanced in linear time without comparing them.
+     * 
+     * @param <T>     the element type.
+     * @param channel the channel to read from.
+     * @param codec   the key codec the tree was written with.
+     * @return the restored tree.
+     * @throws IOException if reading fails, the input is truncated or is not
+     *                     a valid snapshot, or the checksum does not match.
+     */
+    public static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        readFrom(ReadableByteChannel channel, KeyCodec<T> codec) 
+        throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+        readFully(channel, header);
+        int size = checkSnapshotHeader(header, codec);
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        
+        OrderStatisticTree<T> tree = 
+                readSnapshot(new SnapshotReader<>(channel, 
+                                                  null, 
+                                                  codec, 
+                                                  crc, 
+                                                  size));
+        
+        ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, trailer);
+        checkSnapshotChecksum(trailer.getInt(0), crc);
+        return tree;
+    }
+    
+    /**
+     * Loads a tree written by {@link #writeTo(WritableByteChannel, KeyCodec)}
+     * from the file <code>path</code>. The file is memory-mapped instead of
+     * being copied through a buffer, and the tree is built perfectly balanced
+     * in linear time without comparing the keys.
+     * 
+     * @param <T>   the element type.
+     * @param path  the path of the snapshot file.
+     * @param codec the key codec the tree was written with.
+     * @return the restored tree.
+     * @throws IOException if reading fails, the file is not a valid snapshot
+     *                     or the checksum does not match.
+     */
+    public static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        load(Path path, KeyCodec<T> codec) throws IOException {
+        try (FileChannel channel = 
+                FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            
+            if (fileSize < SNAPSHOT_HEADER_SIZE + Integer.BYTES) {
+                throw new EOFException("The snapshot is truncated.");
+            }
+            
+            ByteBuffer header = 
+                    channel.map(FileChannel.MapMode.READ_ONLY, 
+                                0L, 
+                                SNAPSHOT_HEADER_SIZE);
+            int size = checkSnapshotHeader(header, codec);
+            long keyBytes = (long) size * codec.width();
+            
+            if (fileSize != SNAPSHOT_HEADER_SIZE + keyBytes + Integer.BYTES) {
+                throw new IOException(
+                        "The snapshot file size does not match its header: " +
+                        fileSize);
+            }
+            
+            CRC32 crc = new CRC32();
+            crc.update(header);
+            
+            SnapshotReader<T> reader = 
+                    new SnapshotReader<>(channel, channel, codec, crc, size);
+            OrderStatisticTree<T> tree = readSnapshot(reader);
+            
+            ByteBuffer trailer = 
+                    channel.map(FileChannel.MapMode.READ_ONLY,
+                                SNAPSHOT_HEADER_SIZE + keyBytes,
+                                Integer.BYTES);
+            checkSnapshotChecksum(trailer.getInt(0), crc);
+            return tree;
+        }
+    }
+    
+    private static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        readSnapshot(SnapshotReader<T> reader) throws IOException {
+        OrderStatisticTree<T> tree = new OrderStatisticTree<>();
+        
+        try {
+            tree.buildFromSorted(reader, reader.size, false);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        
+        return tree;
+    }
+    
+    private static void flushSnapshot(WritableByteChannel channel,
+                                      ByteBuffer buffer,
+                                      CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        
+        buffer.clear();
+    }
+    
+    private static void readFully(ReadableByteChannel channel, 
+                                  ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The snapshot is truncated.");
+            }
+        }
+        
+        buffer.flip();
+    }
+    
+    // Validates the snapshot header and returns the number of keys.
+    private static int checkSnapshotHeader(ByteBuffer header, 
+                                           KeyCodec<?> codec) 
+    throws IOException {
+        if (header.getInt(0) != SNAPSHOT_MAGIC) {
+            throw new StreamCorruptedException(
+                    "The input is not an order statistic tree snapshot.");
+        }
+        
+        if (header.getInt(4) != SNAPSHOT_VERSION) {
+            throw new StreamCorruptedException(
+                    "Unsupported snapshot version: " + header.getInt(4));
+        }
+        
+        if (header.getInt(8) != codec.width()) {
+            throw new StreamCorruptedException(
+                    "The snapshot key width " + header.getInt(8) + 
+                    " does not match the codec key width " + codec.width());
+        }
+        
+        int size = header.getInt(12);
+        
+        if (size < 0) {
+            throw new StreamCorruptedException(
+                    "The snapshot size is negative: " + size);
+        }
+        
+        return size;
+    }
+    
+    private static void checkSnapshotChecksum(int checksum, CRC32 crc) 
+    throws IOException {
+        if (checksum != (int) crc.getValue()) {
+            throw new StreamCorruptedException(
+                    "The snapshot checksum does not match.");
+        }
+    }
+    
+    // Decodes the keys of a snapshot one buffer at a time and feeds the 
+    // loaded bytes to the checksum. If 'file' is given, the keys are mapped 
+    // from it in windows of at most SNAPSHOT_WINDOW_SIZE bytes starting right
+    // after the header at the beginning of the file; otherwise 'channel' is 
+    // read from its current position through a heap buffer, which leaves it
+    // positioned at the trailer. Since Iterator cannot throw checked 
+    // exceptions, I/O errors are wrapped in UncheckedIOException.
+    private static final class SnapshotReader<T extends Comparable<? super T>>
+    implements Iterator<T> {
+        private final ReadableByteChannel channel;
+        private final FileChannel file;
+        private final KeyCodec<T> codec;
+        private final CRC32 crc;
+        private final int width;
+        private final int size;
+        private final int capacity;
+        private long position = SNAPSHOT_HEADER_SIZE;
+        private long remaining;
+        private ByteBuffer buffer;
+        private int offset;
+        
+        SnapshotReader(ReadableByteChannel channel, 
+                       FileChannel file,
+                       KeyCodec<T> codec, 
+                       CRC32 crc, 
+                       int size) {
+            this.channel = channel;
+            this.file = file;
+            this.codec = codec;
+            this.crc = crc;
+            this.width = codec.width();
+            this.size = size;
+            this.remaining = (long) size * width;
+            
+            long windowSize = file != null ?
+                              SNAPSHOT_WINDOW_SIZE :
+                              SNAPSHOT_BUFFER_SIZE;
+            
+            // Never split a key between two buffers.
+            this.capacity = (int) Math.max(width, 
+                                           windowSize - windowSize % width);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return remaining > 0L || (buffer != null && 
+                                      offset < buffer.limit());
+        }
+        
+        @Override
+        public T next() {
+            if (buffer == null || offset == buffer.limit()) {
+                if (remaining == 0L) {
+                    throw new NoSuchElementException();
+                }
+                
+                try {
+                    load();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            
+            T key = codec.read(buffer, offset);
+            offset += width;
+            return key;
+        }
+        
+        private void load() throws IOException {
+            int length = (int) Math.min(capacity, remaining);
+            
+            if (file != null) {
+                buffer = file.map(FileChannel.MapMode.READ_ONLY, 
+                                  position, 
+                                  length);
+                position += length;
+            } else {
+                if (buffer == null) {
+                    buffer = ByteBuffer.allocate(capacity);
+                }
+                
+                buffer.clear();
+                buffer.limit(length);
+                readFully(channel, buffer);
+            }
+            
+            crc.update(buffer.duplicate());
+            remaining -= length;
+            offset = 0;
+        }
+    }
+    
+    @Override
+    public boolean add(T element) {
+        if (!INSTRUMENTED) {
+            return insert(element);
+        }
+        
+        probe.beginModification();
+        boolean added = false;
+        
+        try {
+            added = insert(element);
+        } finally {
+            probe.endModification("add", size);
+        }
+        
+        return added;
+    }
+    
+    private boolean insert(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        
+        if (root == null) {
+            root = new Node<>(element);
+            size = 1;
+            modCount++;
+            return true;
+        }
+        
+        Node<T> parent = null;
+        Node<T> node = root;
+        int cmp;
+        
+        while (node != null) {
+            if (INSTRUMENTED) {
+                probe.comparisons++;
+                probe.nodesVisited++;
+            }
+            
+            cmp = element.compareTo(node.key);
+            
+            if (cmp == 0) {
+                // The element is already in this tree.
+                return false;
+            }
+            
+            parent = node;
+            
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        
+        Node<T> newnode = new Node<>(element);
+        
+        if (INSTRUMENTED) {
+            probe.comparisons++;
+        }
+        
+        if (element.compareTo(parent.key) < 0) {
+            parent.left = newnode;
+        } else {
+            parent.right = newnode;
+        }
+        
+        newnode.parent = parent;
+        size++;
+        modCount++;
+        Node<T> hi = parent;
+        Node<T> lo = newnode;
+        
+        while (hi != null) {
+            if (hi.left == lo) {
+                hi.count++;
+            }
+            
+            lo = hi;
+            hi = hi.parent;
+        }
+        
+        fixAfterModification(newnode, true);
+        return true;
     }
     
     @Override
@@ -264,7 +1220,18 @@ implements OrderStatisticSet<T> {
         Node<T> x = root;
         int cmp;
         
+        // Lookups may run concurrently, so they count their work locally.
+        Object handle = INSTRUMENTED ? probe.beginLookup() : null;
+        int visited = 0;
+        int depth = 0;
+        
         while (x != null && (cmp = element.compareTo(x.key)) != 0) {
+            if (INSTRUMENTED) {
+                visited++;
+            }
+            
+            checkDepth(++depth);
+            
             if (cmp < 0) {
                 x = x.left;
             } else {
@@ -272,16 +1239,45 @@ implements OrderStatisticSet<T> {
             }
         }
         
+        if (INSTRUMENTED) {
+            if (x != null) {
+                visited++;
+            }
+            
+            probe.endLookup(handle, "contains", size, visited, visited);
+        }
+        
         return x != null;
     }
     
     @Override
     public boolean remove(Object o) {
-        T element = (T) o;
+        if (!INSTRUMENTED) {
+            return delete((T) o);
+        }
+        
+        probe.beginModification();
+        boolean removed = false;
+        
+        try {
+            removed = delete((T) o);
+        } finally {
+            probe.endModification("remove", size);
+        }
+        
+        return removed;
+    }
+    
+    private boolean delete(T element) {
         Node<T> x = root;
         int cmp;
         
         while (x != null && (cmp = element.compareTo(x.key)) != 0) {
+            if (INSTRUMENTED) {
+                probe.comparisons++;
+                probe.nodesVisited++;
+            }
+            
             if (cmp < 0) {
                 x = x.left;
             } else {
@@ -289,83 +1285,1242 @@ implements OrderStatisticSet<T> {
             }
         }
         
-        if (x == null) {
-            return false;
+        if (x == null) {
+            return false;
+        }
+        
+        if (INSTRUMENTED) {
+            probe.comparisons++;
+            probe.nodesVisited++;
+        }
+        
+        removeNode(x);
+        return true;
+    }
+    
+    @Override
+    public T get(int index) {
+        checkIndex(index);
+        
+        if (!fingerEnabled) {
+            return nodeAt(index).key;
+        }
+        
+        Node<T> node = hasFinger() ? nodeNearFinger(index) : nodeAt(index);
+        setFinger(node, index);
+        return node.key;
+    }
+    
+    /**
+     * Enables or disables the finger of this tree. When enabled, 
+     * <code>get</code> and <code>indexOf</code> remember the node they 
+     * accessed, and the next call starts from it instead of from the root. 
+     * The search climbs from the finger only as high as needed to reach the 
+     * target, so scanning the tree by consecutive indices costs amortized 
+     * constant time per call, and nearby accesses cost time logarithmic in
+     * their distance in the typical case. Any modification of this tree
+     * invalidates the finger.
+     * <p>
+     * Since <code>get</code> and <code>indexOf</code> update the finger, they
+     * must not run concurrently while it is enabled, not even under a read
+     * lock. For that reason, {@link ConcurrentOrderStatisticSet} refuses to
+     * wrap a tree with the finger enabled, and the finger of a wrapped tree
+     * cannot be enabled.
+     * 
+     * @param enabled whether to enable the finger.
+     * @throws IllegalStateException if <code>enabled</code> is set and this
+     *                               tree is wrapped in a
+     *                               {@link ConcurrentOrderStatisticSet}.
+     */
+    public void setFingerEnabled(boolean enabled) {
+        if (enabled && shared) {
+            throw new IllegalStateException(
+                    "The tree is wrapped in a ConcurrentOrderStatisticSet.");
+        }
+        
+        fingerEnabled = enabled;
+        finger = null;
+    }
+    
+    /**
+     * Returns <code>true</code> if the finger of this tree is enabled.
+     * 
+     * @return <code>true</code> if the finger is enabled.
+     */
+    public boolean isFingerEnabled() {
+        return fingerEnabled;
+    }
+    
+    // Marks this tree as wrapped in a ConcurrentOrderStatisticSet.
+    void share() {
+        if (fingerEnabled) {
+            throw new IllegalArgumentException(
+                    "The input tree has its finger enabled.");
+        }
+        
+        shared = true;
+    }
+    
+    private boolean hasFinger() {
+        return finger != null && fingerModCount == modCount;
+    }
+    
+    private void setFinger(Node<T> node, int index) {
+        finger = node;
+        fingerIndex = index;
+        fingerModCount = modCount;
+    }
+    
+    // Returns the node with index 'index' by climbing from the finger to the
+    // lowest node whose subtree contains the index and descending from there.
+    // 'lo' is the index of the leftmost node in the subtree of 'node', and
+    // 'candidate' is the lowest node on the current chain of right children
+    // whose right subtree may contain the index; whether it does becomes known
+    // only at the first ancestor reached by a left child.
+    private Node<T> nodeNearFinger(int index) {
+        Node<T> node = finger;
+        int lo = fingerIndex - node.count;
+        Node<T> candidate = null;
+        int candidateIndex = 0;
+        
+        while (true) {
+            int nodeIndex = lo + node.count;
+            
+            if (index >= lo && index <= nodeIndex) {
+                return descendByIndex(node, lo, index);
+            }
+            
+            if (index > nodeIndex && candidate == null) {
+                candidate = node;
+                candidateIndex = nodeIndex;
+            }
+            
+            Node<T> parent = node.parent;
+            
+            if (parent == null) {
+                // The index is within the tree, hence to the right of the 
+                // candidate.
+                return descendByIndex(candidate.right, 
+                                      candidateIndex + 1, 
+                                      index);
+            }
+            
+            if (parent.left == node) {
+                // The subtree of 'node' ends right before 'parent'.
+                if (candidate != null && index < lo + parent.count) {
+                    return descendByIndex(candidate.right,
+                                          candidateIndex + 1,
+                                          index);
+                }
+                
+                candidate = null;
+            } else {
+                lo -= parent.count + 1;
+            }
+            
+            node = parent;
+        }
+    }
+    
+    // Returns the node with index 'index' in the subtree of 'node' whose 
+    // leftmost node has index 'lo'.
+    private Node<T> descendByIndex(Node<T> node, int lo, int index) {
+        while (true) {
+            int nodeIndex = lo + node.count;
+            
+            if (index < nodeIndex) {
+                node = node.left;
+            } else if (index > nodeIndex) {
+                lo = nodeIndex + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+    
+    /**
+     * Removes and returns the element with index <code>index</code>. The node
+     * is located by its rank alone, so no element comparisons are made.
+     * 
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of range.
+     */
+    public T removeAt(int index) {
+        checkIndex(index);
+        return pollNode(nodeAt(index));
+    }
+    
+    // Returns the node with a valid index 'index'.
+    private Node<T> nodeAt(int index) {
+        Node<T> node = root;
+        int depth = 0;
+        
+        while (true) {
+            checkDepth(++depth);
+            
+            if (index > node.count) { 
+                index -= node.count + 1;
+                node = node.right;
+            } else if (index < node.count) {
+                node = node.left;
+            } else {
+                return node;
+            }
+        }
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        if (fingerEnabled && hasFinger()) {
+            return indexOfNearFinger(element);
+        }
+        
+        Node<T> node = root;
+        
+        if (root == null) {
+            return -1;
+        }
+        
+        int rank = root.count;
+        int depth = 0;
+        int cmp;
+        
+        while (node != null) {
+            checkDepth(++depth);
+            
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                if (node.left == null) {
+                    return -1;
+                }
+                
+                rank -= (node.count - node.left.count);
+                node = node.left;
+            } else if (cmp > 0) {
+                if (node.right == null) {
+                    return -1;
+                }
+                
+                rank += 1 + node.right.count;
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        
+        if (node == null) {
+            return -1;
+        }
+        
+        if (fingerEnabled) {
+            setFinger(node, rank);
+        }
+        
+        return rank;
+    }
+    
+    // Climbs from the finger while 'element' may lie outside the subtree of
+    // the current node and then searches that subtree. Going up from a left
+    // child, the parent is an upper bound of the subtree; going up from a 
+    // right child, it is a lower bound. While the element lies beyond the 
+    // finger on one side, only the bound on that side needs checking.
+    private int indexOfNearFinger(T element) {
+        Node<T> node = finger;
+        int lo = fingerIndex - node.count;
+        int cmp = element.compareTo(node.key);
+        
+        if (cmp == 0) {
+            return fingerIndex;
+        }
+        
+        while (node.parent != null) {
+            Node<T> parent = node.parent;
+            boolean isLeftChild = parent.left == node;
+            
+            if (!isLeftChild) {
+                lo -= parent.count + 1;
+            }
+            
+            if (isLeftChild == (cmp > 0)) {
+                // 'parent' bounds the subtree of 'node' on the side of the
+                // element.
+                int parentCmp = element.compareTo(parent.key);
+                
+                if (parentCmp == 0) {
+                    setFinger(parent, lo + parent.count);
+                    return lo + parent.count;
+                }
+                
+                if ((parentCmp < 0) == isLeftChild) {
+                    if (!isLeftChild) {
+                        lo += parent.count + 1;
+                    }
+                    
+                    break;
+                }
+            }
+            
+            node = parent;
+        }
+        
+        return indexOfInSubtree(node, lo, element);
+    }
+    
+    // Returns the index of 'element' in the subtree of 'node' whose leftmost
+    // node has index 'lo', or -1 if it is not there. Moves the finger to the
+    // found node.
+    private int indexOfInSubtree(Node<T> node, int lo, T element) {
+        while (node != null) {
+            int cmp = element.compareTo(node.key);
+            
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                lo += node.count + 1;
+                node = node.right;
+            } else {
+                setFinger(node, lo + node.count);
+                return lo + node.count;
+            }
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public int rank(T element) {
+        return rank(element, false);
+    }
+    
+    /**
+     * Returns the elements with the indices <code>sortedIndices</code>. All
+     * the queries are served by a single descent that splits the batch at 
+     * each node, so the upper levels of the tree are visited only once.
+     * 
+     * @param sortedIndices the element indices in non-decreasing order.
+     * @return the list of the elements in the order of the indices.
+     * @throws IllegalArgumentException  if the indices are not sorted.
+     * @throws IndexOutOfBoundsException if an index is out of range.
+     */
+    public List<T> getAll(int[] sortedIndices) {
+        int length = sortedIndices.length;
+        
+        for (int i = 1; i < length; ++i) {
+            if (sortedIndices[i - 1] > sortedIndices[i]) {
+                throw new IllegalArgumentException(
+                        "The indices are not sorted at position " + i + ".");
+            }
+        }
+        
+        if (length > 0) {
+            checkIndex(sortedIndices[0]);
+            checkIndex(sortedIndices[length - 1]);
+        }
+        
+        Object[] result = new Object[length];
+        getAll(root, 0, sortedIndices, 0, length, result);
+        return asKeyList(result);
+    }
+    
+    // Returns 'keys', which holds only the keys of this tree, as a list.
+    @SuppressWarnings("unchecked")
+    private List<T> asKeyList(Object[] keys) {
+        return (List<T>) (List<?>) Arrays.asList(keys);
+    }
+    
+    /**
+     * Returns the elements at the quantiles <code>qs</code>. The 
+     * <code>q</code>-quantile is the element with the index
+     * <code>ceil(q * size()) - 1</code>, clamped to <code>0</code>, that is,
+     * the nearest-rank quantile. All the quantiles are computed by a single
+     * descent.
+     * 
+     * @param qs the quantiles within <code>[0, 1]</code> in non-decreasing
+     *           order.
+     * @return the list of the quantile elements.
+     * @throws IllegalArgumentException if a quantile is out of range or the 
+     *                                  quantiles are not sorted.
+     * @throws NoSuchElementException   if this tree is empty and at least one
+     *                                  quantile is requested.
+     */
+    public List<T> quantiles(double[] qs) {
+        int[] indices = new int[qs.length];
+        
+        for (int i = 0; i < qs.length; ++i) {
+            double q = qs[i];
+            
+            if (!(q >= 0.0 && q <= 1.0)) {
+                throw new IllegalArgumentException(
+                        "The quantile is out of range: " + q);
+            }
+            
+            indices[i] = Math.max(0, (int) Math.ceil(q * size) - 1);
+        }
+        
+        if (qs.length > 0 && size == 0) {
+            throw new NoSuchElementException("The set is empty.");
+        }
+        
+        return getAll(indices);
+    }
+    
+    /**
+     * Returns the indices of the elements <code>sortedKeys</code>. All the
+     * queries are served by a single descent that splits the batch at each
+     * node.
+     * 
+     * @param sortedKeys the query elements in non-decreasing order.
+     * @return the array of the indices, -1 standing for the absent elements.
+     * @throws IllegalArgumentException if the elements are not sorted.
+     */
+    public int[] indexOfAll(T[] sortedKeys) {
+        for (int i = 1; i < sortedKeys.length; ++i) {
+            if (sortedKeys[i - 1].compareTo(sortedKeys[i]) > 0) {
+                throw new IllegalArgumentException(
+                        "The elements are not sorted at position " + i + ".");
+            }
+        }
+        
+        int[] result = new int[sortedKeys.length];
+        indexOfAll(root, 0, sortedKeys, 0, sortedKeys.length, result);
+        return result;
+    }
+    
+    // Stores in 'result' the keys with the indices indices[from..to), all of
+    // which lie in the subtree rooted at 'node' whose smallest key has the 
+    // index 'base'.
+    private void getAll(Node<T> node, 
+                        int base, 
+                        int[] indices, 
+                        int from, 
+                        int to,
+                        Object[] result) {
+        while (from < to) {
+            int index = base + node.count;
+            int equalFrom = lowerBound(indices, from, to, index);
+            int equalTo = lowerBound(indices, equalFrom, to, index + 1);
+            
+            if (from < equalFrom) {
+                getAll(node.left, base, indices, from, equalFrom, result);
+            }
+            
+            for (int i = equalFrom; i < equalTo; ++i) {
+                result[i] = node.key;
+            }
+            
+            base = index + 1;
+            node = node.right;
+            from = equalTo;
+        }
+    }
+    
+    // Stores in 'result' the indices of keys[from..to), searching them in the
+    // subtree rooted at 'node' whose smallest key has the index 'base'.
+    private void indexOfAll(Node<T> node, 
+                            int base, 
+                            T[] keys, 
+                            int from, 
+                            int to, 
+                            int[] result) {
+        while (from < to) {
+            if (node == null) {
+                Arrays.fill(result, from, to, -1);
+                return;
+            }
+            
+            int equalFrom = keyBound(keys, from, to, node.key, false);
+            int equalTo = keyBound(keys, equalFrom, to, node.key, true);
+            
+            if (from < equalFrom) {
+                indexOfAll(node.left, base, keys, from, equalFrom, result);
+            }
+            
+            Arrays.fill(result, equalFrom, equalTo, base + node.count);
+            base += node.count + 1;
+            node = node.right;
+            from = equalTo;
+        }
+    }
+    
+    // Returns the first position within [from, to) of the sorted 'keys' whose
+    // key is greater than or equal to 'key' or, if 'strict' is set, greater
+    // than 'key'. Returns 'to' if there is none.
+    private static <T extends Comparable<? super T>> int 
+        keyBound(T[] keys, int from, int to, T key, boolean strict) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            int cmp = keys[middle].compareTo(key);
+            
+            if (cmp < 0 || (cmp == 0 && strict)) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        
+        return from;
+    }
+    
+    // Returns the first position within [from, to) of the sorted 'array' 
+    // whose value is at least 'value', or 'to' if there is none.
+    private static int lowerBound(int[] array, int from, int to, int value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            
+            if (array[middle] < value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        
+        return from;
+    }
+    
+    @Override
+    public int countInRange(T lo, 
+                            boolean loInclusive, 
+                            T hi, 
+                            boolean hiInclusive) {
+        int from = rank(lo, !loInclusive);
+        int to = rank(hi, hiInclusive);
+        return Math.max(0, to - from);
+    }
+    
+    @Override
+    public int floorIndex(T element) {
+        return rank(element, true) - 1;
+    }
+    
+    @Override
+    public int ceilingIndex(T element) {
+        int index = rank(element, false);
+        return index < size ? index : -1;
+    }
+    
+    @Override
+    public int lowerIndex(T element) {
+        return rank(element, false) - 1;
+    }
+    
+    @Override
+    public int higherIndex(T element) {
+        int index = rank(element, true);
+        return index < size ? index : -1;
+    }
+    
+    // Returns the number of elements less than 'element' or, if 'inclusive' is
+    // set, less than or equal to it.
+    private int rank(T element, boolean inclusive) {
+        Node<T> node = root;
+        int rank = 0;
+        int depth = 0;
+        int cmp;
+        
+        while (node != null) {
+            checkDepth(++depth);
+            
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += node.count + 1;
+                node = node.right;
+            } else {
+                return rank + node.count + (inclusive ? 1 : 0);
+            }
+        }
+        
+        return rank;
+    }
+    
+    // Throws if a lookup descends below any node of a valid tree.
+    private static void checkDepth(int depth) {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new ConcurrentModificationException(
+                    "The tree was modified during a lookup.");
+        }
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    @Override
+    public void clear() {
+        modCount += size;
+        root = null;
+        size = 0; 
+    }
+    
+    @Override
+    public Comparator<? super T> comparator() {
+        return null;
+    }
+    
+    @Override
+    public T first() {
+        return keyOrThrow(root == null ? null : minimumNode(root));
+    }
+    
+    @Override
+    public T last() {
+        return keyOrThrow(root == null ? null : maximumNode(root));
+    }
+    
+    @Override
+    public T lower(T element) {
+        return keyOrNull(floorNode(element, false));
+    }
+    
+    @Override
+    public T floor(T element) {
+        return keyOrNull(floorNode(element, true));
+    }
+    
+    @Override
+    public T ceiling(T element) {
+        return keyOrNull(ceilingNode(element, true));
+    }
+    
+    @Override
+    public T higher(T element) {
+        return keyOrNull(ceilingNode(element, false));
+    }
+    
+    @Override
+    public T pollFirst() {
+        return root == null ? null : pollNode(minimumNode(root));
+    }
+    
+    @Override
+    public T pollLast() {
+        return root == null ? null : pollNode(maximumNode(root));
+    }
+    
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return new SubSet(true, null, false, true, null, false, true);
+    }
+    
+    @Override
+    public NavigableSet<T> subSet(T fromElement, 
+                                  boolean fromInclusive, 
+                                  T toElement, 
+                                  boolean toInclusive) {
+        if (fromElement.compareTo(toElement) > 0) {
+            throw new IllegalArgumentException(
+                    "fromElement > toElement: " + fromElement + ", " + 
+                    toElement);
+        }
+        
+        return new SubSet(false, fromElement, fromInclusive,
+                          false, toElement, toInclusive, 
+                          false);
+    }
+    
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        Objects.requireNonNull(toElement, "The input element is null.");
+        return new SubSet(true, null, false, false, toElement, inclusive, 
+                          false);
+    }
+    
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        Objects.requireNonNull(fromElement, "The input element is null.");
+        return new SubSet(false, fromElement, inclusive, true, null, false, 
+                          false);
+    }
+    
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+    
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+    
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+    
+    /**
+     * Joins <code>left</code>, <code>pivot</code> and <code>right</code> into
+     * a new tree. All the elements of <code>left</code> must be less than
+     * <code>pivot</code>, which, in turn, must be less than all the elements
+     * of <code>right</code>. Runs in <code>O(log n)</code> time. Both input 
+     * trees are left empty.
+     * 
+     * @param <T>   the element type.
+     * @param left  the tree holding the smallest elements.
+     * @param pivot the element between the two trees.
+     * @param right the tree holding the largest elements.
+     * @return the joined tree.
+     * @throws IllegalArgumentException if the elements are not ordered as
+     *                                  described above.
+     */
+    public static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        join(OrderStatisticTree<T> left, T pivot, OrderStatisticTree<T> right) {
+        Objects.requireNonNull(pivot, "The pivot element is null.");
+        
+        if ((left.root != null && left.last().compareTo(pivot) >= 0) ||
+            (right.root != null && right.first().compareTo(pivot) <= 0)) {
+            throw new IllegalArgumentException(
+                    "The pivot " + pivot + " does not separate the trees.");
+        }
+        
+        OrderStatisticTree<T> tree = new OrderStatisticTree<>();
+        tree.root = tree.join(left.root, 
+                              left.size, 
+                              new Node<>(pivot), 
+                              right.root, 
+                              right.size);
+        tree.size = left.size + 1 + right.size;
+        left.detachAll();
+        right.detachAll();
+        return tree;
+    }
+    
+    /**
+     * Joins <code>left</code> and <code>right</code> into a new tree. All the
+     * elements of <code>left</code> must be less than all the elements of 
+     * <code>right</code>. Runs in <code>O(log n)</code> time. Both input trees 
+     * are left empty.
+     * 
+     * @param <T>   the element type.
+     * @param left  the tree holding the smallest elements.
+     * @param right the tree holding the largest elements.
+     * @return the joined tree.
+     * @throws IllegalArgumentException if the elements are not ordered as
+     *                                  described above.
+     */
+    public static <T extends Comparable<? super T>> OrderStatisticTree<T>
+        join(OrderStatisticTree<T> left, OrderStatisticTree<T> right) {
+        if (right.root == null) {
+            OrderStatisticTree<T> tree = new OrderStatisticTree<>();
+            tree.root = left.root;
+            tree.size = left.size;
+            left.detachAll();
+            return tree;
+        }
+        
+        if (left.root != null && left.last().compareTo(right.first()) >= 0) {
+            throw new IllegalArgumentException(
+                    "The trees overlap: " + left.last() + ", " + 
+                    right.first());
+        }
+        
+        return join(left, right.pollFirst(), right);
+    }
+    
+    /**
+     * Removes all the elements that are greater than or equal to 
+     * <code>element</code> from this tree and returns them in a new tree. 
+     * Runs in <code>O(log n)</code> time.
+     * 
+     * @param element the smallest element that is moved to the new tree.
+     * @return the tree holding the elements not less than 
+     *         <code>element</code>.
+     */
+    public OrderStatisticTree<T> splitAt(T element) {
+        return splitAtIndex(rank(element, false));
+    }
+    
+    /**
+     * Removes the elements with indices <code>index</code> and larger from 
+     * this tree and returns them in a new tree. Afterwards, this tree holds
+     * exactly <code>index</code> smallest elements. Runs in 
+     * <code>O(log n)</code> time.
+     * 
+     * @param index the index of the first element that is moved to the new
+     *              tree.
+     * @return the tree holding the elements with indices <code>index</code>
+     *         and larger.
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or
+     *                                   larger than the size of this tree.
+     */
+    public OrderStatisticTree<T> splitAtIndex(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException(
+                    "The split index " + index + " is out of range [0, " + 
+                    size + "].");
+        }
+        
+        SplitResult<T> result = new SplitResult<>();
+        split(root, size, index, result);
+        
+        OrderStatisticTree<T> tree = new OrderStatisticTree<>();
+        tree.root = result.rightRoot;
+        tree.size = size - index;
+        modCount += tree.size;
+        root = result.leftRoot;
+        size = index;
+        return tree;
+    }
+    
+    /**
+     * This class implements the range views of the tree. Each view is 
+     * described by its (optional) lower and upper bound in the ascending order
+     * of the tree, and by the direction of the view. All the order statistic
+     * operations are translated to the tree in logarithmic time.
+     */
+    private final class SubSet extends AbstractSet<T> 
+    implements NavigableSet<T>, OrderStatisticSet<T> {
+        
+        private final boolean fromStart;
+        private final T lo;
+        private final boolean loInclusive;
+        private final boolean toEnd;
+        private final T hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+        
+        SubSet(boolean fromStart, T lo, boolean loInclusive,
+               boolean toEnd, T hi, boolean hiInclusive,
+               boolean descending) {
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+        
+        boolean tooLow(T element) {
+            if (fromStart) {
+                return false;
+            }
+            
+            int cmp = element.compareTo(lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+        
+        boolean tooHigh(T element) {
+            if (toEnd) {
+                return false;
+            }
+            
+            int cmp = element.compareTo(hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+        
+        private boolean inRange(T element) {
+            return !tooLow(element) && !tooHigh(element);
+        }
+        
+        // Checks that 'element' may bound a nested view. An exclusive bound
+        // may coincide with an exclusive bound of this view.
+        private boolean inRange(T element, boolean inclusive) {
+            if (inclusive) {
+                return inRange(element);
+            }
+            
+            return (fromStart || element.compareTo(lo) >= 0)
+                    && (toEnd || element.compareTo(hi) <= 0);
+        }
+        
+        // The tree index of the lowest element in this view.
+        private int fromIndex() {
+            return fromStart ? 0 : OrderStatisticTree.this.rank(lo, 
+                                                                !loInclusive);
+        }
+        
+        // The tree index one past the highest element in this view.
+        private int toIndex() {
+            return toEnd ? size : OrderStatisticTree.this.rank(hi, 
+                                                               hiInclusive);
+        }
+        
+        private Node<T> absLowest() {
+            Node<T> node = fromStart ? 
+                           (root == null ? null : minimumNode(root)) :
+                           ceilingNode(lo, loInclusive);
+            
+            return node == null || tooHigh(node.key) ? null : node;
+        }
+        
+        private Node<T> absHighest() {
+            Node<T> node = toEnd ? 
+                           (root == null ? null : maximumNode(root)) :
+                           floorNode(hi, hiInclusive);
+            
+            return node == null || tooLow(node.key) ? null : node;
+        }
+        
+        private Node<T> absCeiling(T element, boolean inclusive) {
+            if (tooLow(element)) {
+                return absLowest();
+            }
+            
+            Node<T> node = ceilingNode(element, inclusive);
+            return node == null || tooHigh(node.key) ? null : node;
+        }
+        
+        private Node<T> absFloor(T element, boolean inclusive) {
+            if (tooHigh(element)) {
+                return absHighest();
+            }
+            
+            Node<T> node = floorNode(element, inclusive);
+            return node == null || tooLow(node.key) ? null : node;
+        }
+        
+        private Node<T> firstNode() {
+            return descending ? absHighest() : absLowest();
+        }
+        
+        private Node<T> lastNode() {
+            return descending ? absLowest() : absHighest();
+        }
+        
+        @Override
+        public Iterator<T> iterator() {
+            return new TreeIterator(firstNode(), descending, this);
+        }
+        
+        @Override
+        public Iterator<T> descendingIterator() {
+            return new TreeIterator(lastNode(), !descending, this);
+        }
+        
+        @Override
+        public Spliterator<T> spliterator() {
+            if (descending) {
+                return NavigableSet.super.spliterator();
+            }
+            
+            int from = fromIndex();
+            return new TreeSpliterator(from, Math.max(from, toIndex()));
+        }
+        
+        @Override
+        public int size() {
+            return Math.max(0, toIndex() - fromIndex());
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            return inRange((T) o) && OrderStatisticTree.this.contains(o);
+        }
+        
+        @Override
+        public boolean add(T element) {
+            Objects.requireNonNull(element, "The input element is null.");
+            
+            if (!inRange(element)) {
+                throw new IllegalArgumentException(
+                        "The element is out of the range of this view: " + 
+                        element);
+            }
+            
+            return OrderStatisticTree.this.add(element);
+        }
+        
+        @Override
+        public boolean remove(Object o) {
+            return inRange((T) o) && OrderStatisticTree.this.remove(o);
+        }
+        
+        @Override
+        public void clear() {
+            Iterator<T> iterator = iterator();
+            
+            while (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        
+        @Override
+        public T get(int index) {
+            int from = fromIndex();
+            int to = toIndex();
+            
+            if (index < 0) {
+                throw new IndexOutOfBoundsException(
+                        "The input index is negative: " + index);
+            }
+            
+            if (index >= to - from) {
+                throw new IndexOutOfBoundsException(
+                        "The input index is too large: " + index +
+                        ", the size of this view is " + 
+                        Math.max(0, to - from));
+            }
+            
+            return OrderStatisticTree.this.get(descending ? 
+                                               to - 1 - index : 
+                                               from + index);
+        }
+        
+        @Override
+        public int indexOf(T element) {
+            if (!inRange(element)) {
+                return -1;
+            }
+            
+            int index = OrderStatisticTree.this.indexOf(element);
+            
+            if (index < 0) {
+                return -1;
+            }
+            
+            return descending ? toIndex() - 1 - index : index - fromIndex();
+        }
+        
+        @Override
+        public int rank(T element) {
+            int from = fromIndex();
+            int to = toIndex();
+            
+            if (descending) {
+                // The elements that precede 'element' in this view are the 
+                // ones greater than it.
+                int index = OrderStatisticTree.this.rank(element, true);
+                return Math.max(0, to - Math.max(from, index));
+            }
+            
+            int index = OrderStatisticTree.this.rank(element, false);
+            return Math.max(0, Math.min(to, index) - from);
+        }
+        
+        @Override
+        public Comparator<? super T> comparator() {
+            return descending ? Collections.reverseOrder() : null;
+        }
+        
+        @Override
+        public T first() {
+            return keyOrThrow(firstNode());
+        }
+        
+        @Override
+        public T last() {
+            return keyOrThrow(lastNode());
+        }
+        
+        @Override
+        public T lower(T element) {
+            return keyOrNull(descending ? 
+                             absCeiling(element, false) : 
+                             absFloor(element, false));
+        }
+        
+        @Override
+        public T floor(T element) {
+            return keyOrNull(descending ? 
+                             absCeiling(element, true) : 
+                             absFloor(element, true));
+        }
+        
+        @Override
+        public T ceiling(T element) {
+            return keyOrNull(descending ? 
+                             absFloor(element, true) : 
+                             absCeiling(element, true));
+        }
+        
+        @Override
+        public T higher(T element) {
+            return keyOrNull(descending ? 
+                             absFloor(element, false) : 
+                             absCeiling(element, false));
+        }
+        
+        @Override
+        public T pollFirst() {
+            Node<T> node = firstNode();
+            return node == null ? null : pollNode(node);
+        }
+        
+        @Override
+        public T pollLast() {
+            Node<T> node = lastNode();
+            return node == null ? null : pollNode(node);
+        }
+        
+        @Override
+        public NavigableSet<T> descendingSet() {
+            return new SubSet(fromStart, lo, loInclusive,
+                              toEnd, hi, hiInclusive,
+                              !descending);
+        }
+        
+        @Override
+        public NavigableSet<T> subSet(T fromElement, 
+                                      boolean fromInclusive, 
+                                      T toElement, 
+                                      boolean toInclusive) {
+            if (descending) {
+                // Convert to the ascending order of the tree.
+                T tmpElement = fromElement;
+                boolean tmpInclusive = fromInclusive;
+                fromElement = toElement;
+                fromInclusive = toInclusive;
+                toElement = tmpElement;
+                toInclusive = tmpInclusive;
+            }
+            
+            if (fromElement.compareTo(toElement) > 0) {
+                throw new IllegalArgumentException(
+                        "fromElement > toElement: " + fromElement + ", " + 
+                        toElement);
+            }
+            
+            checkBound(fromElement, fromInclusive);
+            checkBound(toElement, toInclusive);
+            return new SubSet(false, fromElement, fromInclusive,
+                              false, toElement, toInclusive,
+                              descending);
+        }
+        
+        @Override
+        public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+            checkBound(toElement, inclusive);
+            
+            if (descending) {
+                return new SubSet(false, toElement, inclusive,
+                                  toEnd, hi, hiInclusive, 
+                                  true);
+            }
+            
+            return new SubSet(fromStart, lo, loInclusive,
+                              false, toElement, inclusive,
+                              false);
+        }
+        
+        @Override
+        public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+            checkBound(fromElement, inclusive);
+            
+            if (descending) {
+                return new SubSet(fromStart, lo, loInclusive,
+                                  false, fromElement, inclusive,
+                                  true);
+            }
+            
+            return new SubSet(false, fromElement, inclusive,
+                              toEnd, hi, hiInclusive,
+                              false);
+        }
+        
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+        
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return headSet(toElement, false);
+        }
+        
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return tailSet(fromElement, true);
+        }
+        
+        private void checkBound(T element, boolean inclusive) {
+            Objects.requireNonNull(element, "The input element is null.");
+            
+            if (!inRange(element, inclusive)) {
+                throw new IllegalArgumentException(
+                        "The bound is out of the range of this view: " + 
+                        element);
+            }
+        }
+    }
+    
+    private T keyOrNull(Node<T> node) {
+        return node == null ? null : node.key;
+    }
+    
+    private T keyOrThrow(Node<T> node) {
+        if (node == null) {
+            throw new NoSuchElementException("The set is empty.");
         }
         
-        x = deleteNode(x);
+        return node.key;
+    }
+    
+    private T pollNode(Node<T> node) {
+        T key = node.key;
+        removeNode(node);
+        return key;
+    }
+    
+    private void removeNode(Node<T> node) {
+        Node<T> x = deleteNode(node);
         fixAfterModification(x, false);
         size--;
         modCount++;
-        return true;
     }
     
-    @Override
-    public T get(int index) {
-        checkIndex(index);
+    // Returns the least node whose key is greater than or equal to 'element'
+    // or, if 'inclusive' is not set, strictly greater than 'element'.
+    private Node<T> ceilingNode(T element, boolean inclusive) {
         Node<T> node = root;
+        Node<T> best = null;
+        int cmp;
         
-        while (true) {
-            if (index > node.count) { 
-                index -= node.count + 1;
-                node = node.right;
-            } else if (index < node.count) {
+        while (node != null) {
+            cmp = element.compareTo(node.key);
+            
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                best = node;
+                
+                if (cmp == 0) {
+                    return best;
+                }
+                
                 node = node.left;
             } else {
-                return node.key;
+                node = node.right;
             }
         }
+        
+        return best;
     }
     
-    @Override
-    public int indexOf(T element) {
+    // Returns the greatest node whose key is less than or equal to 'element'
+    // or, if 'inclusive' is not set, strictly less than 'element'.
+    private Node<T> floorNode(T element, boolean inclusive) {
         Node<T> node = root;
-        
-        if (root == null) {
-            return -1;
-        }
-        
-        int rank = root.count;
+        Node<T> best = null;
         int cmp;
         
         while (node != null) {
-            if ((cmp = element.compareTo(node.key)) < 0) {
-                if (node.left == null) {
-                    return -1;
-                }
+            cmp = element.compareTo(node.key);
+            
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                best = node;
                 
-                rank -= (node.count - node.left.count);
-                node = node.left;
-            } else if (cmp > 0) {
-                if (node.right == null) {
-                    return -1;
+                if (cmp == 0) {
+                    return best;
                 }
                 
-                rank += 1 + node.right.count;
                 node = node.right;
             } else {
-                break;
+                node = node.left;
             }
         }
         
-        return node == null ? -1 : rank;
-    }
-    
-    @Override
-    public int size() {
-        return size;
-    }
-    
-    @Override
-    public boolean isEmpty() {
-        return size == 0;
-    }
-    
-    @Override
-    public void clear() {
-        modCount += size;
-        root = null;
-        size = 0; 
+        return best;
     }
     
     private Node<T> successorOf(Node<T> node) {
@@ -389,6 +2544,21 @@ implements OrderStatisticSet<T> {
         return parent;
     }
     
+    private Node<T> predecessorOf(Node<T> node) {
+        if (node.left != null) {
+            return maximumNode(node.left);
+        }
+        
+        Node<T> parent = node.parent;
+        
+        while (parent != null && parent.left == node) {
+            node = parent;
+            parent = parent.parent;
+        }
+        
+        return parent;
+    }
+    
     private void checkIndex(int index) {
         if (index < 0) {
             throw new IndexOutOfBoundsException(
@@ -515,6 +2685,14 @@ implements OrderStatisticSet<T> {
         
         return node;
     }
+    
+    private Node<T> maximumNode(Node<T> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        
+        return node;
+    }
      
     private int height(Node<T> node) {
         return node == null ? -1 : node.height;
@@ -570,69 +2748,566 @@ implements OrderStatisticSet<T> {
     // Fixing a deletion: use insertionMode = false.
     private void fixAfterModification(Node<T> node, boolean insertionMode) {
         Node<T> parent = node.parent;
-        Node<T> grandParent;
-        Node<T> subTree;
         
         while (parent != null) {
-            if (height(parent.left) == height(parent.right) + 2) {
-                grandParent = parent.parent;
-                
-                if (height(parent.left.left) >= height(parent.left.right)) {
-                    subTree = rightRotate(parent);
-                } else {
-                    subTree = leftRightRotate(parent);
-                }
-                
-                if (grandParent == null) {
-                    root = subTree;
-                } else if (grandParent.left == parent) {
-                    grandParent.left = subTree;
-                } else {
-                    grandParent.right = subTree;
-                }
-                
-                if (grandParent != null) {
-                    grandParent.height = Math.max(
-                            height(grandParent.left),
-                            height(grandParent.right)) + 1;
-                }
-                
-                if (insertionMode) {
-                    // Whenever fixing after insertion, at most one rotation is
-                    // required in order to maintain the balance.
-                    return;
-                }
-            } else if (height(parent.right) == height(parent.left) + 2) {
-                grandParent = parent.parent;
-                
-                if (height(parent.right.right) >= height(parent.right.left)) {
-                    subTree = leftRotate(parent);
-                } else {
-                    subTree = rightLeftRotate(parent);
-                }
-                
-                if (grandParent == null) {
-                    root = subTree;
-                } else if (grandParent.left == parent) {
-                    grandParent.left = subTree;
-                } else {
-                    grandParent.right = subTree;
-                }
-                
-                if (grandParent != null) {
-                    grandParent.height =
-                            Math.max(height(grandParent.left),
-                                     height(grandParent.right)) + 1;
-                }
-                
-                if (insertionMode) {
-                    return;
-                }
+            if (INSTRUMENTED && probe.counting) {
+                probe.rebalanceSteps++;
             }
             
-            parent.height = Math.max(height(parent.left), 
-                                     height(parent.right)) + 1;
-            parent = parent.parent;
+            Node<T> subTree = rebalance(parent);
+            
+            if (subTree.parent == null) {
+                root = subTree;
+            }
+            
+            if (subTree != parent && insertionMode) {
+                // Whenever fixing after insertion, at most one rotation is
+                // required in order to maintain the balance.
+                return;
+            }
+            
+            parent = subTree.parent;
+        }
+    }
+    
+    // Restores the AVL property at 'node' whose children are balanced and have
+    // correct heights, and links the resulting subtree to the parent of 
+    // 'node'. Returns the root of the resulting subtree.
+    private Node<T> rebalance(Node<T> node) {
+        Node<T> parent = node.parent;
+        Node<T> subTree;
+        
+        if (height(node.left) == height(node.right) + 2) {
+            if (height(node.left.left) >= height(node.left.right)) {
+                subTree = rightRotate(node);
+                countRotation(false);
+            } else {
+                subTree = leftRightRotate(node);
+                countRotation(true);
+            }
+        } else if (height(node.right) == height(node.left) + 2) {
+            if (height(node.right.right) >= height(node.right.left)) {
+                subTree = leftRotate(node);
+                countRotation(false);
+            } else {
+                subTree = rightLeftRotate(node);
+                countRotation(true);
+            }
+        } else {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+            return node;
+        }
+        
+        if (parent != null) {
+            if (parent.left == node) {
+                parent.left = subTree;
+            } else {
+                parent.right = subTree;
+            }
+        }
+        
+        return subTree;
+    }
+    
+    // Counts a rotation made by add or remove. The rotations of the bulk
+    // operations, some of which run in parallel tasks, are not counted.
+    private void countRotation(boolean isDouble) {
+        if (INSTRUMENTED && probe.counting) {
+            if (isDouble) {
+                probe.doubleRotations++;
+            } else {
+                probe.singleRotations++;
+            }
+        }
+    }
+    
+    /**
+     * Returns a snapshot of the counters of this tree. The trees are only
+     * instrumented when the system property 
+     * <code>net.coderodde.util.OrderStatisticTree.instrumented</code> is set 
+     * to <code>true</code> at startup. Each <code>add</code>, 
+     * <code>remove</code> and <code>contains</code> of an instrumented tree is
+     * also reported as the JDK Flight Recorder event 
+     * <code>net.coderodde.util.TreeOperation</code>, provided that the 
+     * library was built and runs on JDK 11 or later.
+     * 
+     * @return the statistics of this tree.
+     * @throws IllegalStateException if the instrumentation is disabled.
+     */
+    public TreeStatistics statistics() {
+        checkInstrumented();
+        return probe.snapshot();
+    }
+    
+    /**
+     * Sets all the counters of this tree to zero.
+     * 
+     * @throws IllegalStateException if the instrumentation is disabled.
+     */
+    public void resetStatistics() {
+        checkInstrumented();
+        probe.reset();
+    }
+    
+    private static void checkInstrumented() {
+        if (!INSTRUMENTED) {
+            throw new IllegalStateException(
+                    "The instrumentation is disabled. Run with " +
+                    "-Dnet.coderodde.util.OrderStatisticTree.instrumented=" +
+                    "true");
+        }
+    }
+    
+    /**
+     * Removes all the elements whose indices are within 
+     * <code>[fromIndex, toIndex)</code>. Runs in <code>O(log n)</code> time 
+     * since the removed elements are cut off as whole subtrees.
+     * 
+     * @param fromIndex the index of the first element to remove.
+     * @param toIndex   the index one past the last element to remove.
+     * @throws IndexOutOfBoundsException if <code>fromIndex</code> is negative,
+     *                                   <code>toIndex</code> is larger than 
+     *                                   the size of this tree or 
+     *                                   <code>fromIndex</code> is larger than
+     *                                   <code>toIndex</code>.
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "The range [" + fromIndex + ", " + toIndex + ") is " +
+                    "invalid, the size of this tree is " + size);
+        }
+        
+        if (fromIndex == toIndex) {
+            return;
+        }
+        
+        SplitResult<T> result = new SplitResult<>();
+        split(root, size, toIndex, result);
+        Node<T> tail = result.rightRoot;
+        split(result.leftRoot, toIndex, fromIndex, result);
+        root = join(result.leftRoot, fromIndex, tail, size - toIndex);
+        modCount += toIndex - fromIndex;
+        size -= toIndex - fromIndex;
+    }
+    
+    /**
+     * Removes all but the <code>n</code> largest elements of this tree. Runs 
+     * in <code>O(log n)</code> time.
+     * 
+     * @param n the number of the largest elements to retain.
+     * @throws IllegalArgumentException if <code>n</code> is negative.
+     */
+    public void retainTop(int n) {
+        checkRetainCount(n);
+        
+        if (n < size) {
+            removeRange(0, size - n);
+        }
+    }
+    
+    /**
+     * Removes all but the <code>n</code> smallest elements of this tree. Runs
+     * in <code>O(log n)</code> time.
+     * 
+     * @param n the number of the smallest elements to retain.
+     * @throws IllegalArgumentException if <code>n</code> is negative.
+     */
+    public void retainBottom(int n) {
+        checkRetainCount(n);
+        
+        if (n < size) {
+            removeRange(n, size);
+        }
+    }
+    
+    private static void checkRetainCount(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(
+                    "The number of elements to retain is negative: " + n);
+        }
+    }
+    
+    // Empties this tree without touching the nodes, which have been moved to
+    // another tree.
+    private void detachAll() {
+        modCount += size;
+        root = null;
+        size = 0;
+    }
+    
+    // Joins the detached subtrees 'left' and 'right' of the given sizes with 
+    // 'pivot' in between, and returns the root of the resulting subtree. Runs
+    // in time proportional to the height difference of the subtrees.
+    private Node<T> join(Node<T> left, 
+                         int leftSize,
+                         Node<T> pivot,
+                         Node<T> right,
+                         int rightSize) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        
+        if (leftHeight > rightHeight + 1) {
+            // Descend the right spine of 'left' down to a subtree that is
+            // about as high as 'right', and put 'pivot' in its place.
+            Node<T> parent = null;
+            Node<T> node = left;
+            int nodeSize = leftSize;
+            
+            while (height(node) > rightHeight + 1) {
+                nodeSize -= node.count + 1;
+                parent = node;
+                node = node.right;
+            }
+            
+            link(pivot, node, nodeSize, right);
+            parent.right = pivot;
+            pivot.parent = parent;
+            return rebalanceUpwards(pivot);
+        }
+        
+        if (rightHeight > leftHeight + 1) {
+            // Descend the left spine of 'right'. All the nodes on the way get
+            // 'left' and 'pivot' into their left subtrees.
+            Node<T> parent = null;
+            Node<T> node = right;
+            
+            while (height(node) > leftHeight + 1) {
+                node.count += leftSize + 1;
+                parent = node;
+                node = node.left;
+            }
+            
+            link(pivot, left, leftSize, node);
+            parent.left = pivot;
+            pivot.parent = parent;
+            return rebalanceUpwards(pivot);
+        }
+        
+        link(pivot, left, leftSize, right);
+        pivot.parent = null;
+        return pivot;
+    }
+    
+    // Makes 'left' and 'right' the children of 'node'.
+    private void link(Node<T> node, Node<T> left, int leftSize, Node<T> right) {
+        node.left = left;
+        node.right = right;
+        node.count = leftSize;
+        node.height = Math.max(height(left), height(right)) + 1;
+        
+        if (left != null) {
+            left.parent = node;
+        }
+        
+        if (right != null) {
+            right.parent = node;
+        }
+    }
+    
+    // Rebalances all the proper ancestors of 'node' in a detached subtree and
+    // returns the root of the subtree.
+    private Node<T> rebalanceUpwards(Node<T> node) {
+        Node<T> parent = node.parent;
+        
+        while (parent != null) {
+            node = rebalance(parent);
+            parent = node.parent;
+        }
+        
+        return node;
+    }
+    
+    // Splits the detached subtree rooted at 'node' and holding 'nodeSize'
+    // elements into the subtree of its 'index' smallest elements and the
+    // subtree of the rest.
+    private void split(Node<T> node, 
+                       int nodeSize, 
+                       int index, 
+                       SplitResult<T> result) {
+        if (node == null) {
+            result.leftRoot = null;
+            result.rightRoot = null;
+            return;
+        }
+        
+        Node<T> left = node.left;
+        Node<T> right = node.right;
+        int leftSize = node.count;
+        int rightSize = nodeSize - leftSize - 1;
+        
+        if (left != null) {
+            left.parent = null;
+        }
+        
+        if (right != null) {
+            right.parent = null;
+        }
+        
+        if (index <= leftSize) {
+            split(left, leftSize, index, result);
+            result.rightRoot = join(result.rightRoot,
+                                    leftSize - index,
+                                    node,
+                                    right,
+                                    rightSize);
+        } else {
+            int splitIndex = index - leftSize - 1;
+            split(right, rightSize, splitIndex, result);
+            result.leftRoot = join(left, 
+                                   leftSize, 
+                                   node, 
+                                   result.leftRoot, 
+                                   splitIndex);
+        }
+    }
+    
+    // Splits the detached subtree rooted at 'node' and holding 'nodeSize'
+    // elements into the subtree of elements less than 'key' and the subtree
+    // of elements greater than 'key'. The node holding 'key', if any, is 
+    // returned detached in 'result.found'.
+    private void split(Node<T> node, 
+                       int nodeSize, 
+                       T key, 
+                       SplitResult<T> result) {
+        if (node == null) {
+            result.leftRoot = null;
+            result.rightRoot = null;
+            result.leftSize = 0;
+            result.rightSize = 0;
+            result.found = null;
+            return;
+        }
+        
+        Node<T> left = node.left;
+        Node<T> right = node.right;
+        int leftSize = node.count;
+        int rightSize = nodeSize - leftSize - 1;
+        
+        if (left != null) {
+            left.parent = null;
+        }
+        
+        if (right != null) {
+            right.parent = null;
+        }
+        
+        int cmp = key.compareTo(node.key);
+        
+        if (cmp < 0) {
+            split(left, leftSize, key, result);
+            result.rightRoot = join(result.rightRoot,
+                                    result.rightSize,
+                                    node,
+                                    right,
+                                    rightSize);
+            result.rightSize += rightSize + 1;
+        } else if (cmp > 0) {
+            split(right, rightSize, key, result);
+            result.leftRoot = join(left,
+                                   leftSize,
+                                   node,
+                                   result.leftRoot,
+                                   result.leftSize);
+            result.leftSize += leftSize + 1;
+        } else {
+            node.left = null;
+            node.right = null;
+            result.leftRoot = left;
+            result.rightRoot = right;
+            result.leftSize = leftSize;
+            result.rightSize = rightSize;
+            result.found = node;
+        }
+    }
+    
+    // Joins the detached subtrees 'left' and 'right' of the given sizes, where
+    // all the keys of 'left' are less than all the keys of 'right'.
+    private Node<T> join(Node<T> left, 
+                         int leftSize, 
+                         Node<T> right, 
+                         int rightSize) {
+        if (right == null) {
+            return left;
+        }
+        
+        // Detach the minimum node of 'right' for the pivot.
+        SplitResult<T> result = new SplitResult<>();
+        split(right, rightSize, 1, result);
+        return join(left, 
+                    leftSize, 
+                    result.leftRoot, 
+                    result.rightRoot, 
+                    rightSize - 1);
+    }
+    
+    private static final class SplitResult<T> {
+        Node<T> leftRoot;
+        Node<T> rightRoot;
+        int leftSize;
+        int rightSize;
+        Node<T> found;
+    }
+    
+    private enum Operation {
+        UNION,
+        INTERSECTION,
+        DIFFERENCE
+    }
+    
+    // Replaces the contents of this tree with the result of applying 
+    // 'operation' to this tree and 'other'. The nodes of this tree are reused,
+    // 'other' is left intact.
+    private boolean apply(Operation operation, OrderStatisticTree<T> other) {
+        int oldSize = size;
+        Subtree<T> result;
+        
+        if (size + other.size >= PARALLEL_THRESHOLD) {
+            result = ForkJoinPool.commonPool().invoke(
+                    new SetOperationTask(operation, 
+                                         root, 
+                                         size, 
+                                         other.root, 
+                                         other.size));
+        } else {
+            result = apply(operation, root, size, other.root, other.size);
+        }
+        
+        root = result.root;
+        size = result.size;
+        ++modCount;
+        return size != oldSize;
+    }
+    
+    // Applies 'operation' to the detached subtree rooted at 'node1', which is
+    // consumed, and the subtree rooted at 'node2', which is only read. The 
+    // work is O(m log(n / m + 1)), where m is the size of the smaller
+    // subtree. Large subproblems are forked to the fork-join pool.
+    private Subtree<T> apply(Operation operation,
+                             Node<T> node1,
+                             int size1,
+                             Node<T> node2,
+                             int size2) {
+        if (node1 == null) {
+            return operation == Operation.UNION ? 
+                   new Subtree<>(copy(node2, null), size2) :
+                   new Subtree<>(null, 0);
+        }
+        
+        if (node2 == null) {
+            return operation == Operation.INTERSECTION ?
+                   new Subtree<>(null, 0) :
+                   new Subtree<>(node1, size1);
+        }
+        
+        SplitResult<T> split = new SplitResult<>();
+        split(node1, size1, node2.key, split);
+        
+        int leftSize2 = node2.count;
+        int rightSize2 = size2 - leftSize2 - 1;
+        Subtree<T> left;
+        Subtree<T> right;
+        
+        if (size1 + size2 >= PARALLEL_THRESHOLD) {
+            SetOperationTask leftTask = new SetOperationTask(operation,
+                                                             split.leftRoot,
+                                                             split.leftSize,
+                                                             node2.left,
+                                                             leftSize2);
+            leftTask.fork();
+            right = apply(operation,
+                          split.rightRoot,
+                          split.rightSize,
+                          node2.right,
+                          rightSize2);
+            left = leftTask.join();
+        } else {
+            left = apply(operation,
+                         split.leftRoot,
+                         split.leftSize,
+                         node2.left,
+                         leftSize2);
+            right = apply(operation,
+                          split.rightRoot,
+                          split.rightSize,
+                          node2.right,
+                          rightSize2);
+        }
+        
+        Node<T> pivot = split.found;
+        
+        if (operation == Operation.UNION && pivot == null) {
+            pivot = new Node<>(node2.key);
+        } else if (operation == Operation.DIFFERENCE) {
+            pivot = null;
+        }
+        
+        if (pivot == null) {
+            return new Subtree<>(join(left.root, 
+                                      left.size, 
+                                      right.root, 
+                                      right.size),
+                                 left.size + right.size);
+        }
+        
+        return new Subtree<>(join(left.root, 
+                                  left.size, 
+                                  pivot, 
+                                  right.root, 
+                                  right.size),
+                             left.size + 1 + right.size);
+    }
+    
+    // Returns a copy of the subtree rooted at 'node'.
+    private Node<T> copy(Node<T> node, Node<T> parent) {
+        if (node == null) {
+            return null;
+        }
+        
+        Node<T> copy = new Node<>(node.key);
+        copy.parent = parent;
+        copy.height = node.height;
+        copy.count = node.count;
+        copy.left = copy(node.left, copy);
+        copy.right = copy(node.right, copy);
+        return copy;
+    }
+    
+    private static final class Subtree<T> {
+        final Node<T> root;
+        final int size;
+        
+        Subtree(Node<T> root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+    
+    private final class SetOperationTask extends RecursiveTask<Subtree<T>> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final Operation operation;
+        private final Node<T> node1;
+        private final int size1;
+        private final Node<T> node2;
+        private final int size2;
+        
+        SetOperationTask(Operation operation,
+                         Node<T> node1,
+                         int size1,
+                         Node<T> node2,
+                         int size2) {
+            this.operation = operation;
+            this.node1 = node1;
+            this.size1 = size1;
+            this.node2 = node2;
+            this.size2 = size2;
+        }
+        
+        @Override
+        protected Subtree<T> compute() {
+            return apply(operation, node1, size1, node2, size2);
         }
     }
     
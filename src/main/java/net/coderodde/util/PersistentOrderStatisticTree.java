@@ -0,0 +1,407 @@
+package net.coderodde.util;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class implements a persistent order statistic tree based on AVL-trees.
+ * The nodes are immutable and have no parent pointers: an update copies only
+ * the nodes on the path from the root to the modified node and shares all the
+ * other nodes with the previous version. Hence, {@link #snapshot()} runs in
+ * constant time, and a snapshot is never affected by the later updates of the
+ * tree it was taken from, nor vice versa.
+ * <p>
+ * The updates are serialized on the tree object, whereas the queries and the
+ * iterators read the current version without any locking. The iterators
+ * traverse the version that was current when they were created and never
+ * throw {@link java.util.ConcurrentModificationException}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual element type.
+ */
+public class PersistentOrderStatisticTree<T extends Comparable<? super T>>
+extends AbstractSet<T> implements OrderStatisticSet<T> {
+    
+    private static final class Node<T> {
+        final T key;
+        final Node<T> left;
+        final Node<T> right;
+        final int height;
+        
+        /**
+         * The number of elements in the subtree rooted at this node.
+         */
+        final int size;
+        
+        Node(T key, Node<T> left, Node<T> right) {
+            this.key = key;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+    
+    private volatile Node<T> root;
+    
+    /**
+     * Constructs an empty persistent order statistic tree.
+     */
+    public PersistentOrderStatisticTree() {
+        
+    }
+    
+    private PersistentOrderStatisticTree(Node<T> root) {
+        this.root = root;
+    }
+    
+    /**
+     * Returns an independent copy of the current version of this tree in
+     * constant time.
+     * 
+     * @return the snapshot of this tree.
+     */
+    public PersistentOrderStatisticTree<T> snapshot() {
+        return new PersistentOrderStatisticTree<>(root);
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new TreeIterator(root);
+    }
+    
+    private final class TreeIterator implements Iterator<T> {
+        
+        // The nodes whose keys and right subtrees are yet to be visited.
+        private final Deque<Node<T>> stack = new ArrayDeque<>();
+        private T lastReturned;
+        
+        TreeIterator(Node<T> root) {
+            pushLeftSpine(root);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+        
+        @Override
+        public T next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException("Iteration exceeded.");
+            }
+            
+            Node<T> node = stack.pop();
+            pushLeftSpine(node.right);
+            lastReturned = node.key;
+            return lastReturned;
+        }
+        
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException(
+                        "There is no element to remove.");
+            }
+            
+            PersistentOrderStatisticTree.this.remove(lastReturned);
+            lastReturned = null;
+        }
+        
+        private void pushLeftSpine(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+    }
+    
+    @Override
+    public synchronized boolean add(T element) {
+        Objects.requireNonNull(element, "The input element is null.");
+        Node<T> oldRoot = root;
+        Node<T> newRoot = add(oldRoot, element);
+        
+        if (newRoot == oldRoot) {
+            return false;
+        }
+        
+        root = newRoot;
+        return true;
+    }
+    
+    @Override
+    public synchronized boolean remove(Object o) {
+        T element = (T) o;
+        Node<T> oldRoot = root;
+        Node<T> newRoot = remove(oldRoot, element);
+        
+        if (newRoot == oldRoot) {
+            return false;
+        }
+        
+        root = newRoot;
+        return true;
+    }
+    
+    @Override
+    public synchronized void clear() {
+        root = null;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        T element = (T) o;
+        Node<T> node = root;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    @Override
+    public T get(int index) {
+        Node<T> node = root;
+        checkIndex(index, size(node));
+        
+        while (true) {
+            int leftSize = size(node.left);
+            
+            if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else if (index < leftSize) {
+                node = node.left;
+            } else {
+                return node.key;
+            }
+        }
+    }
+    
+    @Override
+    public int indexOf(T element) {
+        Node<T> node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public int rank(T element) {
+        Node<T> node = root;
+        int rank = 0;
+        int cmp;
+        
+        while (node != null) {
+            if ((cmp = element.compareTo(node.key)) < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        
+        return rank;
+    }
+    
+    @Override
+    public int size() {
+        return size(root);
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+    
+    // Returns the root of the subtree 'node' with 'element' added, or 'node'
+    // itself if 'element' is already there.
+    private Node<T> add(Node<T> node, T element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+        
+        int cmp = element.compareTo(node.key);
+        
+        if (cmp < 0) {
+            Node<T> left = add(node.left, element);
+            return left == node.left ?
+                   node :
+                   balance(node.key, left, node.right);
+        }
+        
+        if (cmp > 0) {
+            Node<T> right = add(node.right, element);
+            return right == node.right ?
+                   node :
+                   balance(node.key, node.left, right);
+        }
+        
+        return node;
+    }
+    
+    // Returns the root of the subtree 'node' with 'element' removed, or 'node'
+    // itself if 'element' is not there.
+    private Node<T> remove(Node<T> node, T element) {
+        if (node == null) {
+            return null;
+        }
+        
+        int cmp = element.compareTo(node.key);
+        
+        if (cmp < 0) {
+            Node<T> left = remove(node.left, element);
+            return left == node.left ?
+                   node :
+                   balance(node.key, left, node.right);
+        }
+        
+        if (cmp > 0) {
+            Node<T> right = remove(node.right, element);
+            return right == node.right ?
+                   node :
+                   balance(node.key, node.left, right);
+        }
+        
+        if (node.left == null) {
+            return node.right;
+        }
+        
+        if (node.right == null) {
+            return node.left;
+        }
+        
+        Node<T> successor = node.right;
+        
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        
+        return balance(successor.key, node.left, removeMinimum(node.right));
+    }
+    
+    private Node<T> removeMinimum(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        
+        return balance(node.key, removeMinimum(node.left), node.right);
+    }
+    
+    // Creates a node out of 'key', 'left' and 'right' whose heights differ by
+    // at most two, rotating the new nodes if needed in order to restore the
+    // AVL property.
+    private static <T> Node<T> balance(T key, Node<T> left, Node<T> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        
+        if (leftHeight == rightHeight + 2) {
+            if (height(left.left) >= height(left.right)) {
+                // Right rotation.
+                return new Node<>(left.key,
+                                  left.left,
+                                  new Node<>(key, left.right, right));
+            }
+            
+            // Left-right rotation.
+            Node<T> pivot = left.right;
+            return new Node<>(pivot.key,
+                              new Node<>(left.key, left.left, pivot.left),
+                              new Node<>(key, pivot.right, right));
+        }
+        
+        if (rightHeight == leftHeight + 2) {
+            if (height(right.right) >= height(right.left)) {
+                // Left rotation.
+                return new Node<>(right.key,
+                                  new Node<>(key, left, right.left),
+                                  right.right);
+            }
+            
+            // Right-left rotation.
+            Node<T> pivot = right.left;
+            return new Node<>(pivot.key,
+                              new Node<>(key, left, pivot.left),
+                              new Node<>(right.key, pivot.right, right.right));
+        }
+        
+        return new Node<>(key, left, right);
+    }
+    
+    private static int height(Node<?> node) {
+        return node == null ? -1 : node.height;
+    }
+    
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static void checkIndex(int index, int size) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is negative: " + index);
+        }
+        
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "The input index is too large: " + index +
+                    ", the size of this tree is " + size);
+        }
+    }
+    
+    public boolean isHealthy() {
+        return isHealthy(root, null, null);
+    }
+    
+    // Checks the order, the balance, the heights and the sizes of the subtree
+    // rooted at 'node'. 'lo' and 'hi' are the exclusive bounds of the keys;
+    // null means no bound.
+    private boolean isHealthy(Node<T> node, T lo, T hi) {
+        if (node == null) {
+            return true;
+        }
+        
+        if ((lo != null && node.key.compareTo(lo) <= 0) ||
+            (hi != null && node.key.compareTo(hi) >= 0)) {
+            return false;
+        }
+        
+        if (Math.abs(height(node.left) - height(node.right)) > 1
+                || node.height != Math.max(height(node.left),
+                                           height(node.right)) + 1
+                || node.size != size(node.left) + size(node.right) + 1) {
+            return false;
+        }
+        
+        return isHealthy(node.left, lo, node.key)
+                && isHealthy(node.right, node.key, hi);
+    }
+}
@@ -0,0 +1,277 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This class maintains the quantiles of the most recent samples of a stream,
+ * either the last <code>N</code> samples or the samples of the last
+ * <code>T</code> time units. The samples are kept in an
+ * {@link OrderStatisticMultiset}, so equal samples need no tie-breaking, and in
+ * a ring buffer recording their arrival order, from which the oldest samples
+ * are evicted. Adding a sample and querying a quantile run in logarithmic
+ * time.
+ * <p>
+ * Once the ring buffer has grown to the window size, an update allocates
+ * nothing: the multiset reuses the node of the evicted sample for the added
+ * one. This class is not thread-safe.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ * @param <T> the actual sample type.
+ */
+public class SlidingWindowQuantiles<T extends Comparable<? super T>> {
+    
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+    
+    private final OrderStatisticMultiset<T> samples =
+            new OrderStatisticMultiset<>();
+    
+    /**
+     * The maximum number of samples in the window.
+     */
+    private final int maximumSize;
+    
+    /**
+     * The maximum age of a sample in nanoseconds, or
+     * <code>Long.MAX_VALUE</code> for the count-based windows.
+     */
+    private final long maximumAge;
+    
+    private final LongSupplier clock;
+    
+    /**
+     * The ring buffer of the samples in arrival order.
+     */
+    private Object[] values;
+    
+    /**
+     * The arrival times of the samples, or <code>null</code> for the
+     * count-based windows.
+     */
+    private long[] timestamps;
+    
+    /**
+     * The index of the oldest sample in the ring buffer.
+     */
+    private int head;
+    
+    private int size;
+    
+    private SlidingWindowQuantiles(int maximumSize,
+                                   long maximumAge,
+                                   LongSupplier clock) {
+        this.maximumSize = maximumSize;
+        this.maximumAge = maximumAge;
+        this.clock = clock;
+        this.values = new Object[Math.min(maximumSize, INITIAL_CAPACITY)];
+        this.timestamps = clock == null ? null : new long[values.length];
+    }
+    
+    /**
+     * Creates a window over the last <code>capacity</code> samples.
+     * 
+     * @param <T>      the sample type.
+     * @param capacity the number of samples in a full window.
+     * @return the sliding window.
+     * @throws IllegalArgumentException if <code>capacity</code> is not
+     *                                  positive.
+     */
+    public static <T extends Comparable<? super T>> SlidingWindowQuantiles<T>
+        ofCount(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "The capacity is not positive: " + capacity);
+        }
+        
+        return new SlidingWindowQuantiles<>(capacity, Long.MAX_VALUE, null);
+    }
+    
+    /**
+     * Creates a window over the samples added during the last
+     * <code>duration</code> time units as measured by
+     * <code>System.nanoTime()</code>.
+     * 
+     * @param <T>      the sample type.
+     * @param duration the length of the window.
+     * @param unit     the time unit of <code>duration</code>.
+     * @return the sliding window.
+     * @throws IllegalArgumentException if <code>duration</code> is not
+     *                                  positive.
+     */
+    public static <T extends Comparable<? super T>> SlidingWindowQuantiles<T>
+        ofDuration(long duration, TimeUnit unit) {
+        return ofDuration(duration, unit, System::nanoTime);
+    }
+    
+    /**
+     * Creates a window over the samples added during the last
+     * <code>duration</code> time units as measured by <code>clock</code>,
+     * which must return monotonically non-decreasing nanoseconds.
+     * 
+     * @param <T>      the sample type.
+     * @param duration the length of the window.
+     * @param unit     the time unit of <code>duration</code>.
+     * @param clock    the nanosecond clock.
+     * @return the sliding window.
+     * @throws IllegalArgumentException if <code>duration</code> is not
+     *                                  positive.
+     */
+    public static <T extends Comparable<? super T>> SlidingWindowQuantiles<T>
+        ofDuration(long duration, TimeUnit unit, LongSupplier clock) {
+        Objects.requireNonNull(unit, "The input time unit is null.");
+        Objects.requireNonNull(clock, "The input clock is null.");
+        
+        if (duration <= 0L) {
+            throw new IllegalArgumentException(
+                    "The duration is not positive: " + duration);
+        }
+        
+        return new SlidingWindowQuantiles<>(MAXIMUM_CAPACITY,
+                                            unit.toNanos(duration),
+                                            clock);
+    }
+    
+    /**
+     * Adds <code>sample</code> to this window, evicting the samples that fall
+     * out of it.
+     * 
+     * @param sample the sample to add.
+     */
+    public void add(T sample) {
+        Objects.requireNonNull(sample, "The input sample is null.");
+        long now = 0L;
+        
+        if (timestamps != null) {
+            now = clock.getAsLong();
+            evictExpired(now);
+        }
+        
+        if (size == maximumSize) {
+            evictOldest();
+        } else if (size == values.length) {
+            grow();
+        }
+        
+        int tail = index(size);
+        values[tail] = sample;
+        
+        if (timestamps != null) {
+            timestamps[tail] = now;
+        }
+        
+        size++;
+        samples.add(sample);
+    }
+    
+    /**
+     * Returns the <code>q</code>-quantile of the samples in this window. The
+     * quantile is the sample of the nearest rank
+     * <code>max(0, ceil(q * size()) - 1)</code>.
+     * 
+     * @param q the quantile within <code>[0, 1]</code>.
+     * @return the <code>q</code>-quantile.
+     * @throws IllegalArgumentException if <code>q</code> is out of range.
+     * @throws NoSuchElementException   if this window is empty.
+     */
+    public T quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0)) {
+            throw new IllegalArgumentException(
+                    "The quantile is out of range: " + q);
+        }
+        
+        if (isEmpty()) {
+            throw new NoSuchElementException("The window is empty.");
+        }
+        
+        return samples.get(Math.max(0, (int) Math.ceil(q * size) - 1));
+    }
+    
+    /**
+     * Returns the median of the samples in this window.
+     * 
+     * @return the median.
+     * @throws NoSuchElementException if this window is empty.
+     */
+    public T median() {
+        return quantile(0.5);
+    }
+    
+    /**
+     * Returns the number of samples in this window.
+     * 
+     * @return the number of samples.
+     */
+    public int size() {
+        if (timestamps != null) {
+            evictExpired(clock.getAsLong());
+        }
+        
+        return size;
+    }
+    
+    /**
+     * Returns <code>true</code> if this window holds no samples.
+     * 
+     * @return <code>true</code> if this window is empty.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    /**
+     * Removes all the samples from this window.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        samples.clear();
+        head = 0;
+        size = 0;
+    }
+    
+    private void evictExpired(long now) {
+        while (size > 0 && now - timestamps[head] >= maximumAge) {
+            evictOldest();
+        }
+    }
+    
+    private void evictOldest() {
+        T sample = (T) values[head];
+        values[head] = null;
+        head = index(1);
+        size--;
+        samples.remove(sample);
+    }
+    
+    // Returns the ring buffer index of the 'offset'th oldest sample.
+    private int index(int offset) {
+        int index = head + offset;
+        return index < values.length ? index : index - values.length;
+    }
+    
+    private void grow() {
+        int capacity = (int) Math.min((long) values.length * 2, maximumSize);
+        Object[] newValues = new Object[capacity];
+        
+        for (int i = 0; i < size; ++i) {
+            newValues[i] = values[index(i)];
+        }
+        
+        if (timestamps != null) {
+            long[] newTimestamps = new long[capacity];
+            
+            for (int i = 0; i < size; ++i) {
+                newTimestamps[i] = timestamps[index(i)];
+            }
+            
+            timestamps = newTimestamps;
+        }
+        
+        values = newValues;
+        head = 0;
+    }
+}
@@ -0,0 +1,80 @@
+package net.coderodde.util;
+
+/**
+ * This interface defines how an instrumented {@link OrderStatisticTree}
+ * reports its operations to a profiler. The JDK Flight Recorder
+ * implementation is compiled separately on JDK 11 and later, so that the rest
+ * of the library builds and runs on Java 8; {@link #load()} falls back to
+ * a recorder dropping all the operations when it is not available.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+interface TreeOperationRecorder {
+    
+    /**
+     * Starts timing an operation.
+     * 
+     * @return the handle of the operation.
+     */
+    Object begin();
+    
+    /**
+     * Finishes and reports the operation started by {@link #begin()}.
+     * 
+     * @param handle          the handle returned by <code>begin</code>.
+     * @param operation       the name of the operation.
+     * @param size            the size of the tree after the operation.
+     * @param comparisons     the number of comparisons.
+     * @param nodesVisited    the number of visited nodes.
+     * @param singleRotations the number of single rotations.
+     * @param doubleRotations the number of double rotations.
+     * @param rebalanceSteps  the length of the rebalancing walk.
+     */
+    void end(Object handle,
+             String operation,
+             int size,
+             long comparisons,
+             long nodesVisited,
+             long singleRotations,
+             long doubleRotations,
+             long rebalanceSteps);
+    
+    /**
+     * Returns the JDK Flight Recorder recorder if it was compiled and the
+     * running JVM provides <code>jdk.jfr</code>, and otherwise a recorder
+     * dropping all the operations.
+     * 
+     * @return the recorder.
+     */
+    static TreeOperationRecorder load() {
+        try {
+            return (TreeOperationRecorder) 
+                    Class.forName(TreeOperationRecorder.class.getPackage()
+                                                             .getName() +
+                                  ".FlightRecorderTreeOperationRecorder")
+                         .getDeclaredConstructor()
+                         .newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return new TreeOperationRecorder() {
+                
+                @Override
+                public Object begin() {
+                    return null;
+                }
+                
+                @Override
+                public void end(Object handle,
+                                String operation,
+                                int size,
+                                long comparisons,
+                                long nodesVisited,
+                                long singleRotations,
+                                long doubleRotations,
+                                long rebalanceSteps) {
+                    
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package net.coderodde.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class accumulates the counters of an instrumented
+ * {@link OrderStatisticTree} and reports each operation to the
+ * {@link TreeOperationRecorder}. The modifying operations are never concurrent,
+ * so the tree counts their work directly in the scratch fields of this probe,
+ * but only while <code>counting</code> is set: the rotations and rebalancing
+ * walks of the bulk operations, some of which run in parallel tasks, and of
+ * the iterator and view removals are not counted.
+ * The lookups may run concurrently, for example under the read lock of
+ * {@link ConcurrentOrderStatisticSet}, so they count their work locally and
+ * keep their own events.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class TreeProbe {
+    
+    // Whether a modifying operation is in progress, and its work.
+    boolean counting;
+    long comparisons;
+    long nodesVisited;
+    long singleRotations;
+    long doubleRotations;
+    long rebalanceSteps;
+    
+    private static final TreeOperationRecorder RECORDER = 
+            TreeOperationRecorder.load();
+    
+    private Object handle;
+    
+    private final LongAdder totalOperations = new LongAdder();
+    private final LongAdder totalComparisons = new LongAdder();
+    private final LongAdder totalNodesVisited = new LongAdder();
+    private final LongAdder totalSingleRotations = new LongAdder();
+    private final LongAdder totalDoubleRotations = new LongAdder();
+    private final LongAdder totalRebalanceSteps = new LongAdder();
+    private final LongAccumulator maximumNodesVisited =
+            new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator maximumRebalanceSteps =
+            new LongAccumulator(Math::max, 0L);
+    
+    void beginModification() {
+        comparisons = 0L;
+        nodesVisited = 0L;
+        singleRotations = 0L;
+        doubleRotations = 0L;
+        rebalanceSteps = 0L;
+        handle = beginLookup();
+        counting = true;
+    }
+    
+    void endModification(String operation, int size) {
+        counting = false;
+        record(handle,
+               operation,
+               size,
+               comparisons,
+               nodesVisited,
+               singleRotations,
+               doubleRotations,
+               rebalanceSteps);
+        handle = null;
+    }
+    
+    Object beginLookup() {
+        return RECORDER.begin();
+    }
+    
+    void endLookup(Object lookupHandle,
+                   String operation,
+                   int size,
+                   long comparisons,
+                   long nodesVisited) {
+        record(lookupHandle,
+               operation,
+               size,
+               comparisons,
+               nodesVisited,
+               0L,
+               0L,
+               0L);
+    }
+    
+    TreeStatistics snapshot() {
+        return new TreeStatistics(totalOperations.sum(),
+                                  totalComparisons.sum(),
+                                  totalNodesVisited.sum(),
+                                  maximumNodesVisited.get(),
+                                  totalSingleRotations.sum(),
+                                  totalDoubleRotations.sum(),
+                                  totalRebalanceSteps.sum(),
+                                  maximumRebalanceSteps.get());
+    }
+    
+    void reset() {
+        totalOperations.reset();
+        totalComparisons.reset();
+        totalNodesVisited.reset();
+        totalSingleRotations.reset();
+        totalDoubleRotations.reset();
+        totalRebalanceSteps.reset();
+        maximumNodesVisited.reset();
+        maximumRebalanceSteps.reset();
+    }
+    
+    private void record(Object handle,
+                        String operation,
+                        int size,
+                        long comparisons,
+                        long nodesVisited,
+                        long singleRotations,
+                        long doubleRotations,
+                        long rebalanceSteps) {
+        totalOperations.increment();
+        totalComparisons.add(comparisons);
+        totalNodesVisited.add(nodesVisited);
+        totalSingleRotations.add(singleRotations);
+        totalDoubleRotations.add(doubleRotations);
+        totalRebalanceSteps.add(rebalanceSteps);
+        maximumNodesVisited.accumulate(nodesVisited);
+        maximumRebalanceSteps.accumulate(rebalanceSteps);
+        
+        RECORDER.end(handle,
+                     operation,
+                     size,
+                     comparisons,
+                     nodesVisited,
+                     singleRotations,
+                     doubleRotations,
+                     rebalanceSteps);
+    }
+}
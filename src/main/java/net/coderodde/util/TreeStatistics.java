@@ -0,0 +1,125 @@
+package net.coderodde.util;
+
+/**
+ * This class holds a snapshot of the counters of an instrumented
+ * {@link OrderStatisticTree}. The counters cover the operations
+ * <code>add</code>, <code>remove</code> and <code>contains</code>.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+public final class TreeStatistics {
+    
+    private final long operations;
+    private final long comparisons;
+    private final long nodesVisited;
+    private final long maximumNodesVisited;
+    private final long singleRotations;
+    private final long doubleRotations;
+    private final long rebalanceSteps;
+    private final long maximumRebalanceSteps;
+    
+    TreeStatistics(long operations,
+                   long comparisons,
+                   long nodesVisited,
+                   long maximumNodesVisited,
+                   long singleRotations,
+                   long doubleRotations,
+                   long rebalanceSteps,
+                   long maximumRebalanceSteps) {
+        this.operations = operations;
+        this.comparisons = comparisons;
+        this.nodesVisited = nodesVisited;
+        this.maximumNodesVisited = maximumNodesVisited;
+        this.singleRotations = singleRotations;
+        this.doubleRotations = doubleRotations;
+        this.rebalanceSteps = rebalanceSteps;
+        this.maximumRebalanceSteps = maximumRebalanceSteps;
+    }
+    
+    /**
+     * Returns the number of instrumented operations.
+     * 
+     * @return the number of operations.
+     */
+    public long getOperations() {
+        return operations;
+    }
+    
+    /**
+     * Returns the number of calls to <code>compareTo</code>.
+     * 
+     * @return the number of comparisons.
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+    
+    /**
+     * Returns the number of nodes visited while descending the tree.
+     * 
+     * @return the number of visited nodes.
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+    
+    /**
+     * Returns the largest number of nodes visited by a single operation.
+     * 
+     * @return the maximum number of visited nodes per operation.
+     */
+    public long getMaximumNodesVisited() {
+        return maximumNodesVisited;
+    }
+    
+    /**
+     * Returns the number of single rotations.
+     * 
+     * @return the number of single rotations.
+     */
+    public long getSingleRotations() {
+        return singleRotations;
+    }
+    
+    /**
+     * Returns the number of double rotations, each counted once.
+     * 
+     * @return the number of double rotations.
+     */
+    public long getDoubleRotations() {
+        return doubleRotations;
+    }
+    
+    /**
+     * Returns the number of ancestors checked for balance after insertions
+     * and deletions.
+     * 
+     * @return the total length of the rebalancing walks.
+     */
+    public long getRebalanceSteps() {
+        return rebalanceSteps;
+    }
+    
+    /**
+     * Returns the length of the longest rebalancing walk of a single
+     * operation.
+     * 
+     * @return the maximum length of a rebalancing walk.
+     */
+    public long getMaximumRebalanceSteps() {
+        return maximumRebalanceSteps;
+    }
+    
+    @Override
+    public String toString() {
+        return "[operations: " + operations +
+               ", comparisons: " + comparisons +
+               ", nodes visited: " + nodesVisited +
+               " (max " + maximumNodesVisited + ")" +
+               ", single rotations: " + singleRotations +
+               ", double rotations: " + doubleRotations +
+               ", rebalance steps: " + rebalanceSteps +
+               " (max " + maximumRebalanceSteps + ")]";
+    }
+}
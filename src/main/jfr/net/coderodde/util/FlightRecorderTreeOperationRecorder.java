@@ -0,0 +1,44 @@
+package net.coderodde.util;
+
+/**
+ * This class reports the operations of the instrumented trees as
+ * {@link TreeOperationEvent}s. It is loaded reflectively by
+ * {@link TreeOperationRecorder#load()}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+final class FlightRecorderTreeOperationRecorder 
+implements TreeOperationRecorder {
+    
+    @Override
+    public Object begin() {
+        TreeOperationEvent event = new TreeOperationEvent();
+        event.begin();
+        return event;
+    }
+    
+    @Override
+    public void end(Object handle,
+                    String operation,
+                    int size,
+                    long comparisons,
+                    long nodesVisited,
+                    long singleRotations,
+                    long doubleRotations,
+                    long rebalanceSteps) {
+        TreeOperationEvent event = (TreeOperationEvent) handle;
+        event.end();
+        
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.size = size;
+            event.comparisons = comparisons;
+            event.nodesVisited = nodesVisited;
+            event.singleRotations = singleRotations;
+            event.doubleRotations = doubleRotations;
+            event.rebalanceSteps = rebalanceSteps;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package net.coderodde.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This class is the JDK Flight Recorder event of a single <code>add</code>,
+ * <code>remove</code> or <code>contains</code> of an instrumented
+ * {@link OrderStatisticTree}. By default, only the operations lasting at least
+ * 10 microseconds are recorded; set the threshold of
+ * <code>net.coderodde.util.TreeOperation</code> to <code>0 ns</code> in the
+ * recording settings in order to record all of them.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.6 (Oct 17, 2026)
+ */
+@Name("net.coderodde.util.TreeOperation")
+@Label("Tree Operation")
+@Category("Order Statistic Tree")
+@Description("An operation of an instrumented order statistic tree")
+@Threshold("10 us")
+@StackTrace(false)
+final class TreeOperationEvent extends Event {
+    
+    @Label("Operation")
+    String operation;
+    
+    @Label("Size")
+    @Description("The size of the tree after the operation")
+    int size;
+    
+    @Label("Comparisons")
+    long comparisons;
+    
+    @Label("Nodes Visited")
+    long nodesVisited;
+    
+    @Label("Single Rotations")
+    long singleRotations;
+    
+    @Label("Double Rotations")
+    long doubleRotations;
+    
+    @Label("Rebalance Steps")
+    @Description("The number of ancestors checked for balance")
+    long rebalanceSteps;
+}
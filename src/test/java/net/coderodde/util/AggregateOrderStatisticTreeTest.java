@@ -0,0 +1,183 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AggregateOrderStatisticTreeTest {
+    
+    private final AggregateOrderStatisticTree<Integer, Long> tree =
+            new AggregateOrderStatisticTree<>(i -> (long) i,
+                                              Monoid.of(0L, Long::sum));
+    
+    private final TreeSet<Integer> set = new TreeSet<>();
+    
+    @Test
+    public void testSumsAgainstTreeSet() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testSumsAgainstTreeSet - seed: " + seed);
+        
+        for (int i = 0; i < 5000; ++i) {
+            int number = random.nextInt(1000);
+            
+            if (random.nextBoolean()) {
+                assertEquals(set.add(number), tree.add(number));
+            } else {
+                assertEquals(set.remove(number), tree.remove(number));
+            }
+            
+            assertEquals(set.size(), tree.size());
+            assertEquals(sum(set), (long) tree.aggregate());
+        }
+        
+        assertTrue(tree.isHealthy());
+        List<Integer> list = new ArrayList<>(set);
+        assertEquals(list, new ArrayList<>(tree));
+        
+        for (int i = 0; i < 1000; ++i) {
+            int from = random.nextInt(list.size() + 1);
+            int to = from + random.nextInt(list.size() - from + 1);
+            assertEquals(sum(list.subList(from, to)),
+                         (long) tree.aggregate(from, to));
+            
+            int lo = random.nextInt(1100) - 50;
+            int hi = lo + random.nextInt(200);
+            boolean loInclusive = random.nextBoolean();
+            boolean hiInclusive = random.nextBoolean();
+            assertEquals(sum(set.subSet(lo, loInclusive, hi, hiInclusive)),
+                         (long) tree.aggregate(lo, loInclusive,
+                                               hi, hiInclusive));
+        }
+        
+        assertEquals(0L, (long) tree.aggregate(5, true, 3, true));
+    }
+    
+    @Test
+    public void testNonCommutativeMonoidKeepsOrder() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testNonCommutativeMonoidKeepsOrder - seed: " +
+                           seed);
+        
+        Monoid<String> monoid = Monoid.of("", String::concat);
+        AggregateOrderStatisticTree<Integer, String> concatenation =
+                new AggregateOrderStatisticTree<>(i -> i + ",", monoid);
+        
+        for (int i = 0; i < 2000; ++i) {
+            int number = random.nextInt(300);
+            
+            if (random.nextInt(3) > 0) {
+                set.add(number);
+                concatenation.add(number);
+            } else {
+                set.remove(number);
+                concatenation.remove(number);
+            }
+        }
+        
+        Iterator<Integer> iterator = concatenation.iterator();
+        
+        while (iterator.hasNext()) {
+            if (random.nextInt(4) == 0) {
+                set.remove(iterator.next());
+                iterator.remove();
+            } else {
+                iterator.next();
+            }
+        }
+        
+        assertTrue(concatenation.isHealthy());
+        List<Integer> list = new ArrayList<>(set);
+        
+        for (int i = 0; i < 200; ++i) {
+            int from = random.nextInt(list.size() + 1);
+            int to = from + random.nextInt(list.size() - from + 1);
+            StringBuilder expected = new StringBuilder();
+            
+            for (Integer number : list.subList(from, to)) {
+                expected.append(number).append(',');
+            }
+            
+            assertEquals(expected.toString(),
+                         concatenation.aggregate(from, to));
+        }
+    }
+    
+    @Test
+    public void testMaximum() {
+        AggregateOrderStatisticTree<Integer, Integer> maximum =
+                new AggregateOrderStatisticTree<>(i -> i % 100,
+                                                  Monoid.of(Integer.MIN_VALUE,
+                                                            Math::max));
+        
+        for (int i = 0; i < 1000; ++i) {
+            maximum.add(i);
+        }
+        
+        assertEquals(Integer.valueOf(99), maximum.aggregate());
+        assertEquals(Integer.valueOf(49), maximum.aggregate(0, 50));
+        assertEquals(Integer.valueOf(19), maximum.aggregate(110, true,
+                                                            120, false));
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE),
+                     maximum.aggregate(10, 10));
+    }
+    
+    @Test
+    public void testMapsEachElementOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        AggregateOrderStatisticTree<Integer, Long> counting =
+                new AggregateOrderStatisticTree<>(i -> {
+                    calls.incrementAndGet();
+                    return (long) i;
+                }, Monoid.of(0L, Long::sum));
+        
+        for (int i = 0; i < 1000; ++i) {
+            counting.add(i);
+            counting.add(i);
+        }
+        
+        // Removing the inner elements moves the keys of their successors, 
+        // along with the values.
+        for (int i = 0; i < 1000; i += 3) {
+            counting.remove(i);
+        }
+        
+        long expected = 0L;
+        
+        for (int i = 0; i < 1000; ++i) {
+            if (i % 3 != 0) {
+                expected += i;
+            }
+        }
+        
+        assertEquals(expected, (long) counting.aggregate());
+        assertEquals(expected - 1L - 2L, 
+                     (long) counting.aggregate(2, counting.size()));
+        assertEquals(1000, calls.get());
+        assertTrue(counting.isHealthy());
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAggregateThrowsOnBadRange() {
+        tree.add(1);
+        tree.aggregate(0, 2);
+    }
+    
+    private static long sum(Iterable<Integer> numbers) {
+        long sum = 0L;
+        
+        for (Integer number : numbers) {
+            sum += number;
+        }
+        
+        return sum;
+    }
+}
@@ -0,0 +1,157 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Before;
+
+public class ArrayOrderStatisticTreeTest {
+    
+    private final ArrayOrderStatisticTree<Integer> tree =
+            new ArrayOrderStatisticTree<>(0);
+    
+    private final TreeSet<Integer> set = new TreeSet<>();
+    
+    @Before
+    public void before() {
+        tree.clear();
+        set.clear();
+    }
+    
+    @Test
+    public void testAddContainsRemove() {
+        for (int i = 10; i < 300; i += 2) {
+            assertEquals(set.add(i), tree.add(i));
+            assertEquals(set.add(i), tree.add(i));
+            assertTrue(tree.isHealthy());
+        }
+        
+        for (int i = 0; i < 320; i += 3) {
+            assertEquals(set.remove(i), tree.remove(i));
+            assertTrue(tree.isHealthy());
+        }
+        
+        for (int i = 0; i < 320; ++i) {
+            assertEquals(set.contains(i), tree.contains(i));
+        }
+        
+        assertEquals(set.size(), tree.size());
+    }
+    
+    @Test
+    public void testBruteForce() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("ArrayOrderStatisticTreeTest.testBruteForce: " +
+                           "seed = " + seed);
+        
+        for (int i = 0; i < 20_000; ++i) {
+            int key = random.nextInt(3000);
+            
+            if (random.nextInt(3) > 0) {
+                assertEquals(set.add(key), tree.add(key));
+            } else {
+                assertEquals(set.remove(key), tree.remove(key));
+            }
+        }
+        
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        int index = 0;
+        
+        for (Integer key : set) {
+            assertEquals(key, tree.get(index));
+            assertEquals(index, tree.indexOf(key));
+            assertEquals(-1, tree.indexOf(-key - 1));
+            assertEquals(index, tree.rank(key));
+            assertEquals(index + 1, tree.rank(key + 1));
+            index++;
+        }
+        
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+    }
+    
+    @Test
+    public void testSlotsAreRecycled() {
+        for (int round = 0; round < 5; ++round) {
+            for (int i = 0; i < 100; ++i) {
+                assertTrue(tree.add(i));
+            }
+            
+            for (int i = 0; i < 100; ++i) {
+                assertTrue(tree.remove(i));
+            }
+        }
+        
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.isHealthy());
+    }
+    
+    @Test
+    public void testTrimToSize() {
+        for (int i = 0; i < 1000; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        for (int i = 0; i < 1000; i += 2) {
+            set.remove(i);
+            tree.remove(i);
+        }
+        
+        tree.trimToSize();
+        assertTrue(tree.isHealthy());
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+        
+        set.add(-5);
+        tree.add(-5);
+        assertTrue(tree.isHealthy());
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+        
+        tree.clear();
+        tree.trimToSize();
+        assertTrue(tree.add(1));
+        assertEquals(Integer.valueOf(1), tree.get(0));
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        for (int i = 0; i < 1000; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator1 = set.iterator();
+        Iterator<Integer> iterator2 = tree.iterator();
+        
+        while (iterator1.hasNext()) {
+            assertTrue(iterator2.hasNext());
+            Integer key = iterator1.next();
+            assertEquals(key, iterator2.next());
+            
+            if (key % 3 != 1) {
+                iterator1.remove();
+                iterator2.remove();
+            }
+        }
+        
+        assertFalse(iterator2.hasNext());
+        assertTrue(tree.isHealthy());
+        assertEquals(set, tree);
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorConcurrentModification() {
+        tree.add(1);
+        tree.add(2);
+        Iterator<Integer> iterator = tree.iterator();
+        tree.remove(1);
+        iterator.next();
+    }
+}
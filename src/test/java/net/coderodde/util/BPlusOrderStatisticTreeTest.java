@@ -0,0 +1,154 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BPlusOrderStatisticTreeTest {
+    
+    private final TreeSet<Integer> set = new TreeSet<>();
+    
+    @Test
+    public void testBruteForceSmallDegree() {
+        bruteForce(new BPlusOrderStatisticTree<>(4), 500);
+    }
+    
+    @Test
+    public void testBruteForceOddDegree() {
+        bruteForce(new BPlusOrderStatisticTree<>(7), 2000);
+    }
+    
+    @Test
+    public void testBruteForceDefaultDegree() {
+        bruteForce(new BPlusOrderStatisticTree<>(), 20_000);
+    }
+    
+    private void bruteForce(BPlusOrderStatisticTree<Integer> tree, 
+                            int range) {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("BPlusOrderStatisticTreeTest.bruteForce: " +
+                           "seed = " + seed);
+        
+        for (int i = 0; i < 20 * range; ++i) {
+            int key = random.nextInt(range);
+            
+            if (random.nextInt(5) < 3) {
+                assertEquals(set.add(key), tree.add(key));
+            } else {
+                assertEquals(set.remove(key), tree.remove(key));
+            }
+            
+            if (i % 97 == 0) {
+                assertTrue(tree.isHealthy());
+            }
+        }
+        
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        int index = 0;
+        
+        for (Integer key : set) {
+            assertEquals(key, tree.get(index));
+            assertEquals(index, tree.indexOf(key));
+            assertEquals(-1, tree.indexOf(-key - 1));
+            assertEquals(index, tree.rank(key));
+            assertEquals(index + 1, tree.rank(key + 1));
+            assertEquals(-1, tree.indexOf(key + range));
+            index++;
+        }
+        
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+        
+        for (int i = 0; i < range; ++i) {
+            assertEquals(set.remove(i), tree.remove(i));
+        }
+        
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.isHealthy());
+    }
+    
+    @Test
+    public void testAscendingAndDescendingInsertions() {
+        BPlusOrderStatisticTree<Integer> tree = 
+                new BPlusOrderStatisticTree<>(5);
+        
+        for (int i = 0; i < 1000; ++i) {
+            assertTrue(tree.add(i));
+            assertTrue(tree.add(-i - 1));
+            assertFalse(tree.add(i));
+        }
+        
+        assertTrue(tree.isHealthy());
+        
+        for (int i = 0; i < tree.size(); ++i) {
+            assertEquals(Integer.valueOf(i - 1000), tree.get(i));
+        }
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        BPlusOrderStatisticTree<Integer> tree = 
+                new BPlusOrderStatisticTree<>(4);
+        
+        for (int i = 0; i < 1000; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator1 = set.iterator();
+        Iterator<Integer> iterator2 = tree.iterator();
+        
+        while (iterator1.hasNext()) {
+            assertTrue(iterator2.hasNext());
+            Integer key = iterator1.next();
+            assertEquals(key, iterator2.next());
+            
+            if (key % 7 != 3) {
+                iterator1.remove();
+                iterator2.remove();
+                
+                try {
+                    iterator2.remove();
+                    fail("iterator2 should have thrown an exception.");
+                } catch (IllegalStateException ex) {
+                    
+                }
+            }
+        }
+        
+        assertFalse(iterator2.hasNext());
+        assertTrue(tree.isHealthy());
+        assertEquals(set, tree);
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorConcurrentModification() {
+        BPlusOrderStatisticTree<Integer> tree = 
+                new BPlusOrderStatisticTree<>();
+        tree.add(1);
+        tree.add(2);
+        Iterator<Integer> iterator = tree.iterator();
+        tree.add(3);
+        iterator.next();
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnTooLargeIndex() {
+        BPlusOrderStatisticTree<Integer> tree = 
+                new BPlusOrderStatisticTree<>();
+        tree.add(1);
+        tree.get(1);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testDegreeTooSmall() {
+        new BPlusOrderStatisticTree<Integer>(3);
+    }
+}
@@ -0,0 +1,152 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentIndexableSkipListTest {
+    
+    private final ConcurrentIndexableSkipList<Integer> list =
+            new ConcurrentIndexableSkipList<>();
+    
+    @Test
+    public void testAgainstTreeSet() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        TreeSet<Integer> set = new TreeSet<>();
+        
+        System.out.println("testAgainstTreeSet - seed: " + seed);
+        
+        for (int i = 0; i < 20000; ++i) {
+            int number = random.nextInt(3000);
+            
+            if (random.nextInt(3) > 0) {
+                assertEquals(set.add(number), list.add(number));
+            } else {
+                assertEquals(set.remove(number), list.remove(number));
+            }
+            
+            assertEquals(set.size(), list.size());
+            assertEquals(set.contains(number), list.contains(number));
+            assertEquals(set.headSet(number).size(), list.rank(number));
+        }
+        
+        assertTrue(list.isHealthy());
+        
+        List<Integer> expected = new ArrayList<>(set);
+        assertEquals(expected, new ArrayList<>(list));
+        
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), list.get(i));
+            assertEquals(i, list.indexOf(expected.get(i)));
+        }
+        
+        assertEquals(-1, list.indexOf(-1));
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        for (int i = 0; i < 100; ++i) {
+            list.add(i);
+        }
+        
+        Iterator<Integer> iterator = list.iterator();
+        
+        while (iterator.hasNext()) {
+            if (iterator.next() % 3 != 0) {
+                iterator.remove();
+            }
+        }
+        
+        assertEquals(34, list.size());
+        assertEquals(Integer.valueOf(33), list.get(11));
+        assertTrue(list.isHealthy());
+        
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.size());
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnEmptyList() {
+        list.get(0);
+    }
+    
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        long seed = System.nanoTime();
+        
+        System.out.println("testConcurrentUpdates - seed: " + seed);
+        
+        int threadCount = 4;
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        
+        for (int t = 0; t < threadCount; ++t) {
+            // Each writer owns the keys congruent to its id, so that the
+            // final contents are known.
+            int id = t;
+            TreeSet<Integer> owned = new TreeSet<>();
+            expected.add(owned);
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed + id);
+                
+                try {
+                    for (int i = 0; i < 50000; ++i) {
+                        int number = threadCount * random.nextInt(2000) + id;
+                        
+                        if (random.nextInt(3) > 0) {
+                            assertEquals(owned.add(number), 
+                                         list.add(number));
+                        } else {
+                            assertEquals(owned.remove(number),
+                                         list.remove(number));
+                        }
+                        
+                        // Weakly consistent, but must not fail otherwise.
+                        try {
+                            list.get(random.nextInt(list.size() + 1));
+                        } catch (IndexOutOfBoundsException ex) {
+                            
+                        }
+                        
+                        list.indexOf(number);
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }));
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertNull(failure.get());
+        assertTrue(list.isHealthy());
+        
+        TreeSet<Integer> all = new TreeSet<>();
+        
+        for (TreeSet<Integer> owned : expected) {
+            all.addAll(owned);
+        }
+        
+        List<Integer> sorted = new ArrayList<>(all);
+        assertEquals(sorted, new ArrayList<>(list));
+        
+        for (int i = 0; i < sorted.size(); ++i) {
+            assertEquals(sorted.get(i), list.get(i));
+            assertEquals(i, list.indexOf(sorted.get(i)));
+        }
+    }
+}
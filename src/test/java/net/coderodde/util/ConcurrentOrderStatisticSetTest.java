@@ -0,0 +1,246 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentOrderStatisticSetTest {
+    
+    private final ConcurrentOrderStatisticSet<Integer> set =
+            new ConcurrentOrderStatisticSet<>(
+                    new OrderStatisticTree<Integer>());
+    
+    @Test
+    public void testAgainstTreeSet() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        
+        System.out.println("testAgainstTreeSet - seed: " + seed);
+        
+        for (int i = 0; i < 2000; ++i) {
+            int number = random.nextInt(500);
+            
+            if (random.nextBoolean()) {
+                assertEquals(treeSet.add(number), set.add(number));
+            } else {
+                assertEquals(treeSet.remove(number), set.remove(number));
+            }
+            
+            assertEquals(treeSet.size(), set.size());
+            assertEquals(treeSet.contains(number), set.contains(number));
+            assertEquals(treeSet.headSet(number).size(), set.rank(number));
+        }
+        
+        List<Integer> list = new ArrayList<>(treeSet);
+        
+        for (int i = 0; i < list.size(); ++i) {
+            assertEquals(list.get(i), set.get(i));
+            assertEquals(i, set.indexOf(list.get(i)));
+        }
+        
+        assertEquals(list, new ArrayList<>(set));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnBadIndex() {
+        set.add(1);
+        set.get(1);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testRefusesTreeWithFinger() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        tree.setFingerEnabled(true);
+        new ConcurrentOrderStatisticSet<>(tree);
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testRefusesFingerOfWrappedTree() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        new ConcurrentOrderStatisticSet<>(tree);
+        tree.setFingerEnabled(true);
+    }
+    
+    @Test
+    public void testDiscardsErrorOfInvalidatedRead() {
+        AtomicReference<ConcurrentOrderStatisticSet<Integer>> wrapper =
+                new AtomicReference<>();
+        AtomicBoolean torn = new AtomicBoolean(true);
+        
+        // The first read sees a write intervene and fails as a read of torn 
+        // state might.
+        wrapper.set(new ConcurrentOrderStatisticSet<>(
+                new OrderStatisticTree<Integer>() {
+                    @Override
+                    public Integer get(int index) {
+                        if (torn.getAndSet(false)) {
+                            wrapper.get().add(2);
+                            throw new StackOverflowError();
+                        }
+                        
+                        return super.get(index);
+                    }
+                }));
+        
+        wrapper.get().add(1);
+        assertEquals(Integer.valueOf(2), wrapper.get().get(1));
+    }
+    
+    @Test
+    public void testIteratorIsSnapshot() {
+        for (int i = 0; i < 10; ++i) {
+            set.add(i);
+        }
+        
+        Iterator<Integer> iterator = set.iterator();
+        set.add(100);
+        
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(Integer.valueOf(i), iterator.next());
+            
+            if (i % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertEquals(6, set.size());
+        assertFalse(set.contains(4));
+        assertTrue(set.contains(100));
+    }
+    
+    @Test
+    public void testConcurrentReadsAndWrites() throws InterruptedException {
+        // The elements 0, ..., 999 stay put while the writers churn larger
+        // ones, so their indices must never change.
+        for (int i = 0; i < 1000; ++i) {
+            set.add(i);
+        }
+        
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        
+        for (int t = 0; t < 2; ++t) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(id);
+                
+                while (!stop.get()) {
+                    int number = 1000 + random.nextInt(5000);
+                    
+                    if (random.nextBoolean()) {
+                        set.add(number);
+                    } else {
+                        set.remove(number);
+                    }
+                }
+            }));
+        }
+        
+        for (int t = 0; t < 4; ++t) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(~id);
+                
+                try {
+                    for (int i = 0; i < 200000; ++i) {
+                        int index = random.nextInt(1000);
+                        assertEquals(Integer.valueOf(index), set.get(index));
+                        assertEquals(index, set.indexOf(index));
+                        assertTrue(set.contains(index));
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }));
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        
+        for (Thread thread : threads.subList(2, threads.size())) {
+            thread.join();
+        }
+        
+        stop.set(true);
+        
+        for (Thread thread : threads.subList(0, 2)) {
+            thread.join();
+        }
+        
+        assertNull(failure.get());
+    }
+    
+    @Test(timeout = 60000)
+    public void testContainsDuringRotations() throws InterruptedException {
+        long seed = System.nanoTime();
+        
+        System.out.println("testContainsDuringRotations - seed: " + seed);
+        
+        // The multiples of 4 stay put and the numbers 2 modulo 4 are never 
+        // added, while the writer churns the odd numbers between them, so the
+        // lookups descend through the rotating nodes. A lookup reading torn 
+        // links must give up instead of looping forever.
+        for (int i = 0; i < 4000; i += 4) {
+            set.add(i);
+        }
+        
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(seed);
+            
+            while (!stop.get()) {
+                int number = 2 * random.nextInt(2000) + 1;
+                
+                if (random.nextBoolean()) {
+                    set.add(number);
+                } else {
+                    set.remove(number);
+                }
+            }
+        });
+        
+        for (int t = 0; t < 3; ++t) {
+            int id = t;
+            readers.add(new Thread(() -> {
+                Random random = new Random(seed + id + 1);
+                
+                try {
+                    for (int i = 0; i < 300000; ++i) {
+                        int number = 4 * random.nextInt(1000);
+                        assertTrue(set.contains(number));
+                        assertFalse(set.contains(number + 2));
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }));
+        }
+        
+        writer.start();
+        
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        
+        stop.set(true);
+        writer.join();
+        
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,108 @@
+package net.coderodde.util;
+
+import java.util.Iterator;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class InstrumentedOrderStatisticTreeTest {
+    
+    private final OrderStatisticTree<Integer> tree =
+            new OrderStatisticTree<>();
+    
+    @Before
+    public void before() {
+        assumeTrue(OrderStatisticTree.INSTRUMENTED);
+    }
+    
+    @Test
+    public void testStatisticsCountDescents() {
+        OrderStatisticTree<Integer> perfect =
+                OrderStatisticTree.fromSorted(new Integer[]{ 1, 2, 3, 4, 
+                                                             5, 6, 7 });
+        perfect.contains(4);
+        TreeStatistics statistics = perfect.statistics();
+        assertEquals(1L, statistics.getOperations());
+        assertEquals(1L, statistics.getComparisons());
+        assertEquals(1L, statistics.getNodesVisited());
+        
+        perfect.resetStatistics();
+        perfect.contains(7);
+        perfect.contains(8);
+        assertFalse(perfect.remove(0));
+        statistics = perfect.statistics();
+        assertEquals(3L, statistics.getOperations());
+        assertEquals(9L, statistics.getComparisons());
+        assertEquals(9L, statistics.getMaximumNodesVisited() * 3);
+        assertEquals(0L, statistics.getRebalanceSteps());
+    }
+    
+    @Test
+    public void testStatisticsCountRotations() {
+        tree.add(1);
+        tree.add(2);
+        tree.add(3);
+        TreeStatistics statistics = tree.statistics();
+        assertEquals(1L, statistics.getSingleRotations());
+        assertEquals(0L, statistics.getDoubleRotations());
+        // 1 + 2 descent comparisons and one for each attachment.
+        assertEquals(5L, statistics.getComparisons());
+        
+        tree.clear();
+        tree.resetStatistics();
+        tree.add(1);
+        tree.add(3);
+        tree.add(2);
+        statistics = tree.statistics();
+        assertEquals(0L, statistics.getSingleRotations());
+        assertEquals(1L, statistics.getDoubleRotations());
+        
+        // Inserting 3 checks the balance of 1; inserting 2 checks 3 and
+        // rotates at 1, which ends the walk.
+        assertEquals(3L, statistics.getRebalanceSteps());
+        assertEquals(2L, statistics.getMaximumRebalanceSteps());
+        
+        tree.resetStatistics();
+        tree.remove(1);
+        tree.remove(3);
+        statistics = tree.statistics();
+        assertEquals(2L, statistics.getRebalanceSteps());
+        assertEquals(1L, statistics.getMaximumRebalanceSteps());
+    }
+    
+    @Test
+    public void testStatisticsIgnoreBulkOperations() {
+        OrderStatisticTree<Integer> other = new OrderStatisticTree<>();
+        
+        for (int i = 0; i < 20000; ++i) {
+            tree.add(2 * i);
+            other.add(3 * i);
+        }
+        
+        tree.resetStatistics();
+        tree.addAll(other);
+        tree.removeAll(other);
+        
+        Iterator<Integer> iterator = tree.iterator();
+        
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        
+        assertTrue(tree.isEmpty());
+        TreeStatistics statistics = tree.statistics();
+        assertEquals(0L, statistics.getOperations());
+        assertEquals(0L, statistics.getSingleRotations());
+        assertEquals(0L, statistics.getDoubleRotations());
+        assertEquals(0L, statistics.getRebalanceSteps());
+        
+        tree.add(1);
+        tree.add(2);
+        tree.add(3);
+        statistics = tree.statistics();
+        assertEquals(3L, statistics.getOperations());
+        assertEquals(1L, statistics.getSingleRotations());
+    }
+}
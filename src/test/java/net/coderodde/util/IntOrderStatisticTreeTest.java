@@ -0,0 +1,142 @@
+package net.coderodde.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Before;
+
+public class IntOrderStatisticTreeTest {
+    
+    private final IntOrderStatisticTree tree = new IntOrderStatisticTree();
+    
+    private final TreeSet<Integer> set = new TreeSet<>();
+    
+    @Before
+    public void before() {
+        tree.clear();
+        set.clear();
+    }
+    
+    @Test
+    public void testAddContainsRemove() {
+        for (int i = -30; i < 30; i += 2) {
+            assertEquals(set.contains(i), tree.contains(i));
+            assertEquals(set.add(i), tree.add(i));
+            assertEquals(set.add(i), tree.add(i));
+            assertEquals(set.contains(i), tree.contains(i));
+            assertTrue(tree.isHealthy());
+        }
+        
+        for (int i = -40; i < 40; i += 3) {
+            assertEquals(set.remove(i), tree.remove(i));
+            assertTrue(tree.isHealthy());
+        }
+        
+        for (int i = -40; i < 40; ++i) {
+            assertEquals(set.contains(i), tree.contains(i));
+        }
+        
+        assertEquals(set.size(), tree.size());
+    }
+    
+    @Test
+    public void testGetAndIndexOf() {
+        for (int i = 0; i < 100; ++i) {
+            assertTrue(tree.add(Integer.MAX_VALUE - 2 * i));
+        }
+        
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Integer.MAX_VALUE - 198 + 2 * i, tree.get(i));
+            assertEquals(i, tree.indexOf(Integer.MAX_VALUE - 198 + 2 * i));
+            assertEquals(-1, tree.indexOf(Integer.MAX_VALUE - 199 + 2 * i));
+        }
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnTooLargeIndex() {
+        tree.add(1);
+        tree.get(1);
+    }
+    
+    @Test
+    public void testBruteForce() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("IntOrderStatisticTreeTest.testBruteForce: " +
+                           "seed = " + seed);
+        
+        for (int i = 0; i < 10_000; ++i) {
+            int key = random.nextInt(2000) - 1000;
+            
+            if (random.nextBoolean()) {
+                assertEquals(set.add(key), tree.add(key));
+            } else {
+                assertEquals(set.remove(key), tree.remove(key));
+            }
+        }
+        
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        int index = 0;
+        
+        for (Integer key : set) {
+            assertEquals((int) key, tree.get(index));
+            assertEquals(index, tree.indexOf(key));
+            index++;
+        }
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        for (int i = 0; i < 1000; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator1 = set.iterator();
+        PrimitiveIterator.OfInt iterator2 = tree.iterator();
+        
+        while (iterator1.hasNext()) {
+            assertTrue(iterator2.hasNext());
+            int key = iterator1.next();
+            assertEquals(key, iterator2.nextInt());
+            
+            if (key % 3 == 0) {
+                iterator1.remove();
+                iterator2.remove();
+            }
+        }
+        
+        assertFalse(iterator2.hasNext());
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        int[] array = tree.toArray();
+        int index = 0;
+        
+        for (Integer key : set) {
+            assertEquals((int) key, array[index++]);
+        }
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void testEmptyIterator() {
+        tree.iterator().nextInt();
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorConcurrentModification() {
+        tree.add(1);
+        tree.add(2);
+        PrimitiveIterator.OfInt iterator = tree.iterator();
+        tree.add(3);
+        iterator.nextInt();
+    }
+}
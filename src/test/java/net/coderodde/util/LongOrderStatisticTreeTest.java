@@ -0,0 +1,142 @@
+package net.coderodde.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Before;
+
+public class LongOrderStatisticTreeTest {
+    
+    private final LongOrderStatisticTree tree = new LongOrderStatisticTree();
+    
+    private final TreeSet<Long> set = new TreeSet<>();
+    
+    @Before
+    public void before() {
+        tree.clear();
+        set.clear();
+    }
+    
+    @Test
+    public void testAddContainsRemove() {
+        for (long i = -30; i < 30; i += 2) {
+            assertEquals(set.contains(i), tree.contains(i));
+            assertEquals(set.add(i), tree.add(i));
+            assertEquals(set.add(i), tree.add(i));
+            assertEquals(set.contains(i), tree.contains(i));
+            assertTrue(tree.isHealthy());
+        }
+        
+        for (long i = -40; i < 40; i += 3) {
+            assertEquals(set.remove(i), tree.remove(i));
+            assertTrue(tree.isHealthy());
+        }
+        
+        for (long i = -40; i < 40; ++i) {
+            assertEquals(set.contains(i), tree.contains(i));
+        }
+        
+        assertEquals(set.size(), tree.size());
+    }
+    
+    @Test
+    public void testGetAndIndexOf() {
+        for (int i = 0; i < 100; ++i) {
+            assertTrue(tree.add(Long.MAX_VALUE - 2L * i));
+        }
+        
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(Long.MAX_VALUE - 198L + 2L * i, tree.get(i));
+            assertEquals(i, tree.indexOf(Long.MAX_VALUE - 198L + 2L * i));
+            assertEquals(-1, tree.indexOf(Long.MAX_VALUE - 199L + 2L * i));
+        }
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnTooLargeIndex() {
+        tree.add(1L);
+        tree.get(1);
+    }
+    
+    @Test
+    public void testBruteForce() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("LongOrderStatisticTreeTest.testBruteForce: " +
+                           "seed = " + seed);
+        
+        for (int i = 0; i < 10_000; ++i) {
+            long key = random.nextInt(2000) - 1000;
+            
+            if (random.nextBoolean()) {
+                assertEquals(set.add(key), tree.add(key));
+            } else {
+                assertEquals(set.remove(key), tree.remove(key));
+            }
+        }
+        
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        int index = 0;
+        
+        for (Long key : set) {
+            assertEquals((long) key, tree.get(index));
+            assertEquals(index, tree.indexOf(key));
+            index++;
+        }
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        for (long i = 0; i < 1000; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        Iterator<Long> iterator1 = set.iterator();
+        PrimitiveIterator.OfLong iterator2 = tree.iterator();
+        
+        while (iterator1.hasNext()) {
+            assertTrue(iterator2.hasNext());
+            long key = iterator1.next();
+            assertEquals(key, iterator2.nextLong());
+            
+            if (key % 3 == 0) {
+                iterator1.remove();
+                iterator2.remove();
+            }
+        }
+        
+        assertFalse(iterator2.hasNext());
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        long[] array = tree.toArray();
+        int index = 0;
+        
+        for (Long key : set) {
+            assertEquals((long) key, array[index++]);
+        }
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void testEmptyIterator() {
+        tree.iterator().nextLong();
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorConcurrentModification() {
+        tree.add(1L);
+        tree.add(2L);
+        PrimitiveIterator.OfLong iterator = tree.iterator();
+        tree.add(3L);
+        iterator.nextLong();
+    }
+}
@@ -0,0 +1,177 @@
+package net.coderodde.util;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OffHeapOrderStatisticTreeTest {
+    
+    private final OffHeapOrderStatisticTree<Long> tree =
+            new OffHeapOrderStatisticTree<>(KeyCodec.LONG, 64);
+    
+    private final TreeSet<Long> set = new TreeSet<>();
+    
+    @After
+    public void after() {
+        tree.close();
+    }
+    
+    @Test
+    public void testBruteForce() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("OffHeapOrderStatisticTreeTest.testBruteForce: " +
+                           "seed = " + seed);
+        
+        for (int i = 0; i < 20_000; ++i) {
+            long key = random.nextInt(3000) - 1500;
+            
+            if (random.nextInt(3) > 0) {
+                assertEquals(set.add(key), tree.add(key));
+            } else {
+                assertEquals(set.remove(key), tree.remove(key));
+            }
+        }
+        
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        
+        int index = 0;
+        
+        for (Long key : set) {
+            assertEquals(key, tree.get(index));
+            assertEquals(index, tree.indexOf(key));
+            assertEquals(index, tree.rank(key));
+            assertEquals(index + 1, tree.rank(key + 1));
+            assertTrue(tree.contains(key));
+            assertFalse(tree.contains(key + 3000));
+            index++;
+        }
+        
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        for (long i = 0; i < 1000; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        Iterator<Long> iterator1 = set.iterator();
+        Iterator<Long> iterator2 = tree.iterator();
+        
+        while (iterator1.hasNext()) {
+            Long key = iterator1.next();
+            assertEquals(key, iterator2.next());
+            
+            if (key % 5 < 3) {
+                iterator1.remove();
+                iterator2.remove();
+            }
+        }
+        
+        assertFalse(iterator2.hasNext());
+        assertTrue(tree.isHealthy());
+        assertEquals(set, tree);
+    }
+    
+    @Test
+    public void testChunksAreAllocatedOnDemand() {
+        assertEquals(0L, tree.allocatedBytes());
+        
+        for (long i = 0; i < 65; ++i) {
+            tree.add(i);
+        }
+        
+        long allocated = tree.allocatedBytes();
+        assertEquals(2 * 64 * (20 + Long.BYTES), allocated);
+        
+        for (long i = 0; i < 65; ++i) {
+            tree.remove(i);
+        }
+        
+        for (long i = 0; i < 65; ++i) {
+            tree.add(-i);
+        }
+        
+        assertEquals(allocated, tree.allocatedBytes());
+        assertTrue(tree.isHealthy());
+    }
+    
+    @Test
+    public void testGenericCodec() {
+        KeyCodec<Integer> codec = new KeyCodec<Integer>() {
+            @Override
+            public int width() {
+                return 2;
+            }
+            
+            @Override
+            public void write(ByteBuffer buffer, int offset, Integer key) {
+                buffer.putShort(offset, key.shortValue());
+            }
+            
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return (int) buffer.getShort(offset);
+            }
+        };
+        
+        try (OffHeapOrderStatisticTree<Integer> shortTree =
+                new OffHeapOrderStatisticTree<>(codec, 16)) {
+            for (int i = 100; i > -100; --i) {
+                assertTrue(shortTree.add(i));
+            }
+            
+            assertTrue(shortTree.isHealthy());
+            assertEquals(Integer.valueOf(-99), shortTree.get(0));
+            assertEquals(199, shortTree.indexOf(100));
+        }
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testClosedTreeThrows() {
+        tree.add(1L);
+        tree.close();
+        tree.contains(1L);
+    }
+    
+    @Test
+    public void testCloseFreesNativeMemory() {
+        BufferPoolMXBean direct = null;
+        
+        for (BufferPoolMXBean pool : 
+                ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool;
+            }
+        }
+        
+        for (long key = 0; key < 1000; ++key) {
+            tree.add(key);
+        }
+        
+        long allocated = tree.allocatedBytes();
+        long used = direct.getMemoryUsed();
+        tree.close();
+        
+        // Without a garbage collection in between, the memory is returned 
+        // only if close() frees it.
+        assertTrue(used - direct.getMemoryUsed() >= allocated);
+        assertEquals(0L, tree.allocatedBytes());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkCapacityMustBePowerOfTwo() {
+        new OffHeapOrderStatisticTree<>(KeyCodec.INTEGER, 100);
+    }
+}
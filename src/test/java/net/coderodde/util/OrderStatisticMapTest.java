@@ -0,0 +1,201 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OrderStatisticMapTest {
+    
+    private final OrderStatisticMap<Integer, String> map =
+            new OrderStatisticMap<>();
+    
+    private final TreeMap<Integer, String> treeMap = new TreeMap<>();
+    
+    @Before
+    public void before() {
+        map.clear();
+        treeMap.clear();
+    }
+    
+    @Test
+    public void testAgainstTreeMap() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testAgainstTreeMap - seed: " + seed);
+        
+        for (int i = 0; i < 5000; ++i) {
+            int key = random.nextInt(1000);
+            
+            if (random.nextBoolean()) {
+                String value = "v" + i;
+                assertEquals(treeMap.put(key, value), map.put(key, value));
+            } else {
+                assertEquals(treeMap.remove(key), map.remove(key));
+            }
+            
+            assertEquals(treeMap.size(), map.size());
+            assertEquals(treeMap.get(key), map.get(key));
+            assertEquals(treeMap.headMap(key).size(), map.rank(key));
+        }
+        
+        assertTrue(map.isHealthy());
+        assertEquals(treeMap, map);
+        assertEquals(map, treeMap);
+        assertEquals(treeMap.hashCode(), map.hashCode());
+        
+        List<Map.Entry<Integer, String>> entries =
+                new ArrayList<>(treeMap.entrySet());
+        
+        for (int i = 0; i < entries.size(); ++i) {
+            assertEquals(entries.get(i), map.entryAt(i));
+            assertEquals(i, map.indexOfKey(entries.get(i).getKey()));
+        }
+        
+        assertEquals(-1, map.indexOfKey(-1));
+        
+        for (int i = 0; i < 100; ++i) {
+            int key = random.nextInt(1100) - 50;
+            assertEquals(treeMap.lowerEntry(key), map.lowerEntry(key));
+            assertEquals(treeMap.floorEntry(key), map.floorEntry(key));
+            assertEquals(treeMap.ceilingEntry(key), map.ceilingEntry(key));
+            assertEquals(treeMap.higherEntry(key), map.higherEntry(key));
+            assertEquals(treeMap.lowerKey(key), map.lowerKey(key));
+            assertEquals(treeMap.higherKey(key), map.higherKey(key));
+        }
+    }
+    
+    @Test
+    public void testRangeViews() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testRangeViews - seed: " + seed);
+        
+        for (int i = 0; i < 500; ++i) {
+            int key = random.nextInt(1000);
+            map.put(key, "v" + key);
+            treeMap.put(key, "v" + key);
+        }
+        
+        for (int i = 0; i < 200; ++i) {
+            int lo = random.nextInt(1000);
+            int hi = lo + random.nextInt(1000 - lo + 1);
+            boolean loInclusive = random.nextBoolean();
+            boolean hiInclusive = random.nextBoolean();
+            
+            NavigableMap<Integer, String> view =
+                    map.subMap(lo, loInclusive, hi, hiInclusive);
+            NavigableMap<Integer, String> expected =
+                    treeMap.subMap(lo, loInclusive, hi, hiInclusive);
+            
+            checkView(expected, view, random);
+            checkView(expected.descendingMap(), view.descendingMap(), random);
+            checkView(treeMap.headMap(hi, hiInclusive),
+                      map.headMap(hi, hiInclusive),
+                      random);
+            checkView(treeMap.tailMap(lo, loInclusive).descendingMap(),
+                      map.tailMap(lo, loInclusive).descendingMap(),
+                      random);
+            assertEquals(new ArrayList<>(expected.descendingKeySet()),
+                         new ArrayList<>(view.descendingKeySet()));
+        }
+    }
+    
+    @Test
+    public void testViewWritesThrough() {
+        for (int i = 0; i < 100; ++i) {
+            map.put(i, "v" + i);
+        }
+        
+        NavigableMap<Integer, String> view = map.subMap(10, true, 20, false);
+        view.put(15, "x");
+        assertEquals("x", map.get(15));
+        view.remove(12);
+        assertFalse(map.containsKey(12));
+        view.navigableKeySet().pollFirst();
+        assertFalse(map.containsKey(10));
+        view.clear();
+        assertEquals(90, map.size());
+        assertTrue(view.isEmpty());
+        assertEquals(Integer.valueOf(9), map.lowerKey(20));
+        assertTrue(map.isHealthy());
+        
+        try {
+            view.put(20, "y");
+            fail("The key out of the view range was accepted.");
+        } catch (IllegalArgumentException ex) {
+            
+        }
+    }
+    
+    @Test
+    public void testIteratorRemoveAndSetValue() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testIteratorRemoveAndSetValue - seed: " + seed);
+        
+        for (int i = 0; i < 1000; ++i) {
+            int key = random.nextInt(2000);
+            map.put(key, "v" + key);
+            treeMap.put(key, "v" + key);
+        }
+        
+        Iterator<Map.Entry<Integer, String>> iterator =
+                map.entrySet().iterator();
+        Iterator<Map.Entry<Integer, String>> expected =
+                treeMap.entrySet().iterator();
+        
+        while (expected.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            Map.Entry<Integer, String> expectedEntry = expected.next();
+            assertEquals(expectedEntry, entry);
+            
+            if (random.nextBoolean()) {
+                iterator.remove();
+                expected.remove();
+            } else {
+                entry.setValue("w");
+                expectedEntry.setValue("w");
+            }
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertTrue(map.isHealthy());
+        assertEquals(treeMap, map);
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEntryAtReturnsSnapshot() {
+        map.put(1, "a");
+        map.entryAt(0).setValue("b");
+    }
+    
+    private void checkView(NavigableMap<Integer, String> expected,
+                           NavigableMap<Integer, String> view,
+                           Random random) {
+        assertEquals(expected.size(), view.size());
+        assertEquals(expected.isEmpty(), view.isEmpty());
+        assertEquals(new ArrayList<>(expected.entrySet()),
+                     new ArrayList<>(view.entrySet()));
+        assertEquals(expected.firstEntry(), view.firstEntry());
+        assertEquals(expected.lastEntry(), view.lastEntry());
+        
+        for (int i = 0; i < 10; ++i) {
+            int key = random.nextInt(1100) - 50;
+            assertEquals(expected.get(key), view.get(key));
+            assertEquals(expected.lowerKey(key), view.lowerKey(key));
+            assertEquals(expected.floorKey(key), view.floorKey(key));
+            assertEquals(expected.ceilingKey(key), view.ceilingKey(key));
+            assertEquals(expected.higherKey(key), view.higherKey(key));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OrderStatisticMultisetTest {
+    
+    private final OrderStatisticMultiset<Integer> multiset =
+            new OrderStatisticMultiset<>();
+    
+    // The sorted list of all the occurrences.
+    private final List<Integer> list = new ArrayList<>();
+    
+    @Before
+    public void before() {
+        multiset.clear();
+        list.clear();
+    }
+    
+    @Test
+    public void testAgainstSortedList() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testAgainstSortedList - seed: " + seed);
+        
+        for (int i = 0; i < 5000; ++i) {
+            Integer number = random.nextInt(100);
+            int index = Collections.binarySearch(list, number);
+            
+            if (random.nextInt(3) > 0) {
+                assertTrue(multiset.add(number));
+                list.add(index < 0 ? -index - 1 : index, number);
+            } else {
+                assertEquals(index >= 0, multiset.remove(number));
+                
+                if (index >= 0) {
+                    list.remove(index);
+                }
+            }
+            
+            assertEquals(list.size(), multiset.size());
+            assertEquals(Collections.frequency(list, number),
+                         multiset.count(number));
+            assertEquals(lowerBound(number), multiset.rank(number));
+            assertEquals(list.contains(number) ? lowerBound(number) : -1,
+                         multiset.indexOf(number));
+        }
+        
+        assertTrue(multiset.isHealthy());
+        assertEquals(list, new ArrayList<>(multiset));
+        assertEquals(new HashSet<>(list).size(),
+                     multiset.distinctSize());
+        
+        for (int i = 0; i < list.size(); ++i) {
+            assertEquals(list.get(i), multiset.get(i));
+        }
+    }
+    
+    @Test
+    public void testManyDuplicates() {
+        for (int i = 0; i < 1000; ++i) {
+            multiset.add(5);
+            multiset.add(3);
+        }
+        
+        multiset.add(4);
+        
+        assertEquals(2001, multiset.size());
+        assertEquals(3, multiset.distinctSize());
+        assertEquals(1000, multiset.count(5));
+        assertEquals(1000, multiset.rank(4));
+        assertEquals(1001, multiset.rank(5));
+        assertEquals(Integer.valueOf(3), multiset.get(999));
+        assertEquals(Integer.valueOf(4), multiset.get(1000));
+        assertEquals(Integer.valueOf(5), multiset.get(2000));
+        
+        for (int i = 0; i < 1000; ++i) {
+            assertTrue(multiset.remove(3));
+        }
+        
+        assertFalse(multiset.remove(3));
+        assertEquals(0, multiset.count(3));
+        assertEquals(2, multiset.distinctSize());
+        assertEquals(Integer.valueOf(4), multiset.get(0));
+        assertTrue(multiset.isHealthy());
+    }
+    
+    @Test
+    public void testIteratorRemove() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testIteratorRemove - seed: " + seed);
+        
+        for (int i = 0; i < 2000; ++i) {
+            Integer number = random.nextInt(200);
+            multiset.add(number);
+            list.add(number);
+        }
+        
+        Collections.sort(list);
+        Iterator<Integer> iterator = multiset.iterator();
+        Iterator<Integer> expected = list.iterator();
+        
+        while (expected.hasNext()) {
+            assertTrue(iterator.hasNext());
+            assertEquals(expected.next(), iterator.next());
+            
+            if (random.nextBoolean()) {
+                iterator.remove();
+                expected.remove();
+            }
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertTrue(multiset.isHealthy());
+        assertEquals(list, new ArrayList<>(multiset));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testIteratorRemoveTwiceThrows() {
+        multiset.add(1);
+        multiset.add(1);
+        Iterator<Integer> iterator = multiset.iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.remove();
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorThrowsOnConcurrentModification() {
+        multiset.add(1);
+        multiset.add(2);
+        Iterator<Integer> iterator = multiset.iterator();
+        iterator.next();
+        multiset.add(1);
+        iterator.next();
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnTooLargeIndex() {
+        multiset.add(1);
+        multiset.add(1);
+        multiset.get(2);
+    }
+    
+    private int lowerBound(Integer number) {
+        int index = 0;
+        
+        while (index < list.size() && list.get(index) < number) {
+            index++;
+        }
+        
+        return index;
+    }
+}
@@ -1,15 +1,31 @@
 package net.coderodde.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.Spliterator;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -690,4 +706,1159 @@ public class OrderStatisticTreeTest {
         assertTrue(array2before == array2after);
         assertTrue(Arrays.equals(array1after, array2after));
     }
+    
+    @Test
+    public void testFromSorted() {
+        for (int size = 0; size < 100; ++size) {
+            Integer[] array = new Integer[size];
+            
+            for (int i = 0; i < size; ++i) {
+                array[i] = 3 * i;
+            }
+            
+            OrderStatisticTree<Integer> sortedTree = 
+                    OrderStatisticTree.fromSorted(array);
+            
+            assertTrue(sortedTree.isHealthy());
+            assertEquals(size, sortedTree.size());
+            
+            for (int i = 0; i < size; ++i) {
+                assertEquals(array[i], sortedTree.get(i));
+                assertEquals(i, sortedTree.indexOf(3 * i));
+            }
+            
+            sortedTree.add(-1);
+            sortedTree.remove(0);
+            assertTrue(sortedTree.isHealthy());
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromSortedThrowsOnUnsortedInput() {
+        OrderStatisticTree.fromSorted(new Integer[]{ 1, 3, 2 });
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromSortedThrowsOnDuplicateInput() {
+        OrderStatisticTree.fromSorted(new Integer[]{ 1, 2, 2 });
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromSortedThrowsOnShortIterator() {
+        OrderStatisticTree.fromSorted(Arrays.asList(1, 2).iterator(), 3);
+    }
+    
+    @Test
+    public void testAddAllSortedSet() {
+        for (int i = 0; i < 1000; i += 7) {
+            set.add(i);
+        }
+        
+        assertTrue(tree.addAll(set));
+        assertTrue(tree.isHealthy());
+        assertEquals(set.size(), tree.size());
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+        
+        OrderStatisticTree<Integer> copy = new OrderStatisticTree<>(tree);
+        assertTrue(copy.isHealthy());
+        assertTrue(Arrays.equals(set.toArray(), copy.toArray()));
+        
+        TreeSet<Integer> reversed = new TreeSet<>(Collections.reverseOrder());
+        reversed.addAll(set);
+        copy = new OrderStatisticTree<>(reversed);
+        assertTrue(copy.isHealthy());
+        assertTrue(Arrays.equals(set.toArray(), copy.toArray()));
+        
+        assertFalse(new OrderStatisticTree<>(new TreeSet<Integer>()).addAll(
+                new TreeSet<Integer>()));
+    }
+    
+    @Test
+    public void testRank() {
+        assertEquals(0, tree.rank(10));
+        
+        for (int i = 0; i < 100; ++i) {
+            tree.add(2 * i);
+        }
+        
+        for (int i = -5; i < 210; ++i) {
+            assertEquals(Math.min(100, Math.max(0, (i + 1) / 2)), 
+                         tree.rank(i));
+        }
+    }
+    
+    @Test
+    public void testDefaultRank() {
+        // Implements only the abstract methods of OrderStatisticSet.
+        OrderStatisticSet<Integer> view = 
+                new SortedListSet(Arrays.asList(0, 2, 4, 6, 8));
+        
+        for (int i = -1; i < 11; ++i) {
+            assertEquals(Math.min(5, Math.max(0, (i + 1) / 2)), 
+                         view.rank(i));
+        }
+        
+        assertEquals(2, view.countInRange(1, true, 5, true));
+        assertEquals(4, view.higherIndex(7));
+    }
+    
+    private static final class SortedListSet extends AbstractSet<Integer>
+    implements OrderStatisticSet<Integer> {
+        
+        private final List<Integer> list;
+        
+        SortedListSet(List<Integer> list) {
+            this.list = list;
+        }
+        
+        @Override
+        public Integer get(int index) {
+            return list.get(index);
+        }
+        
+        @Override
+        public int indexOf(Integer element) {
+            return list.indexOf(element);
+        }
+        
+        @Override
+        public Iterator<Integer> iterator() {
+            return list.iterator();
+        }
+        
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+    
+    @Test
+    public void testCountInRange() {
+        Random random = new Random();
+        
+        for (int i = 0; i < 200; ++i) {
+            int number = random.nextInt(400);
+            set.add(number);
+            tree.add(number);
+        }
+        
+        for (int lo = -10; lo < 410; lo += 7) {
+            for (int hi = lo; hi < 410; hi += 5) {
+                for (int flags = 0; flags < 4; ++flags) {
+                    boolean loInclusive = (flags & 1) != 0;
+                    boolean hiInclusive = (flags & 2) != 0;
+                    int expected = 
+                            lo == hi && !(loInclusive && hiInclusive) ?
+                            0 :
+                            set.subSet(lo, loInclusive, 
+                                       hi, hiInclusive).size();
+                    
+                    assertEquals(expected, tree.countInRange(lo, 
+                                                             loInclusive, 
+                                                             hi, 
+                                                             hiInclusive));
+                }
+            }
+        }
+        
+        assertEquals(0, tree.countInRange(300, true, 100, true));
+    }
+    
+    @Test
+    public void testNeighbourIndices() {
+        for (int i = 0; i < 50; ++i) {
+            set.add(3 * i);
+            tree.add(3 * i);
+        }
+        
+        for (int i = -5; i < 160; ++i) {
+            assertEquals(indexOrMinusOne(set.floor(i)), tree.floorIndex(i));
+            assertEquals(indexOrMinusOne(set.ceiling(i)), 
+                         tree.ceilingIndex(i));
+            assertEquals(indexOrMinusOne(set.lower(i)), tree.lowerIndex(i));
+            assertEquals(indexOrMinusOne(set.higher(i)), 
+                         tree.higherIndex(i));
+        }
+    }
+    
+    private int indexOrMinusOne(Integer element) {
+        return element == null ? -1 : set.headSet(element).size();
+    }
+    
+    @Test
+    public void testNavigation() {
+        assertNull(tree.pollFirst());
+        assertNull(tree.pollLast());
+        assertNull(tree.ceiling(1));
+        
+        for (int i = 0; i < 100; i += 4) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        assertEquals(set.first(), tree.first());
+        assertEquals(set.last(), tree.last());
+        assertNull(tree.comparator());
+        
+        for (int i = -3; i < 103; ++i) {
+            assertEquals(set.lower(i), tree.lower(i));
+            assertEquals(set.floor(i), tree.floor(i));
+            assertEquals(set.ceiling(i), tree.ceiling(i));
+            assertEquals(set.higher(i), tree.higher(i));
+        }
+        
+        while (!set.isEmpty()) {
+            assertEquals(set.pollFirst(), tree.pollFirst());
+            assertEquals(set.pollLast(), tree.pollLast());
+            assertTrue(tree.isHealthy());
+            assertEquals(set.size(), tree.size());
+        }
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void testFirstThrowsOnEmptyTree() {
+        tree.first();
+    }
+    
+    @Test
+    public void testDescendingIterator() {
+        for (int i = 0; i < 500; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator1 = set.descendingIterator();
+        Iterator<Integer> iterator2 = tree.descendingIterator();
+        
+        while (iterator1.hasNext()) {
+            assertTrue(iterator2.hasNext());
+            Integer element = iterator1.next();
+            assertEquals(element, iterator2.next());
+            
+            if (element % 3 != 0) {
+                iterator1.remove();
+                iterator2.remove();
+            }
+        }
+        
+        assertFalse(iterator2.hasNext());
+        assertTrue(tree.isHealthy());
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+    }
+    
+    @Test
+    public void testViewsBruteForce() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testViewsBruteForce - seed: " + seed);
+        
+        for (int i = 0; i < 300; ++i) {
+            int number = random.nextInt(600);
+            set.add(number);
+            tree.add(number);
+        }
+        
+        for (int iteration = 0; iteration < 300; ++iteration) {
+            NavigableSet<Integer> view1 = set;
+            NavigableSet<Integer> view2 = tree;
+            int depth = random.nextInt(4);
+            
+            for (int level = 0; level < depth; ++level) {
+                int a = random.nextInt(620) - 10;
+                int b = random.nextInt(620) - 10;
+                boolean aInclusive = random.nextBoolean();
+                boolean bInclusive = random.nextBoolean();
+                
+                if (!view1.isEmpty()) {
+                    // Keep the nested bounds within the enclosing view.
+                    a = Math.max(a, Math.min(view1.first(), view1.last()));
+                    a = Math.min(a, Math.max(view1.first(), view1.last()));
+                    b = Math.max(b, Math.min(view1.first(), view1.last()));
+                    b = Math.min(b, Math.max(view1.first(), view1.last()));
+                    aInclusive = bInclusive = true;
+                } else if (level > 0) {
+                    break;
+                }
+                
+                switch (random.nextInt(4)) {
+                    case 0:
+                        if (view1.comparator() == null ? a > b : a < b) {
+                            int tmp = a;
+                            a = b;
+                            b = tmp;
+                        }
+                        
+                        view1 = view1.subSet(a, aInclusive, b, bInclusive);
+                        view2 = view2.subSet(a, aInclusive, b, bInclusive);
+                        break;
+                    
+                    case 1:
+                        view1 = view1.headSet(a, aInclusive);
+                        view2 = view2.headSet(a, aInclusive);
+                        break;
+                    
+                    case 2:
+                        view1 = view1.tailSet(a, aInclusive);
+                        view2 = view2.tailSet(a, aInclusive);
+                        break;
+                    
+                    default:
+                        view1 = view1.descendingSet();
+                        view2 = view2.descendingSet();
+                }
+            }
+            
+            checkView(view1, view2);
+        }
+    }
+    
+    private void checkView(NavigableSet<Integer> view1, 
+                           NavigableSet<Integer> view2) {
+        assertEquals(view1.size(), view2.size());
+        assertEquals(view1.isEmpty(), view2.isEmpty());
+        assertTrue(Arrays.equals(view1.toArray(), view2.toArray()));
+        assertTrue(Arrays.equals(view1.descendingSet().toArray(), 
+                                 view2.descendingSet().toArray()));
+        
+        List<Integer> list = new ArrayList<>(view1);
+        OrderStatisticSet<Integer> orderView = 
+                (OrderStatisticSet<Integer>) view2;
+        
+        for (int i = 0; i < list.size(); ++i) {
+            assertEquals(list.get(i), orderView.get(i));
+            assertEquals(i, orderView.indexOf(list.get(i)));
+        }
+        
+        for (int i = -12; i < 612; i += 3) {
+            assertEquals(view1.contains(i), view2.contains(i));
+            assertEquals(view1.lower(i), view2.lower(i));
+            assertEquals(view1.floor(i), view2.floor(i));
+            assertEquals(view1.ceiling(i), view2.ceiling(i));
+            assertEquals(view1.higher(i), view2.higher(i));
+            int rank = 0;
+            
+            for (Integer element : list) {
+                if (view1.comparator() == null ? element < i : element > i) {
+                    rank++;
+                }
+            }
+            
+            assertEquals(rank, orderView.rank(i));
+            
+            if (!view1.contains(i)) {
+                assertEquals(-1, orderView.indexOf(i));
+            }
+        }
+        
+        if (!view1.isEmpty()) {
+            assertEquals(view1.first(), view2.first());
+            assertEquals(view1.last(), view2.last());
+        }
+    }
+    
+    @Test
+    public void testViewModification() {
+        for (int i = 0; i < 100; ++i) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        NavigableSet<Integer> view1 = set.subSet(20, true, 60, false);
+        NavigableSet<Integer> view2 = tree.subSet(20, true, 60, false);
+        
+        assertEquals(view1.pollFirst(), view2.pollFirst());
+        assertEquals(view1.pollLast(), view2.pollLast());
+        assertEquals(view1.remove(30), view2.remove(30));
+        assertEquals(view1.remove(70), view2.remove(70));
+        assertEquals(view1.add(30), view2.add(30));
+        
+        try {
+            view2.add(60);
+            fail("The view should have thrown an exception.");
+        } catch (IllegalArgumentException ex) {
+            
+        }
+        
+        try {
+            view2.headSet(61);
+            fail("The view should have thrown an exception.");
+        } catch (IllegalArgumentException ex) {
+            
+        }
+        
+        view1.descendingSet().headSet(40).clear();
+        view2.descendingSet().headSet(40).clear();
+        
+        assertEquals(set.size(), tree.size());
+        assertTrue(tree.isHealthy());
+        assertTrue(Arrays.equals(set.toArray(), tree.toArray()));
+        assertTrue(Arrays.equals(view1.toArray(), view2.toArray()));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubSetThrowsOnReversedBounds() {
+        tree.subSet(10, 5);
+    }
+    
+    @Test
+    public void testSplitAtIndex() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testSplitAtIndex - seed: " + seed);
+        
+        for (int iteration = 0; iteration < 200; ++iteration) {
+            int size = random.nextInt(300);
+            OrderStatisticTree<Integer> left = new OrderStatisticTree<>();
+            List<Integer> list = new ArrayList<>();
+            
+            for (int i = 0; i < size; ++i) {
+                int number = random.nextInt(1000);
+                
+                if (left.add(number)) {
+                    list.add(number);
+                }
+            }
+            
+            Collections.sort(list);
+            int index = random.nextInt(list.size() + 1);
+            OrderStatisticTree<Integer> right = left.splitAtIndex(index);
+            
+            assertTrue(left.isHealthy());
+            assertTrue(right.isHealthy());
+            assertEquals(list.subList(0, index), new ArrayList<>(left));
+            assertEquals(list.subList(index, list.size()), 
+                         new ArrayList<>(right));
+            
+            for (int i = 0; i < right.size(); ++i) {
+                assertEquals(list.get(index + i), right.get(i));
+            }
+        }
+    }
+    
+    @Test
+    public void testSplitAt() {
+        for (int i = 0; i < 100; i += 2) {
+            tree.add(i);
+        }
+        
+        OrderStatisticTree<Integer> right = tree.splitAt(41);
+        
+        assertEquals(21, tree.size());
+        assertEquals(Integer.valueOf(40), tree.last());
+        assertEquals(Integer.valueOf(42), right.first());
+        assertEquals(29, right.size());
+        
+        OrderStatisticTree<Integer> tail = right.splitAt(60);
+        
+        assertEquals(Integer.valueOf(58), right.last());
+        assertEquals(Integer.valueOf(60), tail.first());
+        assertTrue(tree.isHealthy());
+        assertTrue(right.isHealthy());
+        assertTrue(tail.isHealthy());
+        assertTrue(tail.splitAt(1000).isEmpty());
+        assertEquals(20, tail.size());
+    }
+    
+    @Test
+    public void testJoin() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testJoin - seed: " + seed);
+        
+        for (int iteration = 0; iteration < 200; ++iteration) {
+            // Use unbalanced sizes so that the trees differ in height.
+            int leftSize = random.nextInt(random.nextBoolean() ? 5 : 500);
+            int rightSize = random.nextInt(random.nextBoolean() ? 5 : 500);
+            OrderStatisticTree<Integer> left = new OrderStatisticTree<>();
+            OrderStatisticTree<Integer> right = new OrderStatisticTree<>();
+            
+            for (int i = 0; i < leftSize; ++i) {
+                left.add(random.nextInt(1000));
+            }
+            
+            for (int i = 0; i < rightSize; ++i) {
+                right.add(1001 + random.nextInt(1000));
+            }
+            
+            List<Integer> expected = new ArrayList<>(left);
+            expected.add(1000);
+            expected.addAll(right);
+            
+            OrderStatisticTree<Integer> joined = 
+                    OrderStatisticTree.join(left, 1000, right);
+            
+            assertTrue(joined.isHealthy());
+            assertTrue(left.isEmpty());
+            assertTrue(right.isEmpty());
+            assertEquals(expected, new ArrayList<>(joined));
+            assertEquals(expected.indexOf(1000), joined.indexOf(1000));
+            
+            OrderStatisticTree<Integer> tail = 
+                    joined.splitAtIndex(random.nextInt(expected.size() + 1));
+            joined = OrderStatisticTree.join(joined, tail);
+            
+            assertTrue(joined.isHealthy());
+            assertEquals(expected, new ArrayList<>(joined));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testJoinThrowsOnOverlap() {
+        OrderStatisticTree<Integer> right = new OrderStatisticTree<>();
+        tree.add(5);
+        right.add(3);
+        OrderStatisticTree.join(tree, 4, right);
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testSplitInvalidatesIterators() {
+        for (int i = 0; i < 10; ++i) {
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator = tree.iterator();
+        iterator.next();
+        tree.splitAtIndex(5);
+        iterator.next();
+    }
+    
+    @Test
+    public void testBulkSetOperations() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testBulkSetOperations - seed: " + seed);
+        
+        for (int iteration = 0; iteration < 60; ++iteration) {
+            // Large sizes exercise the parallel path.
+            int size1 = random.nextInt(iteration % 3 == 0 ? 20000 : 300);
+            int size2 = random.nextInt(iteration % 4 == 0 ? 20000 : 300);
+            int range = 1 + random.nextInt(40000);
+            TreeSet<Integer> set1 = new TreeSet<>();
+            TreeSet<Integer> set2 = new TreeSet<>();
+            
+            for (int i = 0; i < size1; ++i) {
+                set1.add(random.nextInt(range));
+            }
+            
+            for (int i = 0; i < size2; ++i) {
+                set2.add(random.nextInt(range));
+            }
+            
+            // Alternate between a tree and a sorted set argument.
+            Collection<Integer> argument = iteration % 2 == 0 ?
+                    new OrderStatisticTree<>(set2) : 
+                    new TreeSet<>(set2);
+            
+            for (int operation = 0; operation < 3; ++operation) {
+                OrderStatisticTree<Integer> tree1 = 
+                        new OrderStatisticTree<>(set1);
+                TreeSet<Integer> expected = new TreeSet<>(set1);
+                boolean modified;
+                
+                switch (operation) {
+                    case 0:
+                        modified = expected.addAll(set2);
+                        assertEquals(modified, tree1.addAll(argument));
+                        break;
+                    
+                    case 1:
+                        modified = expected.retainAll(set2);
+                        assertEquals(modified, tree1.retainAll(argument));
+                        break;
+                    
+                    default:
+                        modified = expected.removeAll(set2);
+                        assertEquals(modified, tree1.removeAll(argument));
+                        break;
+                }
+                
+                assertTrue(tree1.isHealthy());
+                assertEquals(expected.size(), tree1.size());
+                assertEquals(new ArrayList<>(expected), 
+                             new ArrayList<>(tree1));
+                assertEquals(new ArrayList<>(set2), 
+                             new ArrayList<>(argument));
+            }
+            
+            if (argument instanceof OrderStatisticTree) {
+                assertTrue(((OrderStatisticTree<Integer>) argument)
+                           .isHealthy());
+            }
+        }
+    }
+    
+    @Test
+    public void testBulkOperationsOnItself() {
+        for (int i = 0; i < 100; ++i) {
+            tree.add(i);
+        }
+        
+        assertFalse(tree.addAll(tree));
+        assertFalse(tree.retainAll(tree));
+        assertEquals(100, tree.size());
+        assertTrue(tree.retainAll(tree.subSet(10, 20)));
+        assertEquals(10, tree.size());
+        assertTrue(tree.isHealthy());
+        assertTrue(tree.removeAll(tree));
+        assertTrue(tree.isEmpty());
+    }
+    
+    @Test
+    public void testRetainAllUnsortedCollection() {
+        for (int i = 0; i < 100; ++i) {
+            tree.add(i);
+        }
+        
+        assertTrue(tree.retainAll(Arrays.asList(5, 50, 500)));
+        assertEquals(Arrays.asList(5, 50), new ArrayList<>(tree));
+        assertTrue(tree.retainAll(new HashSet<>(Arrays.asList(50))));
+        assertEquals(Arrays.asList(50), new ArrayList<>(tree));
+    }
+    
+    @Test
+    public void testRemoveRange() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testRemoveRange - seed: " + seed);
+        
+        for (int iteration = 0; iteration < 200; ++iteration) {
+            OrderStatisticTree<Integer> tree1 = new OrderStatisticTree<>();
+            List<Integer> list = new ArrayList<>();
+            int size = random.nextInt(500);
+            
+            for (int i = 0; i < size; ++i) {
+                int number = random.nextInt(2000);
+                
+                if (tree1.add(number)) {
+                    list.add(number);
+                }
+            }
+            
+            Collections.sort(list);
+            int fromIndex = random.nextInt(list.size() + 1);
+            int toIndex = fromIndex + 
+                          random.nextInt(list.size() - fromIndex + 1);
+            
+            tree1.removeRange(fromIndex, toIndex);
+            list.subList(fromIndex, toIndex).clear();
+            
+            assertTrue(tree1.isHealthy());
+            assertEquals(list.size(), tree1.size());
+            assertEquals(list, new ArrayList<>(tree1));
+            
+            for (int i = 0; i < list.size(); ++i) {
+                assertEquals(list.get(i), tree1.get(i));
+            }
+        }
+    }
+    
+    @Test
+    public void testRetainTopAndBottom() {
+        for (int i = 0; i < 1000; ++i) {
+            tree.add(i);
+        }
+        
+        tree.retainTop(2000);
+        assertEquals(1000, tree.size());
+        
+        tree.retainTop(300);
+        assertEquals(300, tree.size());
+        assertEquals(Integer.valueOf(700), tree.first());
+        assertEquals(Integer.valueOf(999), tree.last());
+        assertTrue(tree.isHealthy());
+        
+        tree.retainBottom(10);
+        assertEquals(10, tree.size());
+        assertEquals(Integer.valueOf(700), tree.first());
+        assertEquals(Integer.valueOf(709), tree.last());
+        assertTrue(tree.isHealthy());
+        
+        tree.retainBottom(0);
+        assertTrue(tree.isEmpty());
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testRemoveRangeInvalidatesIterators() {
+        for (int i = 0; i < 10; ++i) {
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator = tree.iterator();
+        iterator.next();
+        tree.removeRange(2, 4);
+        iterator.next();
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveRangeThrowsOnReversedRange() {
+        tree.add(1);
+        tree.add(2);
+        tree.removeRange(2, 1);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testRetainTopThrowsOnNegativeCount() {
+        tree.retainTop(-1);
+    }
+    
+    @Test
+    public void testRemoveAt() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testRemoveAt - seed: " + seed);
+        
+        List<Integer> list = new ArrayList<>();
+        
+        for (int i = 0; i < 1000; ++i) {
+            int number = random.nextInt(5000);
+            
+            if (tree.add(number)) {
+                list.add(number);
+            }
+        }
+        
+        Collections.sort(list);
+        
+        while (!list.isEmpty()) {
+            int index = random.nextInt(list.size());
+            assertEquals(list.remove(index), tree.removeAt(index));
+            assertEquals(list.size(), tree.size());
+            assertTrue(tree.isHealthy());
+        }
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveAtThrowsOnTooLargeIndex() {
+        tree.add(1);
+        tree.removeAt(1);
+    }
+    
+    @Test
+    public void testListIteratorBruteForce() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testListIteratorBruteForce - seed: " + seed);
+        
+        for (int i = 0; i < 1000; ++i) {
+            tree.add(random.nextInt(3000));
+        }
+        
+        List<Integer> list = new ArrayList<>(tree);
+        
+        for (int round = 0; round < 20; ++round) {
+            int index = random.nextInt(list.size() + 1);
+            ListIterator<Integer> expected = list.listIterator(index);
+            ListIterator<Integer> actual = tree.listIterator(index);
+            boolean canRemove = false;
+            
+            for (int step = 0; step < 200; ++step) {
+                assertEquals(expected.nextIndex(), actual.nextIndex());
+                assertEquals(expected.previousIndex(), actual.previousIndex());
+                assertEquals(expected.hasNext(), actual.hasNext());
+                assertEquals(expected.hasPrevious(), actual.hasPrevious());
+                int choice = random.nextInt(5);
+                
+                if (choice < 2 && expected.hasNext()) {
+                    assertEquals(expected.next(), actual.next());
+                    canRemove = true;
+                } else if (choice < 4 && expected.hasPrevious()) {
+                    assertEquals(expected.previous(), actual.previous());
+                    canRemove = true;
+                } else if (canRemove) {
+                    expected.remove();
+                    actual.remove();
+                    canRemove = false;
+                }
+            }
+            
+            assertEquals(list.size(), tree.size());
+            assertTrue(tree.isHealthy());
+            assertEquals(list, new ArrayList<>(tree));
+        }
+    }
+    
+    @Test
+    public void testIteratorFromKey() {
+        for (int i = 0; i < 100; i += 2) {
+            set.add(i);
+            tree.add(i);
+        }
+        
+        for (int key = -1; key <= 100; ++key) {
+            assertEquals(new ArrayList<>(set.tailSet(key)),
+                         toList(tree.iterator(key)));
+        }
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListIteratorSetThrows() {
+        tree.add(1);
+        ListIterator<Integer> iterator = tree.listIterator();
+        iterator.next();
+        iterator.set(2);
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testListIteratorThrowsOnTooLargeIndex() {
+        tree.add(1);
+        tree.listIterator(2);
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testListIteratorConcurrentModification() {
+        tree.add(1);
+        tree.add(2);
+        ListIterator<Integer> iterator = tree.listIterator(1);
+        tree.add(3);
+        iterator.previous();
+    }
+    
+    private static List<Integer> toList(Iterator<Integer> iterator) {
+        List<Integer> list = new ArrayList<>();
+        
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        
+        return list;
+    }
+    
+    @Test
+    public void testSpliterator() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testSpliterator - seed: " + seed);
+        
+        for (int i = 0; i < 10000; ++i) {
+            int number = random.nextInt(100000);
+            set.add(number);
+            tree.add(number);
+        }
+        
+        List<Integer> list = new ArrayList<>(set);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED 
+                                                | Spliterator.SUBSIZED
+                                                | Spliterator.SORTED
+                                                | Spliterator.DISTINCT));
+        assertNull(spliterator.getComparator());
+        
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(list.size() / 2, prefix.estimateSize());
+        assertEquals(list.size() - list.size() / 2, 
+                     spliterator.estimateSize());
+        
+        List<Integer> result = new ArrayList<>();
+        assertTrue(prefix.tryAdvance(result::add));
+        assertTrue(prefix.tryAdvance(result::add));
+        prefix.forEachRemaining(result::add);
+        assertFalse(prefix.tryAdvance(result::add));
+        spliterator.forEachRemaining(result::add);
+        assertEquals(list, result);
+        
+        assertEquals(list, tree.parallelStream()
+                               .collect(Collectors.toList()));
+        assertEquals(list.stream().mapToLong(i -> i).sum(),
+                     tree.parallelStream().mapToLong(i -> i).sum());
+        
+        for (int i = 0; i < 20; ++i) {
+            int lo = random.nextInt(100000);
+            int hi = lo + random.nextInt(20000);
+            assertEquals(new ArrayList<>(set.subSet(lo, hi)),
+                         tree.subSet(lo, hi).parallelStream()
+                                            .collect(Collectors.toList()));
+        }
+    }
+    
+    @Test(expected = ConcurrentModificationException.class)
+    public void testSpliteratorConcurrentModification() {
+        tree.add(1);
+        tree.add(2);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        tree.add(3);
+        spliterator.tryAdvance(i -> {});
+    }
+    
+    @Test
+    public void testBatchedQueries() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testBatchedQueries - seed: " + seed);
+        
+        for (int i = 0; i < 5000; ++i) {
+            tree.add(random.nextInt(20000));
+        }
+        
+        List<Integer> list = new ArrayList<>(tree);
+        int[] indices = new int[300];
+        
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = random.nextInt(list.size());
+        }
+        
+        Arrays.sort(indices);
+        List<Integer> elements = tree.getAll(indices);
+        
+        for (int i = 0; i < indices.length; ++i) {
+            assertEquals(list.get(indices[i]), elements.get(i));
+        }
+        
+        Integer[] keys = new Integer[300];
+        
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = random.nextInt(20002) - 1;
+        }
+        
+        Arrays.sort(keys);
+        int[] keyIndices = tree.indexOfAll(keys);
+        
+        for (int i = 0; i < keys.length; ++i) {
+            assertEquals(tree.indexOf(keys[i]), keyIndices[i]);
+        }
+        
+        double[] qs = { 0.0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1.0 };
+        List<Integer> quantiles = tree.quantiles(qs);
+        
+        for (int i = 0; i < qs.length; ++i) {
+            int index = Math.max(0, (int) Math.ceil(qs[i] * list.size()) - 1);
+            assertEquals(list.get(index), quantiles.get(i));
+        }
+        
+        assertTrue(tree.getAll(new int[0]).isEmpty());
+        assertEquals(0, tree.indexOfAll(new Integer[0]).length);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllThrowsOnUnsortedIndices() {
+        tree.add(1);
+        tree.add(2);
+        tree.getAll(new int[]{ 1, 0 });
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetAllThrowsOnTooLargeIndex() {
+        tree.add(1);
+        tree.getAll(new int[]{ 0, 1 });
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testQuantilesThrowsOnBadQuantile() {
+        tree.add(1);
+        tree.quantiles(new double[]{ 1.5 });
+    }
+    
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testSnapshotRoundTrip - seed: " + seed);
+        
+        for (int i = 0; i < 50000; ++i) {
+            int number = random.nextInt();
+            tree.add(number);
+            set.add(number);
+        }
+        
+        byte[] bytes = snapshot(tree);
+        OrderStatisticTree<Integer> copy = 
+                OrderStatisticTree.readFrom(
+                        Channels.newChannel(new ByteArrayInputStream(bytes)),
+                        KeyCodec.INTEGER);
+        
+        assertTrue(copy.isHealthy());
+        assertEquals(new ArrayList<>(set), new ArrayList<>(copy));
+        
+        Path path = Files.createTempFile("ost", ".bin");
+        
+        try {
+            Files.write(path, bytes);
+            OrderStatisticTree<Integer> loaded = 
+                    OrderStatisticTree.load(path, KeyCodec.INTEGER);
+            
+            assertTrue(loaded.isHealthy());
+            assertEquals(new ArrayList<>(set), new ArrayList<>(loaded));
+            
+            for (int i = 0; i < 100; ++i) {
+                int index = random.nextInt(set.size());
+                assertEquals(tree.get(index), loaded.get(index));
+            }
+            
+            // A file channel is read from its current position.
+            Files.write(path, new byte[]{ 1, 2, 3 });
+            
+            try (FileChannel channel = FileChannel.open(
+                    path, 
+                    StandardOpenOption.WRITE, 
+                    StandardOpenOption.APPEND)) {
+                tree.writeTo(channel, KeyCodec.INTEGER);
+            }
+            
+            try (FileChannel channel = FileChannel.open(path)) {
+                channel.position(3L);
+                OrderStatisticTree<Integer> read = 
+                        OrderStatisticTree.readFrom(channel, KeyCodec.INTEGER);
+                
+                assertTrue(read.isHealthy());
+                assertEquals(new ArrayList<>(set), new ArrayList<>(read));
+                assertEquals(channel.size(), channel.position());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+    
+    @Test
+    public void testSnapshotOfEmptyTree() throws IOException {
+        OrderStatisticTree<Long> empty = new OrderStatisticTree<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        empty.writeTo(Channels.newChannel(out), KeyCodec.LONG);
+        
+        OrderStatisticTree<Long> copy = 
+                OrderStatisticTree.readFrom(
+                        Channels.newChannel(
+                                new ByteArrayInputStream(out.toByteArray())),
+                        KeyCodec.LONG);
+        
+        assertTrue(copy.isEmpty());
+        assertTrue(copy.isHealthy());
+    }
+    
+    @Test
+    public void testSnapshotDetectsCorruption() throws IOException {
+        for (int i = 0; i < 1000; ++i) {
+            tree.add(i);
+        }
+        
+        byte[] bytes = snapshot(tree);
+        bytes[bytes.length / 2] ^= 1;
+        Path path = Files.createTempFile("ost", ".bin");
+        
+        try {
+            Files.write(path, bytes);
+            OrderStatisticTree.load(path, KeyCodec.INTEGER);
+            fail("The corrupt snapshot was loaded.");
+        } catch (StreamCorruptedException ex) {
+            
+        } finally {
+            Files.delete(path);
+        }
+        
+        try {
+            OrderStatisticTree.readFrom(
+                    Channels.newChannel(new ByteArrayInputStream(bytes)),
+                    KeyCodec.INTEGER);
+            fail("The corrupt snapshot was read.");
+        } catch (StreamCorruptedException ex) {
+            
+        }
+    }
+    
+    @Test(expected = EOFException.class)
+    public void testSnapshotDetectsTruncation() throws IOException {
+        for (int i = 0; i < 1000; ++i) {
+            tree.add(i);
+        }
+        
+        byte[] bytes = snapshot(tree);
+        OrderStatisticTree.readFrom(
+                Channels.newChannel(
+                        new ByteArrayInputStream(bytes, 0, bytes.length / 2)),
+                KeyCodec.INTEGER);
+    }
+    
+    @Test(expected = StreamCorruptedException.class)
+    public void testSnapshotRejectsWrongCodec() throws IOException {
+        tree.add(1);
+        OrderStatisticTree.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(snapshot(tree))),
+                KeyCodec.LONG);
+    }
+    
+    private static byte[] snapshot(OrderStatisticTree<Integer> tree) 
+    throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.writeTo(Channels.newChannel(out), KeyCodec.INTEGER);
+        return out.toByteArray();
+    }
+    
+    @Test
+    public void testFingerAgainstTreeSet() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testFingerAgainstTreeSet - seed: " + seed);
+        
+        tree.setFingerEnabled(true);
+        assertTrue(tree.isFingerEnabled());
+        
+        for (int i = 0; i < 2000; ++i) {
+            int number = random.nextInt(3000);
+            tree.add(number);
+            set.add(number);
+        }
+        
+        List<Integer> list = new ArrayList<>(set);
+        int index = 0;
+        
+        for (int i = 0; i < 20000; ++i) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    // Jump anywhere.
+                    index = random.nextInt(list.size());
+                    break;
+                
+                default:
+                    // Move a short distance.
+                    index += random.nextInt(41) - 20;
+                    index = Math.max(0, Math.min(list.size() - 1, index));
+                    break;
+            }
+            
+            assertEquals(list.get(index), tree.get(index));
+            
+            int number = list.get(index) + random.nextInt(21) - 10;
+            assertEquals(list.indexOf(number), tree.indexOf(number));
+            
+            if (random.nextInt(100) == 0) {
+                // Invalidate the finger.
+                int removed = list.remove(random.nextInt(list.size()));
+                tree.remove(removed);
+                index = Math.min(index, list.size() - 1);
+            }
+        }
+        
+        assertTrue(tree.isHealthy());
+    }
+    
+    @Test
+    public void testFingerScans() {
+        tree.setFingerEnabled(true);
+        
+        for (int i = 0; i < 1000; ++i) {
+            tree.add(2 * i);
+        }
+        
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(Integer.valueOf(2 * i), tree.get(i));
+        }
+        
+        for (int i = 999; i >= 0; --i) {
+            assertEquals(i, tree.indexOf(2 * i));
+            assertEquals(-1, tree.indexOf(2 * i + 1));
+        }
+        
+        tree.setFingerEnabled(false);
+        assertFalse(tree.isFingerEnabled());
+        assertEquals(Integer.valueOf(500), tree.get(250));
+    }
 }
@@ -0,0 +1,112 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PersistentOrderStatisticTreeTest {
+    
+    private final PersistentOrderStatisticTree<Integer> tree =
+            new PersistentOrderStatisticTree<>();
+    
+    private final TreeSet<Integer> set = new TreeSet<>();
+    
+    @Before
+    public void before() {
+        tree.clear();
+        set.clear();
+    }
+    
+    @Test
+    public void testAgainstTreeSet() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testAgainstTreeSet - seed: " + seed);
+        
+        for (int i = 0; i < 5000; ++i) {
+            int number = random.nextInt(1000);
+            
+            if (random.nextBoolean()) {
+                assertEquals(set.add(number), tree.add(number));
+            } else {
+                assertEquals(set.remove(number), tree.remove(number));
+            }
+            
+            assertEquals(set.size(), tree.size());
+            assertEquals(set.contains(number), tree.contains(number));
+            assertEquals(set.headSet(number).size(), tree.rank(number));
+        }
+        
+        assertTrue(tree.isHealthy());
+        
+        List<Integer> list = new ArrayList<>(set);
+        assertEquals(list, new ArrayList<>(tree));
+        
+        for (int i = 0; i < list.size(); ++i) {
+            assertEquals(list.get(i), tree.get(i));
+            assertEquals(i, tree.indexOf(list.get(i)));
+        }
+        
+        assertEquals(-1, tree.indexOf(-1));
+    }
+    
+    @Test
+    public void testSnapshotIsolation() {
+        for (int i = 0; i < 100; ++i) {
+            tree.add(i);
+        }
+        
+        PersistentOrderStatisticTree<Integer> snapshot = tree.snapshot();
+        
+        for (int i = 0; i < 100; i += 2) {
+            tree.remove(i);
+        }
+        
+        tree.add(1000);
+        snapshot.add(-1);
+        
+        assertEquals(51, tree.size());
+        assertEquals(101, snapshot.size());
+        assertEquals(Integer.valueOf(1), tree.get(0));
+        assertEquals(Integer.valueOf(-1), snapshot.get(0));
+        assertEquals(Integer.valueOf(0), snapshot.get(1));
+        assertFalse(tree.contains(-1));
+        assertFalse(snapshot.contains(1000));
+        assertTrue(tree.isHealthy());
+        assertTrue(snapshot.isHealthy());
+    }
+    
+    @Test
+    public void testIteratorSurvivesModification() {
+        for (int i = 0; i < 10; ++i) {
+            tree.add(i);
+        }
+        
+        Iterator<Integer> iterator = tree.iterator();
+        
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(Integer.valueOf(i), iterator.next());
+            tree.add(100 + i);
+            
+            if (i % 2 == 1) {
+                iterator.remove();
+            }
+        }
+        
+        assertFalse(iterator.hasNext());
+        assertEquals(15, tree.size());
+        assertFalse(tree.contains(3));
+        assertTrue(tree.contains(4));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetThrowsOnEmptyTree() {
+        tree.get(0);
+    }
+}
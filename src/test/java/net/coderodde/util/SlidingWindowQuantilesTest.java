@@ -0,0 +1,126 @@
+package net.coderodde.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SlidingWindowQuantilesTest {
+    
+    private static final double[] QS = { 0.0, 0.01, 0.25, 0.5, 0.9, 0.95,
+                                         0.99, 1.0 };
+    
+    @Test
+    public void testCountWindowAgainstSortedCopy() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testCountWindowAgainstSortedCopy - seed: " + seed);
+        
+        SlidingWindowQuantiles<Integer> window =
+                SlidingWindowQuantiles.ofCount(100);
+        Deque<Integer> deque = new ArrayDeque<>();
+        
+        for (int i = 0; i < 5000; ++i) {
+            // Few distinct values, so that the window is full of duplicates.
+            int sample = random.nextInt(30);
+            window.add(sample);
+            deque.addLast(sample);
+            
+            if (deque.size() > 100) {
+                deque.removeFirst();
+            }
+            
+            assertEquals(deque.size(), window.size());
+            checkQuantiles(deque, window);
+        }
+        
+        window.clear();
+        assertTrue(window.isEmpty());
+        window.add(7);
+        assertEquals(Integer.valueOf(7), window.median());
+    }
+    
+    @Test
+    public void testTimeWindowAgainstSortedCopy() {
+        long seed = System.nanoTime();
+        Random random = new Random(seed);
+        
+        System.out.println("testTimeWindowAgainstSortedCopy - seed: " + seed);
+        
+        long[] now = { 0L };
+        SlidingWindowQuantiles<Integer> window =
+                SlidingWindowQuantiles.ofDuration(1L, 
+                                                  TimeUnit.SECONDS, 
+                                                  () -> now[0]);
+        Deque<long[]> deque = new ArrayDeque<>();
+        long second = TimeUnit.SECONDS.toNanos(1L);
+        
+        for (int i = 0; i < 5000; ++i) {
+            // Bursts and idle periods make the window grow and shrink.
+            now[0] += random.nextInt(20) == 0 ?
+                      random.nextInt((int) second) :
+                      random.nextInt(1_000_000);
+            
+            int sample = random.nextInt(1000);
+            window.add(sample);
+            deque.addLast(new long[]{ now[0], sample });
+            
+            while (now[0] - deque.peekFirst()[0] >= second) {
+                deque.removeFirst();
+            }
+            
+            List<Integer> expected = new ArrayList<>();
+            
+            for (long[] entry : deque) {
+                expected.add((int) entry[1]);
+            }
+            
+            assertEquals(expected.size(), window.size());
+            checkQuantiles(expected, window);
+        }
+        
+        now[0] += second;
+        assertTrue(window.isEmpty());
+    }
+    
+    @Test(expected = NoSuchElementException.class)
+    public void testQuantileThrowsOnEmptyWindow() {
+        SlidingWindowQuantiles.<Integer>ofCount(10).median();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testQuantileThrowsOnBadQuantile() {
+        SlidingWindowQuantiles<Integer> window =
+                SlidingWindowQuantiles.ofCount(10);
+        window.add(1);
+        window.quantile(-0.1);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfCountThrowsOnZeroCapacity() {
+        SlidingWindowQuantiles.ofCount(0);
+    }
+    
+    private static void checkQuantiles(Iterable<Integer> samples,
+                                       SlidingWindowQuantiles<Integer> window) {
+        List<Integer> sorted = new ArrayList<>();
+        
+        for (Integer sample : samples) {
+            sorted.add(sample);
+        }
+        
+        Collections.sort(sorted);
+        
+        for (double q : QS) {
+            int index = Math.max(0, (int) Math.ceil(q * sorted.size()) - 1);
+            assertEquals(sorted.get(index), window.quantile(q));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.coderodde.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class InstrumentedFlightRecorderTest {
+    
+    private final OrderStatisticTree<Integer> tree =
+            new OrderStatisticTree<>();
+    
+    @Before
+    public void before() {
+        assumeTrue(OrderStatisticTree.INSTRUMENTED);
+    }
+    
+    @Test
+    public void testOperationsAreRecordedAsFlightRecorderEvents() 
+    throws IOException {
+        Path path = Files.createTempFile("ost", ".jfr");
+        
+        try (Recording recording = new Recording()) {
+            recording.enable("net.coderodde.util.TreeOperation")
+                     .withThreshold(Duration.ZERO);
+            recording.start();
+            
+            for (int i = 0; i < 100; ++i) {
+                tree.add(i);
+            }
+            
+            tree.contains(50);
+            tree.remove(50);
+            recording.stop();
+            recording.dump(path);
+            
+            List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+            int adds = 0;
+            
+            for (RecordedEvent event : events) {
+                switch (event.getString("operation")) {
+                    case "add":
+                        adds++;
+                        break;
+                    
+                    case "contains":
+                        assertEquals(100, event.getInt("size"));
+                        assertTrue(event.getLong("comparisons") > 0L);
+                        break;
+                    
+                    case "remove":
+                        assertEquals(99, event.getInt("size"));
+                        assertTrue(event.getLong("rebalanceSteps") > 0L);
+                        break;
+                    
+                    default:
+                        fail("Unexpected operation.");
+                }
+            }
+            
+            assertEquals(100, adds);
+            assertEquals(102, events.size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+}